@@ -16,7 +16,17 @@ import org.springframework.stereotype.Component;
 public class PlcProperties {
 
     /**
-     * 通信协议类型
+     * S7协议，阻塞套接字传输
+     */
+    public static final String PROTOCOL_S7 = "S7";
+
+    /**
+     * S7协议，NIO共享选择器传输
+     */
+    public static final String PROTOCOL_S7_NIO = "S7_NIO";
+
+    /**
+     * 通信协议类型: S7 / S7_NIO
      */
     private String protocol = "S7";
 
@@ -46,12 +56,68 @@ public class PlcProperties {
     private int timeout = 5000;
 
     /**
-     * 重试次数
+     * 建立连接的总时限(毫秒)，TCP连接、COTP连接和S7通信参数协商共用
+     */
+    private int connectTimeout = 5000;
+
+    /**
+     * 重试次数，自动重连和连接池成员重建的间隔最多翻倍该次数，之后保持不变
      */
     private int retryCount = 3;
 
     /**
-     * 重试间隔时间(毫秒)
+     * 重试间隔时间(毫秒)，自动重连和连接池成员重建的初始间隔
      */
     private int retryInterval = 1000;
+
+    /**
+     * 每台PLC的并行连接数，大于1时启用连接池
+     */
+    private int poolSize = 1;
+
+    /**
+     * 批量读取时合并相邻地址允许的最大间隙(字节)
+     */
+    private int readGapTolerance = 16;
+
+    /**
+     * 请求合并窗口(微秒)，并发调用在窗口内合并为一个多项请求，直到PDU装满；
+     * 为0时不等待，只合并并行作业槽已满时排队的调用
+     */
+    private int batchWindowMicros = 0;
+
+    /**
+     * 是否按PLC响应时间自适应调节扫描周期
+     */
+    private boolean adaptivePolling = true;
+
+    /**
+     * 批量读取响应时间p95的目标值(毫秒)，超过时延长扫描周期，低于一半时逐步恢复
+     */
+    private int targetResponseMillis = 100;
+
+    /**
+     * 请求失败率上限(百分比)，超过时延长扫描周期
+     */
+    private int maxErrorPercent = 5;
+
+    /**
+     * 扫描周期最多延长到配置周期的倍数
+     */
+    private int maxScanStretch = 4;
+
+    /**
+     * 通信耗时统计导出文件(CSV)，程序退出时写入，为空时不导出
+     */
+    private String latencyExportFile;
+
+    /**
+     * 启动时是否开启采集链路跟踪，运行中可通过JMX开关
+     */
+    private boolean traceEnabled = false;
+
+    /**
+     * 采集链路跟踪导出文件(CSV)，程序退出时写入，为空或未开启跟踪时不导出
+     */
+    private String traceExportFile;
 }
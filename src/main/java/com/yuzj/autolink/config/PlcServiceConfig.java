@@ -0,0 +1,21 @@
+package com.yuzj.autolink.config;
+
+import com.yuzj.autolink.plc.service.PlcService;
+import com.yuzj.autolink.plc.session.PlcConnectionManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * PLC通信服务配置
+ * 界面注入的PlcService为连接管理器中的默认会话
+ *
+ * @author yuzj002
+ */
+@Configuration
+public class PlcServiceConfig {
+
+    @Bean
+    public PlcService plcService(PlcConnectionManager plcConnectionManager) {
+        return plcConnectionManager.getDefaultSession();
+    }
+}
@@ -0,0 +1,14 @@
+package com.yuzj.autolink.dao.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.yuzj.autolink.dao.model.PlcConnectConfig;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * PLC连接配置Mapper接口
+ *
+ * @author yuzj002
+ */
+@Mapper
+public interface PlcConnectConfigMapper extends BaseMapper<PlcConnectConfig> {
+}
@@ -0,0 +1,75 @@
+package com.yuzj.autolink.dao.model;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * PLC连接配置实体类
+ * 对应表: plc_connect_config，每行对应一台PLC设备
+ *
+ * @author yuzj002
+ */
+@Data
+@TableName("plc_connect_config")
+public class PlcConnectConfig {
+
+    /**
+     * 主键ID，同时作为设备ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * PLC IP地址
+     */
+    private String host;
+
+    /**
+     * PLC端口号
+     */
+    private Integer port;
+
+    /**
+     * PLC机架号
+     */
+    private Integer rack;
+
+    /**
+     * PLC插槽号
+     */
+    private Integer slot;
+
+    /**
+     * 连接超时时间(毫秒)
+     */
+    private Integer timeout;
+
+    /**
+     * 通信协议
+     */
+    private String protocol;
+
+    /**
+     * 并行连接数
+     */
+    private Integer poolSize;
+
+    /**
+     * 是否激活
+     */
+    private Boolean isActive;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -42,14 +42,14 @@ public class PlcDataRecord {
     private String quality;
 
     /**
-     * 创建时间
+     * 采集时间，对应timestamp列
      */
-    @TableField(fill = FieldFill.INSERT)
+    @TableField("timestamp")
     private LocalDateTime createTime;
 
     /**
-     * 更新时间
+     * 更新时间，表中无对应列
      */
-    @TableField(fill = FieldFill.INSERT_UPDATE)
+    @TableField(exist = false)
     private LocalDateTime updateTime;
 }
@@ -39,6 +39,36 @@ public class PlcTagConfig {
      */
     private String description;
 
+    /**
+     * 所属设备ID，0为默认连接
+     */
+    private Long deviceId;
+
+    /**
+     * 扫描周期(毫秒)，相同周期的标签组成一个扫描组
+     */
+    private Integer scanRate;
+
+    /**
+     * 死区类型: NONE / CHANGE / ABSOLUTE / PERCENT
+     */
+    private String deadbandType;
+
+    /**
+     * 死区值，ABSOLUTE时为绝对值，PERCENT时为量程百分比
+     */
+    private Double deadband;
+
+    /**
+     * 量程下限
+     */
+    private Double spanMin;
+
+    /**
+     * 量程上限
+     */
+    private Double spanMax;
+
     /**
      * 创建时间
      */
@@ -0,0 +1,22 @@
+package com.yuzj.autolink.dao.repository;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.yuzj.autolink.dao.mapper.PlcConnectConfigMapper;
+import com.yuzj.autolink.dao.model.PlcConnectConfig;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * @author yuzj002
+ */
+@Repository
+public class PlcConnectConfigRepository extends ServiceImpl<PlcConnectConfigMapper, PlcConnectConfig> {
+
+    /**
+     * 查询所有激活的连接配置
+     */
+    public List<PlcConnectConfig> listActive() {
+        return lambdaQuery().eq(PlcConnectConfig::getIsActive, true).list();
+    }
+}
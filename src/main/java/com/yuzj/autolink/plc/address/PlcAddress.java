@@ -0,0 +1,305 @@
+package com.yuzj.autolink.plc.address;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * 预解析的PLC地址描述符
+ * 地址字符串只在首次使用时解析一次，读写热路径直接使用解析后的字段，
+ * 不再进行正则匹配和字符串拆分
+ * <p>
+ * 支持的地址格式:
+ * <ul>
+ *     <li>DB区: DB1.DBX0.0 / DB1.DBB2 / DB1.DBW2 / DB1.DBD4 / DB1.DBR4</li>
+ *     <li>存储区: I0.0 / QB1 / MW2 / MD4，不带类型标识时带位号为位地址，否则为字节地址</li>
+ *     <li>数组: 在地址后加[元素个数]，如DB5.DBR0[100] / DB1.DBX2.0[16] / MW10[4]</li>
+ *     <li>字符串: DB1.DBS10[20]为STRING[20]，DB1.DBWS10[20]为WSTRING[20]，省略长度时为254</li>
+ * </ul>
+ *
+ * @author yuzj002
+ */
+@Getter
+@EqualsAndHashCode(of = {"address", "dataType", "count"})
+public final class PlcAddress {
+
+    /**
+     * 未指定长度时字符串的最大字符数
+     */
+    public static final int DEFAULT_STRING_LENGTH = 254;
+
+    /**
+     * 数组的最大元素个数
+     */
+    private static final int MAX_COUNT = 65535;
+
+    /**
+     * 原始地址字符串
+     */
+    private final String address;
+
+    /**
+     * 存储区域
+     */
+    private final PlcArea area;
+
+    /**
+     * 数据块编号，非DB区为0
+     */
+    private final int dbNumber;
+
+    /**
+     * 字节偏移
+     */
+    private final int byteOffset;
+
+    /**
+     * 位偏移，非位地址为0
+     */
+    private final int bitOffset;
+
+    /**
+     * 数据类型
+     */
+    private final S7DataType dataType;
+
+    /**
+     * 数组元素个数，字符串为最大字符数，标量为0
+     */
+    private final int count;
+
+    /**
+     * 占用字节数
+     */
+    private final int length;
+
+    private PlcAddress(String address, PlcArea area, int dbNumber, int byteOffset, int bitOffset,
+                       S7DataType dataType, int count) {
+        this.address = address;
+        this.area = area;
+        this.dbNumber = dbNumber;
+        this.byteOffset = byteOffset;
+        this.bitOffset = bitOffset;
+        this.dataType = dataType;
+        this.count = count;
+        this.length = lengthOf(dataType, bitOffset, count);
+    }
+
+    private static int lengthOf(S7DataType dataType, int bitOffset, int count) {
+        switch (dataType) {
+            case STRING:
+                return 2 + count;
+            case WSTRING:
+                return 4 + 2 * count;
+            case BOOL:
+                return count == 0 ? 1 : (bitOffset + count + 7) >>> 3;
+            default:
+                return dataType.getByteLength() * Math.max(count, 1);
+        }
+    }
+
+    /**
+     * 是否为数组地址
+     */
+    public boolean isArray() {
+        return count > 0 && !dataType.isString();
+    }
+
+    /**
+     * 是否为单个位地址，按位读写
+     */
+    public boolean isBit() {
+        return dataType == S7DataType.BOOL && count == 0;
+    }
+
+    /**
+     * 解析地址字符串，频繁使用的地址应通过{@link PlcAddressCache#get(String)}获取
+     *
+     * @param address 地址字符串
+     * @return 地址描述符
+     * @throws IllegalArgumentException 地址格式不正确
+     */
+    public static PlcAddress parse(String address) {
+        if (address == null || address.trim().isEmpty()) {
+            throw new IllegalArgumentException("地址不能为空");
+        }
+        String text = address.trim();
+        if (text.startsWith("DB")) {
+            return parseDataBlock(text);
+        }
+        return parseMemoryArea(text);
+    }
+
+    /**
+     * 解析DB区地址: DB{n}.DB{X|B|W|D|R|S|WS}{byte}[.{bit}][[{count}]]
+     */
+    private static PlcAddress parseDataBlock(String text) {
+        Cursor cursor = new Cursor(text);
+        cursor.pos = 2;
+        int dbNumber = cursor.number();
+        if (dbNumber < 0 || !cursor.accept('.') || !cursor.accept('D') || !cursor.accept('B')) {
+            throw new IllegalArgumentException("DB区域地址格式不正确: " + text);
+        }
+        S7DataType dataType = dataTypeOf(cursor.next(), true);
+        if (dataType == S7DataType.WORD && cursor.accept('S')) {
+            dataType = S7DataType.WSTRING;
+        }
+        int byteOffset = cursor.number();
+        int bitOffset = cursor.accept('.') ? cursor.number() : 0;
+        int count = count(cursor, dataType);
+        if (dataType == null || byteOffset < 0 || bitOffset < 0 || bitOffset > 7 || count < 0 || !cursor.atEnd()) {
+            throw new IllegalArgumentException("DB区域地址格式不正确: " + text);
+        }
+        return new PlcAddress(text, PlcArea.DB, dbNumber, byteOffset, bitOffset, dataType, count);
+    }
+
+    /**
+     * 解析存储区地址: {I|Q|M}[B|W|D]{byte}[.{bit}][[{count}]]
+     */
+    private static PlcAddress parseMemoryArea(String text) {
+        Cursor cursor = new Cursor(text);
+        PlcArea area = areaOf(cursor.next());
+        S7DataType dataType = null;
+        if (!cursor.peekDigit()) {
+            dataType = dataTypeOf(cursor.next(), false);
+            if (dataType == null) {
+                throw new IllegalArgumentException("存储区地址格式不正确: " + text);
+            }
+        }
+        int byteOffset = cursor.number();
+        boolean hasBit = cursor.accept('.');
+        int bitOffset = hasBit ? cursor.number() : 0;
+        if (dataType == null) {
+            dataType = hasBit ? S7DataType.BOOL : S7DataType.BYTE;
+        }
+        int count = count(cursor, dataType);
+        if (area == null || byteOffset < 0 || bitOffset < 0 || bitOffset > 7 || count < 0 || !cursor.atEnd()) {
+            throw new IllegalArgumentException("存储区地址格式不正确: " + text);
+        }
+        return new PlcAddress(text, area, 0, byteOffset, bitOffset, dataType, count);
+    }
+
+    /**
+     * 解析可选的[元素个数]后缀，字符串省略时为默认最大长度
+     *
+     * @return 元素个数，没有后缀的标量为0，格式不正确时返回-1
+     */
+    private static int count(Cursor cursor, S7DataType dataType) {
+        if (!cursor.accept('[')) {
+            return dataType != null && dataType.isString() ? DEFAULT_STRING_LENGTH : 0;
+        }
+        int count = cursor.number();
+        if (!cursor.accept(']') || count < 1) {
+            return -1;
+        }
+        if (dataType == S7DataType.STRING) {
+            return count <= DEFAULT_STRING_LENGTH ? count : -1;
+        }
+        return count <= MAX_COUNT ? count : -1;
+    }
+
+    /**
+     * 按指定数据类型解释同一地址，如将DBD地址按REAL解码
+     *
+     * @param type 数据类型，元素占用字节数必须与地址一致，字符串地址只能按原类型解释
+     * @return 地址描述符，类型相同时返回自身
+     * @throws IllegalArgumentException 数据类型长度与地址不一致
+     */
+    public PlcAddress withDataType(S7DataType type) {
+        if (type == dataType) {
+            return this;
+        }
+        if (type.getByteLength() != dataType.getByteLength() || type.isString() || dataType.isString()
+                || (type == S7DataType.BOOL) != (dataType == S7DataType.BOOL)) {
+            throw new IllegalArgumentException("数据类型" + type + "与地址" + address + "不匹配");
+        }
+        return new PlcAddress(address, area, dbNumber, byteOffset, bitOffset, type, count);
+    }
+
+    private static PlcArea areaOf(char c) {
+        switch (c) {
+            case 'I':
+                return PlcArea.INPUT;
+            case 'Q':
+                return PlcArea.OUTPUT;
+            case 'M':
+                return PlcArea.MARKER;
+            default:
+                return null;
+        }
+    }
+
+    private static S7DataType dataTypeOf(char c, boolean dataBlock) {
+        switch (c) {
+            case 'X':
+                return dataBlock ? S7DataType.BOOL : null;
+            case 'B':
+                return S7DataType.BYTE;
+            case 'W':
+                return S7DataType.WORD;
+            case 'D':
+                return S7DataType.DWORD;
+            case 'R':
+                return dataBlock ? S7DataType.REAL : null;
+            case 'S':
+                return dataBlock ? S7DataType.STRING : null;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return address;
+    }
+
+    /**
+     * 地址字符串扫描游标
+     */
+    private static final class Cursor {
+        private final String text;
+        private int pos;
+
+        private Cursor(String text) {
+            this.text = text;
+        }
+
+        private char next() {
+            return pos < text.length() ? text.charAt(pos++) : 0;
+        }
+
+        private boolean accept(char c) {
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean peekDigit() {
+            return pos < text.length() && isDigit(text.charAt(pos));
+        }
+
+        private boolean atEnd() {
+            return pos == text.length();
+        }
+
+        /**
+         * 读取一个非负整数，没有数字或溢出时返回-1
+         */
+        private int number() {
+            int start = pos;
+            long value = 0;
+            while (pos < text.length() && isDigit(text.charAt(pos))) {
+                value = value * 10 + (text.charAt(pos++) - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return -1;
+                }
+            }
+            return pos == start ? -1 : (int) value;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.yuzj.autolink.plc.address;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PLC地址描述符缓存
+ * 以地址字符串为键驻留解析结果，容量有上限，超过上限后新地址只解析不缓存。
+ * 格式不正确的地址另外记录，批量读取重复查找时不再解析和抛出异常
+ *
+ * @author yuzj002
+ */
+public final class PlcAddressCache {
+
+    /**
+     * 最大缓存条目数
+     */
+    private static final int MAX_SIZE = 4096;
+
+    private static final ConcurrentHashMap<String, PlcAddress> CACHE = new ConcurrentHashMap<>(256);
+    private static final Set<String> INVALID = ConcurrentHashMap.newKeySet();
+
+    private PlcAddressCache() {
+    }
+
+    /**
+     * 获取地址描述符，首次访问时解析并缓存
+     *
+     * @param address 地址字符串
+     * @return 地址描述符
+     * @throws IllegalArgumentException 地址格式不正确
+     */
+    public static PlcAddress get(String address) {
+        PlcAddress cached = address != null ? CACHE.get(address) : null;
+        if (cached != null) {
+            return cached;
+        }
+        PlcAddress parsed = PlcAddress.parse(address);
+        if (CACHE.size() < MAX_SIZE) {
+            PlcAddress existing = CACHE.putIfAbsent(address, parsed);
+            return existing != null ? existing : parsed;
+        }
+        return parsed;
+    }
+
+    /**
+     * 查找地址描述符，地址格式不正确时返回null而不抛出异常
+     *
+     * @param address 地址字符串
+     * @return 地址描述符，地址为空或格式不正确时返回null
+     */
+    public static PlcAddress find(String address) {
+        if (address == null) {
+            return null;
+        }
+        PlcAddress cached = CACHE.get(address);
+        if (cached != null || INVALID.contains(address)) {
+            return cached;
+        }
+        try {
+            return get(address);
+        } catch (IllegalArgumentException e) {
+            if (INVALID.size() < MAX_SIZE) {
+                INVALID.add(address);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 当前缓存条目数
+     */
+    public static int size() {
+        return CACHE.size();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        CACHE.clear();
+        INVALID.clear();
+    }
+}
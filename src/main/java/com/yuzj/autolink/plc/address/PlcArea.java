@@ -0,0 +1,42 @@
+package com.yuzj.autolink.plc.address;
+
+import lombok.Getter;
+
+/**
+ * S7存储区域
+ * 区域代码与S7协议中ReadVar/WriteVar请求项的Area字段一致
+ *
+ * @author yuzj002
+ */
+@Getter
+public enum PlcArea {
+
+    /**
+     * 输入区(I)
+     */
+    INPUT(0x81),
+
+    /**
+     * 输出区(Q)
+     */
+    OUTPUT(0x82),
+
+    /**
+     * 位存储器(M)
+     */
+    MARKER(0x83),
+
+    /**
+     * 数据块(DB)
+     */
+    DB(0x84);
+
+    /**
+     * S7协议区域代码
+     */
+    private final int areaCode;
+
+    PlcArea(int areaCode) {
+        this.areaCode = areaCode;
+    }
+}
@@ -0,0 +1,96 @@
+package com.yuzj.autolink.plc.address;
+
+import lombok.Getter;
+
+/**
+ * S7数据类型
+ * 由地址中的类型标识(X/B/W/D/R/S/WS)推导
+ *
+ * @author yuzj002
+ */
+@Getter
+public enum S7DataType {
+
+    /**
+     * 位
+     */
+    BOOL(1),
+
+    /**
+     * 字节(8位)
+     */
+    BYTE(1),
+
+    /**
+     * 字(16位)
+     */
+    WORD(2),
+
+    /**
+     * 双字(32位)
+     */
+    DWORD(4),
+
+    /**
+     * 浮点数(32位)
+     */
+    REAL(4),
+
+    /**
+     * S7字符串: 最大长度(1字节) + 实际长度(1字节) + 单字节字符
+     */
+    STRING(1),
+
+    /**
+     * S7宽字符串: 最大长度(2字节) + 实际长度(2字节) + UTF-16字符
+     */
+    WSTRING(2);
+
+    /**
+     * 占用字节数，字符串类型为每个字符占用的字节数
+     */
+    private final int byteLength;
+
+    S7DataType(int byteLength) {
+        this.byteLength = byteLength;
+    }
+
+    /**
+     * 是否为字符串类型
+     */
+    public boolean isString() {
+        return this == STRING || this == WSTRING;
+    }
+
+    /**
+     * 按标签配置中的数据类型名称查找，INT/DINT分别按WORD/DWORD处理
+     *
+     * @param name 数据类型名称
+     * @return 数据类型，名称为空或不支持时返回null
+     */
+    public static S7DataType fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        switch (name.trim().toUpperCase()) {
+            case "BOOL":
+                return BOOL;
+            case "BYTE":
+                return BYTE;
+            case "WORD":
+            case "INT":
+                return WORD;
+            case "DWORD":
+            case "DINT":
+                return DWORD;
+            case "REAL":
+                return REAL;
+            case "STRING":
+                return STRING;
+            case "WSTRING":
+                return WSTRING;
+            default:
+                return null;
+        }
+    }
+}
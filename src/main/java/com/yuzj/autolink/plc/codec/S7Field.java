@@ -0,0 +1,31 @@
+package com.yuzj.autolink.plc.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 结构体(UDT)字段映射
+ * 地址写法与DB区地址中"DB{n}."之后的部分相同，字节偏移相对于结构体起始位置，如:
+ * <ul>
+ *     <li>DBX0.1 - 位，映射到boolean字段</li>
+ *     <li>DBW2 / DBD4 / DBR8 - 数值，可映射到任意数值类型字段，按需做基本类型转换</li>
+ *     <li>DBS12[20] / DBWS40[10] - STRING/WSTRING，映射到String字段</li>
+ *     <li>DBR64[10] - 数组，映射到对应的基本类型数组字段(float[]等)</li>
+ * </ul>
+ *
+ * @author yuzj002
+ * @see S7StructCodec
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface S7Field {
+
+    /**
+     * 相对于结构体起始位置的地址
+     */
+    String value();
+}
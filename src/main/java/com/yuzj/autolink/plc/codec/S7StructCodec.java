@@ -0,0 +1,419 @@
+package com.yuzj.autolink.plc.codec;
+
+import com.yuzj.autolink.plc.address.PlcAddress;
+import com.yuzj.autolink.plc.address.S7DataType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结构体(UDT)编解码器
+ * 按类中{@link S7Field}注解生成，每个字段预先绑定字段读写的MethodHandle并转换为解码类型，
+ * 编解码时直接调用，不再经过反射；标量字段按基本类型传递，不装箱。
+ * 编解码器按类缓存(ClassValue)，同一个类只生成一次，线程安全
+ *
+ * @param <T> 结构体类型
+ * @author yuzj002
+ */
+public final class S7StructCodec<T> {
+
+    private static final ClassValue<S7StructCodec<?>> CODECS = new ClassValue<S7StructCodec<?>>() {
+        @Override
+        protected S7StructCodec<?> computeValue(Class<?> type) {
+            return new S7StructCodec<>(type);
+        }
+    };
+
+    private final Class<T> type;
+
+    /**
+     * 无参构造方法，类型为()Object，没有无参构造方法时为null
+     */
+    private final MethodHandle constructor;
+
+    private final FieldCodec[] fields;
+
+    /**
+     * 结构体占用字节数，从偏移0到最后一个字段结束
+     */
+    private final int length;
+
+    /**
+     * 字段是否覆盖了结构体范围内的每一位
+     */
+    private final boolean fullyCovered;
+
+    /**
+     * 获取类的编解码器，首次调用时生成
+     *
+     * @param type 结构体类型
+     * @return 编解码器
+     * @throws IllegalArgumentException 类中没有映射字段或映射不正确
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> S7StructCodec<T> of(Class<T> type) {
+        return (S7StructCodec<T>) CODECS.get(type);
+    }
+
+    private S7StructCodec(Class<T> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        this.constructor = findConstructor(lookup, type);
+
+        List<FieldCodec> codecs = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                S7Field mapping = field.getAnnotation(S7Field.class);
+                if (mapping != null) {
+                    codecs.add(createField(lookup, field, mapping));
+                }
+            }
+        }
+        if (codecs.isEmpty()) {
+            throw new IllegalArgumentException(type.getName() + "没有@S7Field映射字段");
+        }
+        this.fields = codecs.toArray(new FieldCodec[0]);
+
+        int end = 0;
+        for (FieldCodec field : fields) {
+            end = Math.max(end, field.address.getByteOffset() + field.address.getLength());
+        }
+        this.length = end;
+        this.fullyCovered = coversAllBits(fields, end);
+    }
+
+    private static MethodHandle findConstructor(MethodHandles.Lookup lookup, Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static FieldCodec createField(MethodHandles.Lookup lookup, Field field, S7Field mapping) {
+        String name = field.getDeclaringClass().getSimpleName() + "." + field.getName();
+        if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+            throw new IllegalArgumentException("映射字段不能是static或final: " + name);
+        }
+        PlcAddress address;
+        try {
+            address = PlcAddress.parse("DB0." + mapping.value());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("字段" + name + "的地址不正确: " + mapping.value(), e);
+        }
+
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            field.setAccessible(true);
+            getter = lookup.unreflectGetter(field);
+            setter = lookup.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("无法访问字段: " + name, e);
+        }
+
+        Class<?> valueType = valueTypeOf(address);
+        Class<?> fieldType = field.getType();
+        boolean compatible = valueType.isPrimitive()
+                ? fieldType.isPrimitive() && (fieldType == boolean.class) == (valueType == boolean.class)
+                : fieldType.isAssignableFrom(valueType);
+        if (!compatible) {
+            throw new IllegalArgumentException("字段" + name + "的类型" + fieldType.getSimpleName()
+                    + "与地址" + mapping.value() + "不匹配，应为" + valueType.getSimpleName());
+        }
+        // 基本类型之间按Java强制类型转换规则转换，如WORD映射到int字段
+        getter = MethodHandles.explicitCastArguments(getter, MethodType.methodType(valueType, Object.class));
+        setter = MethodHandles.explicitCastArguments(setter, MethodType.methodType(void.class, Object.class, valueType));
+
+        if (address.getCount() > 0) {
+            return new ObjectField(address, getter, setter);
+        }
+        switch (address.getDataType()) {
+            case BOOL:
+                return new BoolField(address, getter, setter);
+            case BYTE:
+                return new ByteField(address, getter, setter);
+            case WORD:
+                return new WordField(address, getter, setter);
+            case DWORD:
+                return new DWordField(address, getter, setter);
+            default:
+                return new RealField(address, getter, setter);
+        }
+    }
+
+    /**
+     * 地址解码后的值类型
+     */
+    private static Class<?> valueTypeOf(PlcAddress address) {
+        S7DataType dataType = address.getDataType();
+        if (dataType.isString()) {
+            return String.class;
+        }
+        boolean array = address.getCount() > 0;
+        switch (dataType) {
+            case BOOL:
+                return array ? boolean[].class : boolean.class;
+            case BYTE:
+                return array ? byte[].class : byte.class;
+            case WORD:
+                return array ? short[].class : short.class;
+            case DWORD:
+                return array ? int[].class : int.class;
+            default:
+                return array ? float[].class : float.class;
+        }
+    }
+
+    private static boolean coversAllBits(FieldCodec[] fields, int length) {
+        boolean[] bits = new boolean[length << 3];
+        for (FieldCodec field : fields) {
+            PlcAddress address = field.address;
+            int from = address.getByteOffset() << 3;
+            int to;
+            if (address.getDataType() == S7DataType.BOOL) {
+                from += address.getBitOffset();
+                to = from + Math.max(address.getCount(), 1);
+            } else {
+                to = from + (address.getLength() << 3);
+            }
+            for (int i = from; i < to; i++) {
+                bits[i] = true;
+            }
+        }
+        for (boolean bit : bits) {
+            if (!bit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * 结构体占用字节数
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * 字段是否覆盖了结构体范围内的每一位。
+     * 未覆盖时编码只修改字段对应的字节和位，写入前应先读取原有数据，避免覆盖未映射的部分
+     */
+    public boolean isFullyCovered() {
+        return fullyCovered;
+    }
+
+    /**
+     * 通过无参构造方法创建实例
+     *
+     * @throws IllegalStateException 类没有无参构造方法
+     */
+    @SuppressWarnings("unchecked")
+    public T newInstance() {
+        if (constructor == null) {
+            throw new IllegalStateException(type.getName() + "没有无参构造方法");
+        }
+        try {
+            return (T) constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("创建" + type.getName() + "实例失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解码为新实例
+     *
+     * @param data 原始数据
+     * @param pos  结构体在数据中的起始位置
+     * @return 解码后的实例
+     */
+    public T decode(byte[] data, int pos) {
+        T target = newInstance();
+        decode(data, pos, target);
+        return target;
+    }
+
+    /**
+     * 解码到已有实例，周期读取时可复用同一个实例
+     *
+     * @param data   原始数据
+     * @param pos    结构体在数据中的起始位置
+     * @param target 目标实例
+     */
+    public void decode(byte[] data, int pos, T target) {
+        try {
+            for (FieldCodec field : fields) {
+                field.decode(target, data, pos);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("解码" + type.getName() + "失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 编码到原始数据，只修改映射字段对应的字节和位
+     *
+     * @param source 源实例
+     * @param data   目标数据
+     * @param pos    结构体在数据中的起始位置
+     * @throws IllegalArgumentException 字段值无法编码，如字符串超长、数组长度不一致
+     */
+    public void encode(T source, byte[] data, int pos) {
+        try {
+            for (FieldCodec field : fields) {
+                field.encode(source, data, pos);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("编码" + type.getName() + "失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 单个字段的编解码，getter类型为(Object)V，setter类型为(Object,V)void，V为地址的解码类型
+     */
+    private abstract static class FieldCodec {
+        final PlcAddress address;
+        final int offset;
+        final MethodHandle getter;
+        final MethodHandle setter;
+
+        FieldCodec(PlcAddress address, MethodHandle getter, MethodHandle setter) {
+            this.address = address;
+            this.offset = address.getByteOffset();
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        abstract void decode(Object target, byte[] data, int pos) throws Throwable;
+
+        abstract void encode(Object source, byte[] data, int pos) throws Throwable;
+    }
+
+    private static final class BoolField extends FieldCodec {
+        private final int mask;
+
+        BoolField(PlcAddress address, MethodHandle getter, MethodHandle setter) {
+            super(address, getter, setter);
+            this.mask = 1 << address.getBitOffset();
+        }
+
+        @Override
+        void decode(Object target, byte[] data, int pos) throws Throwable {
+            setter.invokeExact(target, (data[pos + offset] & mask) != 0);
+        }
+
+        @Override
+        void encode(Object source, byte[] data, int pos) throws Throwable {
+            boolean value = (boolean) getter.invokeExact(source);
+            data[pos + offset] = (byte) (value ? data[pos + offset] | mask : data[pos + offset] & ~mask);
+        }
+    }
+
+    private static final class ByteField extends FieldCodec {
+        ByteField(PlcAddress address, MethodHandle getter, MethodHandle setter) {
+            super(address, getter, setter);
+        }
+
+        @Override
+        void decode(Object target, byte[] data, int pos) throws Throwable {
+            setter.invokeExact(target, data[pos + offset]);
+        }
+
+        @Override
+        void encode(Object source, byte[] data, int pos) throws Throwable {
+            data[pos + offset] = (byte) getter.invokeExact(source);
+        }
+    }
+
+    private static final class WordField extends FieldCodec {
+        WordField(PlcAddress address, MethodHandle getter, MethodHandle setter) {
+            super(address, getter, setter);
+        }
+
+        @Override
+        void decode(Object target, byte[] data, int pos) throws Throwable {
+            setter.invokeExact(target, S7ValueCodec.getShort(data, pos + offset));
+        }
+
+        @Override
+        void encode(Object source, byte[] data, int pos) throws Throwable {
+            S7ValueCodec.putShort(data, pos + offset, (short) getter.invokeExact(source));
+        }
+    }
+
+    private static final class DWordField extends FieldCodec {
+        DWordField(PlcAddress address, MethodHandle getter, MethodHandle setter) {
+            super(address, getter, setter);
+        }
+
+        @Override
+        void decode(Object target, byte[] data, int pos) throws Throwable {
+            setter.invokeExact(target, S7ValueCodec.getInt(data, pos + offset));
+        }
+
+        @Override
+        void encode(Object source, byte[] data, int pos) throws Throwable {
+            S7ValueCodec.putInt(data, pos + offset, (int) getter.invokeExact(source));
+        }
+    }
+
+    private static final class RealField extends FieldCodec {
+        RealField(PlcAddress address, MethodHandle getter, MethodHandle setter) {
+            super(address, getter, setter);
+        }
+
+        @Override
+        void decode(Object target, byte[] data, int pos) throws Throwable {
+            setter.invokeExact(target, Float.intBitsToFloat(S7ValueCodec.getInt(data, pos + offset)));
+        }
+
+        @Override
+        void encode(Object source, byte[] data, int pos) throws Throwable {
+            S7ValueCodec.putInt(data, pos + offset, Float.floatToIntBits((float) getter.invokeExact(source)));
+        }
+    }
+
+    /**
+     * 数组和字符串字段，由{@link S7ValueCodec}编解码
+     */
+    private static final class ObjectField extends FieldCodec {
+        ObjectField(PlcAddress address, MethodHandle getter, MethodHandle setter) {
+            super(address, getter.asType(MethodType.methodType(Object.class, Object.class)),
+                    setter.asType(MethodType.methodType(void.class, Object.class, Object.class)));
+        }
+
+        @Override
+        void decode(Object target, byte[] data, int pos) throws Throwable {
+            setter.invokeExact(target, S7ValueCodec.decode(address, data, -pos));
+        }
+
+        @Override
+        void encode(Object source, byte[] data, int pos) throws Throwable {
+            Object value = getter.invokeExact(source);
+            if (value == null) {
+                if (!address.getDataType().isString()) {
+                    throw new IllegalArgumentException("数组字段不能为null: " + address.getAddress().substring(4));
+                }
+                value = "";
+            }
+            S7ValueCodec.encode(address, value, data, pos + offset);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.yuzj.autolink.plc.codec;
+
+import com.yuzj.autolink.plc.address.PlcAddress;
+import com.yuzj.autolink.plc.address.S7DataType;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * S7数据编解码
+ * S7数据均为大端字节序，按地址描述符的数据类型在原始字节和数值之间转换。
+ * 数组地址直接解码为对应的基本类型数组(boolean[]/byte[]/short[]/int[]/float[])，字符串解码为String
+ *
+ * @author yuzj002
+ */
+public final class S7ValueCodec {
+
+    private S7ValueCodec() {
+    }
+
+    /**
+     * 从读取块数据中解码单个地址的值
+     *
+     * @param address     地址描述符
+     * @param data        读取块数据
+     * @param blockOffset 读取块的起始字节偏移
+     * @return 解码后的值
+     */
+    public static Object decode(PlcAddress address, byte[] data, int blockOffset) {
+        int pos = address.getByteOffset() - blockOffset;
+        if (address.getCount() > 0) {
+            return address.getDataType().isString()
+                    ? decodeString(address, data, pos) : decodeArray(address, data, pos);
+        }
+        switch (address.getDataType()) {
+            case BOOL:
+                return getBit(data, pos, address.getBitOffset());
+            case BYTE:
+                return data[pos];
+            case WORD:
+                return getShort(data, pos);
+            case DWORD:
+                return getInt(data, pos);
+            case REAL:
+                return Float.intBitsToFloat(getInt(data, pos));
+            default:
+                throw new IllegalArgumentException("不支持的数据类型: " + address.getDataType());
+        }
+    }
+
+    /**
+     * 数组解码，整个数组在一个读取块中，逐元素按位移转换，不经过中间对象
+     */
+    private static Object decodeArray(PlcAddress address, byte[] data, int pos) {
+        int count = address.getCount();
+        switch (address.getDataType()) {
+            case BOOL: {
+                boolean[] values = new boolean[count];
+                int bit = address.getBitOffset();
+                for (int i = 0; i < count; i++, bit++) {
+                    values[i] = (data[pos + (bit >>> 3)] & (1 << (bit & 7))) != 0;
+                }
+                return values;
+            }
+            case BYTE:
+                return Arrays.copyOfRange(data, pos, pos + count);
+            case WORD: {
+                short[] values = new short[count];
+                for (int i = 0; i < count; i++, pos += 2) {
+                    values[i] = getShort(data, pos);
+                }
+                return values;
+            }
+            case DWORD: {
+                int[] values = new int[count];
+                for (int i = 0; i < count; i++, pos += 4) {
+                    values[i] = getInt(data, pos);
+                }
+                return values;
+            }
+            case REAL: {
+                float[] values = new float[count];
+                for (int i = 0; i < count; i++, pos += 4) {
+                    values[i] = Float.intBitsToFloat(getInt(data, pos));
+                }
+                return values;
+            }
+            default:
+                throw new IllegalArgumentException("不支持的数组类型: " + address.getDataType());
+        }
+    }
+
+    /**
+     * 字符串解码，实际长度超过最大长度或地址声明的长度时截断
+     */
+    private static String decodeString(PlcAddress address, byte[] data, int pos) {
+        if (address.getDataType() == S7DataType.STRING) {
+            int actual = Math.min(data[pos + 1] & 0xFF, Math.min(data[pos] & 0xFF, address.getCount()));
+            return new String(data, pos + 2, actual, StandardCharsets.ISO_8859_1);
+        }
+        int max = getShort(data, pos) & 0xFFFF;
+        int actual = Math.min(getShort(data, pos + 2) & 0xFFFF, Math.min(max, address.getCount()));
+        return new String(data, pos + 4, actual * 2, StandardCharsets.UTF_16BE);
+    }
+
+    /**
+     * 解码为不装箱的原始值: 位为0/1，字节和字按有符号数扩展，双字和浮点数为32位原始位模式
+     *
+     * @param address     地址描述符
+     * @param data        读取块数据
+     * @param blockOffset 读取块的起始字节偏移
+     * @return 原始值
+     */
+    public static int decodeRaw(PlcAddress address, byte[] data, int blockOffset) {
+        int pos = address.getByteOffset() - blockOffset;
+        switch (address.getDataType()) {
+            case BOOL:
+                return getBit(data, pos, address.getBitOffset()) ? 1 : 0;
+            case BYTE:
+                return data[pos];
+            case WORD:
+                return getShort(data, pos);
+            case DWORD:
+            case REAL:
+                return getInt(data, pos);
+            default:
+                throw new IllegalArgumentException("不支持的数据类型: " + address.getDataType());
+        }
+    }
+
+    /**
+     * 原始值按REAL解释，4字节地址按浮点位模式转换，其余按整数转换
+     */
+    public static float rawToReal(PlcAddress address, int raw) {
+        return address.getLength() == 4 ? Float.intBitsToFloat(raw) : raw;
+    }
+
+    /**
+     * 原始值按DINT解释，REAL地址取整
+     */
+    public static int rawToDInt(PlcAddress address, int raw) {
+        return address.getDataType() == S7DataType.REAL ? (int) Float.intBitsToFloat(raw) : raw;
+    }
+
+    /**
+     * 原始值按BOOL解释，非零为true
+     */
+    public static boolean rawToBool(PlcAddress address, int raw) {
+        return address.getDataType() == S7DataType.REAL ? Float.intBitsToFloat(raw) != 0 : raw != 0;
+    }
+
+    /**
+     * 将写入值按地址数据类型编码，位地址编码为一个字节(0或1)
+     *
+     * @param address 地址描述符
+     * @param value   写入值
+     * @param data    目标缓冲区
+     * @param pos     写入位置
+     * @throws IllegalArgumentException 写入值类型不支持时抛出
+     */
+    public static void encode(PlcAddress address, Object value, byte[] data, int pos) {
+        if (address.getDataType().isString()) {
+            encodeString(address, String.valueOf(value), data, pos);
+            return;
+        }
+        if (address.getCount() > 0) {
+            encodeArray(address, value, data, pos);
+            return;
+        }
+        switch (address.getDataType()) {
+            case BOOL:
+                data[pos] = (byte) (toBoolean(value) ? 1 : 0);
+                break;
+            case BYTE:
+                data[pos] = toNumber(value).byteValue();
+                break;
+            case WORD:
+                putShort(data, pos, toNumber(value).shortValue());
+                break;
+            case DWORD:
+                Number number = toNumber(value);
+                // 浮点数写入DBD时按REAL的位模式存储
+                putInt(data, pos, number instanceof Float || number instanceof Double
+                        ? Float.floatToIntBits(number.floatValue()) : number.intValue());
+                break;
+            case REAL:
+                putInt(data, pos, Float.floatToIntBits(toNumber(value).floatValue()));
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的数据类型: " + address.getDataType());
+        }
+    }
+
+    /**
+     * 数组编码，写入值可以是基本类型数组、对象数组或集合，元素个数必须与地址一致。
+     * 位数组按整字节写入，只支持从字节边界开始且元素个数为8的倍数的地址
+     */
+    private static void encodeArray(PlcAddress address, Object value, byte[] data, int pos) {
+        Object array = value instanceof Collection ? ((Collection<?>) value).toArray() : value;
+        if (array == null || !array.getClass().isArray()) {
+            throw new IllegalArgumentException("数组地址的写入值必须为数组: " + address);
+        }
+        int count = address.getCount();
+        if (Array.getLength(array) != count) {
+            throw new IllegalArgumentException("写入值元素个数" + Array.getLength(array) + "与地址" + address + "不一致");
+        }
+        S7DataType type = address.getDataType();
+        if (type == S7DataType.BOOL) {
+            if (address.getBitOffset() != 0 || (count & 7) != 0) {
+                throw new IllegalArgumentException("位数组只能按整字节写入: " + address);
+            }
+            Arrays.fill(data, pos, pos + address.getLength(), (byte) 0);
+            for (int i = 0; i < count; i++) {
+                if (toBoolean(Array.get(array, i))) {
+                    data[pos + (i >>> 3)] |= (byte) (1 << (i & 7));
+                }
+            }
+            return;
+        }
+        int size = type.getByteLength();
+        for (int i = 0; i < count; i++, pos += size) {
+            Number number = toNumber(Array.get(array, i));
+            switch (type) {
+                case BYTE:
+                    data[pos] = number.byteValue();
+                    break;
+                case WORD:
+                    putShort(data, pos, number.shortValue());
+                    break;
+                case DWORD:
+                    putInt(data, pos, number.intValue());
+                    break;
+                default:
+                    putInt(data, pos, Float.floatToIntBits(number.floatValue()));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 字符串编码: 写入最大长度和实际长度头部，字符之后的剩余空间填0
+     *
+     * @throws IllegalArgumentException 字符串超过最大长度或包含无法编码的字符
+     */
+    private static void encodeString(PlcAddress address, String value, byte[] data, int pos) {
+        int max = address.getCount();
+        if (value.length() > max) {
+            throw new IllegalArgumentException("字符串长度" + value.length() + "超过地址" + address + "的最大长度" + max);
+        }
+        Arrays.fill(data, pos, pos + address.getLength(), (byte) 0);
+        if (address.getDataType() == S7DataType.STRING) {
+            if (!StandardCharsets.ISO_8859_1.newEncoder().canEncode(value)) {
+                throw new IllegalArgumentException("STRING只支持单字节字符，请使用WSTRING: " + address);
+            }
+            data[pos] = (byte) max;
+            data[pos + 1] = (byte) value.length();
+            byte[] chars = value.getBytes(StandardCharsets.ISO_8859_1);
+            System.arraycopy(chars, 0, data, pos + 2, chars.length);
+        } else {
+            putShort(data, pos, (short) max);
+            putShort(data, pos + 2, (short) value.length());
+            byte[] chars = value.getBytes(StandardCharsets.UTF_16BE);
+            System.arraycopy(chars, 0, data, pos + 4, chars.length);
+        }
+    }
+
+    /**
+     * 值的显示文本，数组按元素列出
+     *
+     * @param value 解码后的值
+     * @return 显示文本，值为null时返回null
+     */
+    public static String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof boolean[]) {
+            return Arrays.toString((boolean[]) value);
+        }
+        if (value instanceof byte[]) {
+            return Arrays.toString((byte[]) value);
+        }
+        if (value instanceof short[]) {
+            return Arrays.toString((short[]) value);
+        }
+        if (value instanceof int[]) {
+            return Arrays.toString((int[]) value);
+        }
+        if (value instanceof float[]) {
+            return Arrays.toString((float[]) value);
+        }
+        if (value instanceof Object[]) {
+            return Arrays.deepToString((Object[]) value);
+        }
+        return value.toString();
+    }
+
+    private static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        throw new IllegalArgumentException("不支持的写入值类型: " + value.getClass().getSimpleName());
+    }
+
+    private static Number toNumber(Object value) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        throw new IllegalArgumentException("不支持的写入值类型: " + value.getClass().getSimpleName());
+    }
+
+    public static boolean getBit(byte[] data, int pos, int bit) {
+        return (data[pos] & (1 << bit)) != 0;
+    }
+
+    public static short getShort(byte[] data, int pos) {
+        return (short) (((data[pos] & 0xFF) << 8) | (data[pos + 1] & 0xFF));
+    }
+
+    public static int getInt(byte[] data, int pos) {
+        return ((data[pos] & 0xFF) << 24)
+                | ((data[pos + 1] & 0xFF) << 16)
+                | ((data[pos + 2] & 0xFF) << 8)
+                | (data[pos + 3] & 0xFF);
+    }
+
+    public static void putShort(byte[] data, int pos, short value) {
+        data[pos] = (byte) (value >> 8);
+        data[pos + 1] = (byte) value;
+    }
+
+    public static void putInt(byte[] data, int pos, int value) {
+        data[pos] = (byte) (value >> 24);
+        data[pos + 1] = (byte) (value >> 16);
+        data[pos + 2] = (byte) (value >> 8);
+        data[pos + 3] = (byte) value;
+    }
+}
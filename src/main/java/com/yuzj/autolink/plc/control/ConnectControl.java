@@ -3,12 +3,16 @@ package com.yuzj.autolink.plc.control;
 import com.yuzj.autolink.config.PlcProperties;
 import com.yuzj.autolink.plc.event.PlcConnectStatusEvent;
 import com.yuzj.autolink.plc.service.PlcService;
+import com.yuzj.autolink.plc.session.PlcConnectionManager;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
@@ -24,12 +28,14 @@ public class ConnectControl extends BaseControl {
     protected PlcService plcService;
     @Resource
     private ApplicationEventPublisher eventPublisher;
+    @Resource
+    private PlcProperties plcProperties;
 
     @FXML
     public void initialize() {
         updateConnectionButtons(false);
         // 初始化协议选择
-        protocolCombo.setItems(FXCollections.observableArrayList("S7"));
+        protocolCombo.setItems(FXCollections.observableArrayList(PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO));
         protocolCombo.getSelectionModel().selectFirst();
     }
 
@@ -72,7 +78,8 @@ public class ConnectControl extends BaseControl {
             updateStatus("正在断开连接...");
             log.info("开始断开PLC连接");
 
-            if (plcService != null && plcService.isConnected()) {
+            // 后台重连中未处于连接状态，也需要断开以停止重连
+            if (plcService != null) {
                 plcService.disconnect();
             }
 
@@ -149,14 +156,45 @@ public class ConnectControl extends BaseControl {
 
 
     public void updateConnectionButtons(boolean connected) {
-        connectButton.setDisable(connected);
-        disconnectButton.setDisable(!connected);
-        eventPublisher.publishEvent(new PlcConnectStatusEvent(connected));
-        log.debug("更新连接按钮状态: connected={}", connected);
+        setConnectionButtons(connected, false);
+        eventPublisher.publishEvent(new PlcConnectStatusEvent(PlcConnectionManager.DEFAULT_DEVICE_ID, connected, false));
+    }
+
+    /**
+     * 后台重连成功或放弃时同步按钮状态，重连事件在重连线程中发布
+     */
+    @EventListener
+    public void handleConnectionStatusChange(PlcConnectStatusEvent event) {
+        if (event.getDeviceId() != PlcConnectionManager.DEFAULT_DEVICE_ID) {
+            return;
+        }
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> handleConnectionStatusChange(event));
+            return;
+        }
+        setConnectionButtons(event.isConnected(), event.isReconnecting());
+    }
+
+    /**
+     * 重连中视为已连接: 禁用连接按钮，保留断开按钮用于停止重连
+     */
+    private void setConnectionButtons(boolean connected, boolean reconnecting) {
+        if (connectButton == null) {
+            return;
+        }
+        boolean active = connected || reconnecting;
+        connectButton.setDisable(active);
+        disconnectButton.setDisable(!active);
+        log.debug("更新连接按钮状态: connected={}, reconnecting={}", connected, reconnecting);
     }
 
+    /**
+     * 以plc.connection配置为基础，覆盖界面上填写的协议、主机、端口、机架号、插槽号和超时时间，
+     * 连接数、连接时限、合并窗口等未在界面上提供的参数沿用配置文件
+     */
     private PlcProperties buildConnectionConfig() throws NumberFormatException {
         PlcProperties config = new PlcProperties();
+        BeanUtils.copyProperties(plcProperties, config);
         config.setProtocol(protocolCombo.getValue());
         config.setHost(hostField.getText().trim());
         config.setPort(Integer.parseInt(portField.getText().trim()));
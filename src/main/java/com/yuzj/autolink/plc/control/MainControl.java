@@ -1,6 +1,12 @@
 package com.yuzj.autolink.plc.control;
 
 import com.yuzj.autolink.plc.event.PlcConnectStatusEvent;
+import com.yuzj.autolink.plc.session.LatencySnapshot;
+import com.yuzj.autolink.plc.session.PlcConnectionManager;
+import com.yuzj.autolink.plc.session.PlcOperation;
+import com.yuzj.autolink.plc.session.PlcSession;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
@@ -8,10 +14,15 @@ import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
+import javafx.util.Duration;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Controller;
 
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -27,6 +38,17 @@ public class MainControl extends BaseControl {
     @FXML
     private Label latencyLabel;
 
+    @Resource
+    private PlcConnectionManager plcConnectionManager;
+
+    /**
+     * 上次刷新时各会话各操作的累计快照，只在JavaFX线程中访问
+     */
+    private final Map<Long, LatencySnapshot[]> lastLatencies = new HashMap<>();
+
+    private final Tooltip latencyTooltip = new Tooltip();
+
+    private Timeline latencyTimeline;
 
     @FXML
     public void initialize() {
@@ -44,6 +66,8 @@ public class MainControl extends BaseControl {
         updateStatus("就绪");
         dataPointCountLabel.setText("0");
         latencyLabel.setText("0 ms");
+        latencyLabel.setTooltip(latencyTooltip);
+        startLatencyRefresh();
 
         // 禁用窗口关闭功能
         disableWindowClose();
@@ -51,6 +75,48 @@ public class MainControl extends BaseControl {
         log.info("主控制器初始化完成");
     }
 
+    /**
+     * 每秒刷新一次状态栏通信耗时
+     */
+    private void startLatencyRefresh() {
+        latencyTimeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> refreshLatency()));
+        latencyTimeline.setCycleCount(Timeline.INDEFINITE);
+        latencyTimeline.play();
+    }
+
+    /**
+     * 状态栏显示最近一秒内所有设备读写操作的耗时分布，悬停提示显示各设备各操作的累计统计；
+     * 最近一秒没有通信时保持上次显示的值
+     */
+    private void refreshLatency() {
+        LatencySnapshot interval = LatencySnapshot.EMPTY;
+        StringBuilder detail = new StringBuilder();
+        PlcOperation[] operations = PlcOperation.values();
+        for (PlcSession session : plcConnectionManager.getSessions()) {
+            LatencySnapshot[] previous = lastLatencies.computeIfAbsent(session.getDeviceId(), id -> {
+                LatencySnapshot[] empty = new LatencySnapshot[operations.length];
+                Arrays.fill(empty, LatencySnapshot.EMPTY);
+                return empty;
+            });
+            for (PlcOperation operation : operations) {
+                LatencySnapshot current = session.getMetrics().getLatency(operation).snapshot();
+                if (operation != PlcOperation.CONNECT) {
+                    interval = interval.plus(current.minus(previous[operation.ordinal()]));
+                }
+                previous[operation.ordinal()] = current;
+                if (current.getCount() > 0) {
+                    detail.append("设备").append(session.getDeviceId()).append(' ')
+                            .append(operation.getDisplayName()).append(": ").append(current).append('\n');
+                }
+            }
+        }
+        if (interval.getCount() > 0) {
+            latencyLabel.setText(String.format("p50 %.1f / p95 %.1f / p99 %.1f / max %.1f ms",
+                    interval.getP50Millis(), interval.getP95Millis(), interval.getP99Millis(), interval.getMaxMillis()));
+        }
+        latencyTooltip.setText(detail.length() > 0 ? detail.toString().trim() : "暂无通信记录");
+    }
+
     /**
      * 禁用窗口关闭功能
      */
@@ -141,6 +207,9 @@ public class MainControl extends BaseControl {
 
             // 执行退出前的清理工作
             log.info("正在执行程序退出前的清理工作");
+            if (latencyTimeline != null) {
+                latencyTimeline.stop();
+            }
 
             // 其他清理工作可以在这里添加
 
@@ -156,13 +225,23 @@ public class MainControl extends BaseControl {
 
     @EventListener
     public void handleConnectionStatusChange(PlcConnectStatusEvent event) {
-        String text = event.isConnected() ? "已连接" : "未连接";
+        // 状态栏显示默认会话，后台重连的事件在重连线程中发布
+        if (event.getDeviceId() != PlcConnectionManager.DEFAULT_DEVICE_ID) {
+            return;
+        }
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> handleConnectionStatusChange(event));
+            return;
+        }
+        String text = event.isConnected() ? "已连接" : event.isReconnecting() ? "重连中" : "未连接";
         connectionStatus.setText(text);
         // 清除所有状态类
         connectionStatus.getStyleClass().removeAll("connected", "disconnected", "connecting");
         // 根据连接状态添加相应样式
         if (event.isConnected()) {
             connectionStatus.getStyleClass().add("connected");
+        } else if (event.isReconnecting()) {
+            connectionStatus.getStyleClass().add("connecting");
         } else {
             connectionStatus.getStyleClass().add("disconnected");
         }
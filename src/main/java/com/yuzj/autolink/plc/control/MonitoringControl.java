@@ -2,6 +2,14 @@ package com.yuzj.autolink.plc.control;
 
 import com.yuzj.autolink.dao.model.PlcDataRecord;
 import com.yuzj.autolink.dao.model.PlcTagConfig;
+import com.yuzj.autolink.plc.codec.S7ValueCodec;
+import com.yuzj.autolink.plc.plan.TagQuality;
+import com.yuzj.autolink.plc.poll.PlcPollingEngine;
+import com.yuzj.autolink.plc.poll.ScanClass;
+import com.yuzj.autolink.plc.trace.PlcTrace;
+import com.yuzj.autolink.plc.trace.TraceStage;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -9,11 +17,17 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
+import javafx.util.Duration;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Resource;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -84,6 +98,12 @@ public class MonitoringControl extends BaseControl {
     @FXML
     private ToggleButton autoRefreshToggle;
 
+    @Resource
+    private PlcPollingEngine plcPollingEngine;
+
+    // 界面自动刷新定时器
+    private Timeline refreshTimeline;
+
     // 数据列表
     private final ObservableList<PlcDataRecord> dataRecords = FXCollections.observableArrayList();
 
@@ -107,6 +127,16 @@ public class MonitoringControl extends BaseControl {
         // 初始化统计信息
         updateStatistics();
 
+        // 自动刷新
+        autoRefreshToggle.selectedProperty().addListener((obs, oldValue, selected) -> {
+            if (selected) {
+                refreshTimeline.play();
+            } else {
+                refreshTimeline.stop();
+            }
+        });
+        startAutoRefresh(parseRefreshInterval());
+
         // 初始化状态
         updateStatus("监控模块初始化完成");
 
@@ -322,15 +352,69 @@ public class MonitoringControl extends BaseControl {
     }
 
     /**
-     * 刷新数据
+     * 刷新数据: 从周期采集引擎获取各标签最新值
      */
     private void refreshData() {
-        // 在实际应用中，这里应该从PLC或数据库获取最新数据
-        // 模拟数据刷新
+        long traceStart = PlcTrace.begin();
+        Object traceEvent = PlcTrace.beginEvent(TraceStage.UI_REFRESH);
+        List<PlcDataRecord> records = new ArrayList<>();
+        StringBuilder rates = new StringBuilder();
+        for (ScanClass scanClass : plcPollingEngine.getScanClasses()) {
+            LocalDateTime updateTime = scanClass.getLastUpdateTime() == 0 ? null
+                    : LocalDateTime.ofInstant(Instant.ofEpochMilli(scanClass.getLastUpdateTime()), ZoneId.systemDefault());
+            boolean connected = scanClass.getSession().isConnected();
+            for (PlcTagConfig tag : scanClass.getTags()) {
+                Object value = plcPollingEngine.getLatestValue(tag.getTagName());
+                TagQuality quality = plcPollingEngine.getLatestQuality(tag.getTagName());
+                if (quality == TagQuality.GOOD && !connected) {
+                    // 断开期间不再采集，保留的值已陈旧
+                    quality = TagQuality.UNCERTAIN_STALE;
+                }
+                PlcDataRecord record = new PlcDataRecord();
+                record.setTagName(tag.getTagName());
+                record.setTagValue(S7ValueCodec.format(value));
+                record.setDataType(tag.getDataType());
+                record.setQuality(quality != null ? quality.name() : null);
+                record.setCreateTime(updateTime);
+                records.add(record);
+            }
+            rates.append(String.format(" %dms→%.1fms", scanClass.getScanRate(), scanClass.getAchievedRateMillis()));
+            if (scanClass.isThrottled()) {
+                rates.append(String.format("(限速%dms)", scanClass.getEffectiveRate()));
+            }
+        }
+        dataRecords.setAll(records);
+        updateStatistics();
         updateLastRefreshTime();
+        if (rates.length() > 0) {
+            updateSystemStatus("扫描周期(请求→实际):" + rates, true);
+        }
+        PlcTrace.end(TraceStage.UI_REFRESH, PlcTrace.NO_DEVICE, PlcTrace.NO_DB, 0, records.size(), traceStart, traceEvent);
         log.debug("刷新监控数据");
     }
 
+    /**
+     * 按指定间隔启动界面自动刷新
+     */
+    private void startAutoRefresh(int interval) {
+        if (refreshTimeline != null) {
+            refreshTimeline.stop();
+        }
+        refreshTimeline = new Timeline(new KeyFrame(Duration.millis(interval), event -> refreshData()));
+        refreshTimeline.setCycleCount(Timeline.INDEFINITE);
+        if (autoRefreshToggle.isSelected()) {
+            refreshTimeline.play();
+        }
+    }
+
+    private int parseRefreshInterval() {
+        try {
+            return Math.max(Integer.parseInt(refreshIntervalField.getText().trim()), 10);
+        } catch (NumberFormatException e) {
+            return 1000;
+        }
+    }
+
     /**
      * 更新最后刷新时间
      */
@@ -346,8 +430,16 @@ public class MonitoringControl extends BaseControl {
      */
     private void updateStatistics() {
         int total = tagConfigs.size();
-        int online = (int) tagConfigs.stream().count(); // 模拟在线数量
-        int errors = 0; // 模拟错误数量
+        int online = 0;
+        int errors = 0;
+        for (PlcDataRecord record : dataRecords) {
+            TagQuality quality = TagQuality.fromName(record.getQuality());
+            if (quality == TagQuality.GOOD) {
+                online++;
+            } else if (quality == TagQuality.BAD_ADDRESS || quality == TagQuality.BAD_COMM) {
+                errors++;
+            }
+        }
 
         if (totalTagsCount != null) {
             totalTagsCount.setText(String.valueOf(total));
@@ -377,6 +469,7 @@ public class MonitoringControl extends BaseControl {
                 updateStatus("刷新间隔不能小于10ms");
                 return;
             }
+            startAutoRefresh(interval);
             logMessage("刷新间隔已设置为: " + interval + "ms");
             updateStatus("刷新间隔已更新");
             log.info("刷新间隔已设置为: {}ms", interval);
@@ -1,6 +1,8 @@
 package com.yuzj.autolink.plc.control;
 
+import com.yuzj.autolink.plc.codec.S7ValueCodec;
 import com.yuzj.autolink.plc.service.PlcService;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.ComboBox;
@@ -10,6 +12,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
+import java.util.concurrent.CompletionException;
 
 /**
  * PLC读写操作控制器
@@ -64,22 +67,25 @@ public class ReadWriteControl extends BaseControl {
             return;
         }
 
-        try {
-            log.debug("读取PLC地址: {}", address);
-            Object value = plcService.read(address);
-            readWriteValueField.setText(String.valueOf(value));
-
-            logMessage("读取成功: 地址 " + address + " = " + value);
-            updateStatus("读取成功");
-            log.info("读取PLC地址 {} 成功，值为: {}", address, value);
-
-        } catch (Exception e) {
-            String errorMsg = "读取地址 " + address + " 时出错: " + e.getMessage();
-            log.error("读取PLC地址失败: {}", address, e);
-            showErrorAlert("读取失败", errorMsg);
-            logMessage("读取失败: " + address + " - " + e.getMessage());
-            updateStatus("读取失败");
-        }
+        // 异步读取，结果回到JavaFX线程更新界面
+        log.debug("读取PLC地址: {}", address);
+        updateStatus("正在读取...");
+        plcService.readAsync(address).whenComplete((value, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                readWriteValueField.setText(S7ValueCodec.format(value));
+
+                logMessage("读取成功: 地址 " + address + " = " + value);
+                updateStatus("读取成功");
+                log.info("读取PLC地址 {} 成功，值为: {}", address, value);
+            } else {
+                Throwable cause = unwrap(error);
+                String errorMsg = "读取地址 " + address + " 时出错: " + cause.getMessage();
+                log.error("读取PLC地址失败: {}", address, cause);
+                showErrorAlert("读取失败", errorMsg);
+                logMessage("读取失败: " + address + " - " + cause.getMessage());
+                updateStatus("读取失败");
+            }
+        }));
     }
 
     @FXML
@@ -100,22 +106,38 @@ public class ReadWriteControl extends BaseControl {
             return;
         }
 
+        Object value;
         try {
             log.debug("写入PLC地址: {}, 值: {}, 类型: {}", address, valueStr, dataType);
-            Object value = convertValue(valueStr, dataType);
-            plcService.write(address, value);
-
-            logMessage("写入成功: 地址 " + address + " = " + value);
-            updateStatus("写入成功");
-            log.info("写入PLC地址 {} 成功，值为: {}", address, value);
-
+            value = convertValue(valueStr, dataType);
         } catch (Exception e) {
             String errorMsg = "写入地址 " + address + " 时出错: " + e.getMessage();
             log.error("写入PLC地址失败: {}", address, e);
             showErrorAlert("写入失败", errorMsg);
             logMessage("写入失败: " + address + " - " + e.getMessage());
             updateStatus("写入失败");
+            return;
         }
+
+        updateStatus("正在写入...");
+        plcService.writeAsync(address, value).whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                logMessage("写入成功: 地址 " + address + " = " + value);
+                updateStatus("写入成功");
+                log.info("写入PLC地址 {} 成功，值为: {}", address, value);
+            } else {
+                Throwable cause = unwrap(error);
+                String errorMsg = "写入地址 " + address + " 时出错: " + cause.getMessage();
+                log.error("写入PLC地址失败: {}", address, cause);
+                showErrorAlert("写入失败", errorMsg);
+                logMessage("写入失败: " + address + " - " + cause.getMessage());
+                updateStatus("写入失败");
+            }
+        }));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     /**
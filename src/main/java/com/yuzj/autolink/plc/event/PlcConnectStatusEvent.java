@@ -5,15 +5,25 @@ import lombok.Getter;
 
 /**
  * PLC连接状态事件
- * 用于在控制器之间传递连接状态变化信息
+ * 用于在控制器之间传递连接状态变化信息，界面手动连接和后台自动重连都会发布
  *
  * @author yuzj002
  */
 @Getter
 @AllArgsConstructor
 public class PlcConnectStatusEvent {
+    /**
+     * 设备ID，界面手动连接的默认会话为0
+     */
+    private long deviceId;
+
     /**
      * 连接状态标志
      */
     private boolean connected;
+
+    /**
+     * 连接断开后是否正在后台重连
+     */
+    private boolean reconnecting;
 }
@@ -0,0 +1,22 @@
+package com.yuzj.autolink.plc.event;
+
+import com.yuzj.autolink.plc.poll.ScanClass;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 扫描组重新生成事件
+ * 周期采集引擎加载标签配置后发布，携带新的扫描组
+ *
+ * @author yuzj002
+ */
+@Getter
+@AllArgsConstructor
+public class ScanClassesReloadedEvent {
+    /**
+     * 当前所有扫描组
+     */
+    private List<ScanClass> scanClasses;
+}
@@ -0,0 +1,21 @@
+package com.yuzj.autolink.plc.jmx;
+
+/**
+ * 报警监控
+ * 属性在读取时查询alarm_record表
+ *
+ * @author yuzj002
+ */
+public interface PlcAlarmMXBean {
+
+    long getTotalCount();
+
+    long getUnacknowledgedCount();
+
+    long getCriticalCount();
+
+    /**
+     * 每秒新增报警数
+     */
+    double getAlarmsPerSecond();
+}
@@ -0,0 +1,40 @@
+package com.yuzj.autolink.plc.jmx;
+
+import com.yuzj.autolink.dao.model.AlarmRecord;
+import com.yuzj.autolink.dao.repository.AlarmRecordRepository;
+
+/**
+ * 报警监控
+ *
+ * @author yuzj002
+ */
+class PlcAlarmMonitor implements PlcAlarmMXBean {
+
+    private final AlarmRecordRepository alarmRecordRepository;
+    private final RateMeter alarmRate;
+
+    PlcAlarmMonitor(AlarmRecordRepository alarmRecordRepository) {
+        this.alarmRecordRepository = alarmRecordRepository;
+        this.alarmRate = new RateMeter(this::getTotalCount);
+    }
+
+    @Override
+    public long getTotalCount() {
+        return alarmRecordRepository.count();
+    }
+
+    @Override
+    public long getUnacknowledgedCount() {
+        return alarmRecordRepository.lambdaQuery().eq(AlarmRecord::getIsAcknowledged, false).count();
+    }
+
+    @Override
+    public long getCriticalCount() {
+        return alarmRecordRepository.lambdaQuery().eq(AlarmRecord::getAlarmLevel, "CRITICAL").count();
+    }
+
+    @Override
+    public double getAlarmsPerSecond() {
+        return alarmRate.perSecond();
+    }
+}
@@ -0,0 +1,32 @@
+package com.yuzj.autolink.plc.jmx;
+
+/**
+ * 采集数据持久化监控
+ *
+ * @author yuzj002
+ */
+public interface PlcDataRecorderMXBean {
+
+    /**
+     * 队列中等待写入的记录数
+     */
+    int getPendingCount();
+
+    long getSavedCount();
+
+    long getDroppedCount();
+
+    double getRecordsPerSecond();
+
+    long getBatchCount();
+
+    int getLastBatchSize();
+
+    double getAverageBatchSize();
+
+    double getBatchLatencyP50Millis();
+
+    double getBatchLatencyP99Millis();
+
+    double getBatchLatencyMaxMillis();
+}
@@ -0,0 +1,70 @@
+package com.yuzj.autolink.plc.jmx;
+
+import com.yuzj.autolink.plc.poll.PlcDataRecorder;
+
+/**
+ * 采集数据持久化监控
+ *
+ * @author yuzj002
+ */
+class PlcDataRecorderMonitor implements PlcDataRecorderMXBean {
+
+    private final PlcDataRecorder recorder;
+    private final RateMeter recordRate;
+
+    PlcDataRecorderMonitor(PlcDataRecorder recorder) {
+        this.recorder = recorder;
+        this.recordRate = new RateMeter(recorder::getSavedCount);
+    }
+
+    @Override
+    public int getPendingCount() {
+        return recorder.getPendingCount();
+    }
+
+    @Override
+    public long getSavedCount() {
+        return recorder.getSavedCount();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return recorder.getDroppedCount();
+    }
+
+    @Override
+    public double getRecordsPerSecond() {
+        return recordRate.perSecond();
+    }
+
+    @Override
+    public long getBatchCount() {
+        return recorder.getBatchCount();
+    }
+
+    @Override
+    public int getLastBatchSize() {
+        return recorder.getLastBatchSize();
+    }
+
+    @Override
+    public double getAverageBatchSize() {
+        long batches = recorder.getBatchCount();
+        return batches == 0 ? 0 : recorder.getSavedCount() / (double) batches;
+    }
+
+    @Override
+    public double getBatchLatencyP50Millis() {
+        return recorder.getBatchLatency().snapshot().getP50Millis();
+    }
+
+    @Override
+    public double getBatchLatencyP99Millis() {
+        return recorder.getBatchLatency().snapshot().getP99Millis();
+    }
+
+    @Override
+    public double getBatchLatencyMaxMillis() {
+        return recorder.getBatchLatency().snapshot().getMaxMillis();
+    }
+}
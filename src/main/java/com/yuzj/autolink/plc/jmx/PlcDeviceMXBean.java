@@ -0,0 +1,98 @@
+package com.yuzj.autolink.plc.jmx;
+
+import java.util.Map;
+
+/**
+ * PLC设备通信监控
+ *
+ * @author yuzj002
+ */
+public interface PlcDeviceMXBean {
+
+    long getDeviceId();
+
+    String getHost();
+
+    int getPort();
+
+    String getProtocol();
+
+    int getPoolSize();
+
+    boolean isConnected();
+
+    long getReadRequests();
+
+    long getReadItems();
+
+    long getWriteRequests();
+
+    long getWriteItems();
+
+    long getErrors();
+
+    /**
+     * 自动重连成功的次数
+     */
+    long getReconnects();
+
+    /**
+     * 最近一次成功连接的耗时(毫秒)
+     */
+    double getLastConnectMillis();
+
+    /**
+     * 每秒读写请求数
+     */
+    double getRequestsPerSecond();
+
+    /**
+     * 每秒读写地址数
+     */
+    double getItemsPerSecond();
+
+    /**
+     * 每秒失败请求数
+     */
+    double getErrorsPerSecond();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    double getBytesSentPerSecond();
+
+    double getBytesReceivedPerSecond();
+
+    /**
+     * 等待发送和执行中的作业数
+     */
+    int getPendingJobs();
+
+    /**
+     * 平均每个S7请求合并的调用作业数
+     */
+    double getJobsPerRequest();
+
+    /**
+     * 各优先级通道的排队等待时间
+     */
+    Map<String, String> getQueueWait();
+
+    double getAverageLatencyMillis();
+
+    /**
+     * 读取(含批量读取)耗时的99百分位(毫秒)
+     */
+    double getReadP99Millis();
+
+    /**
+     * 写入(含批量写入)耗时的99百分位(毫秒)
+     */
+    double getWriteP99Millis();
+
+    /**
+     * 各操作的耗时统计
+     */
+    Map<String, String> getLatency();
+}
@@ -0,0 +1,189 @@
+package com.yuzj.autolink.plc.jmx;
+
+import com.yuzj.autolink.config.PlcProperties;
+import com.yuzj.autolink.plc.s7.RequestPriority;
+import com.yuzj.autolink.plc.session.LatencySnapshot;
+import com.yuzj.autolink.plc.session.PlcOperation;
+import com.yuzj.autolink.plc.session.PlcSession;
+import com.yuzj.autolink.plc.session.PlcSessionMetrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PLC设备通信监控，直接读取会话已有的统计
+ *
+ * @author yuzj002
+ */
+class PlcDeviceMonitor implements PlcDeviceMXBean {
+
+    private final PlcSession session;
+    private final PlcSessionMetrics metrics;
+    private final RateMeter requestRate;
+    private final RateMeter itemRate;
+    private final RateMeter errorRate;
+    private final RateMeter sentRate;
+    private final RateMeter receivedRate;
+
+    PlcDeviceMonitor(PlcSession session) {
+        this.session = session;
+        this.metrics = session.getMetrics();
+        this.requestRate = new RateMeter(() -> metrics.getReadRequests() + metrics.getWriteRequests());
+        this.itemRate = new RateMeter(() -> metrics.getReadItems() + metrics.getWriteItems());
+        this.errorRate = new RateMeter(metrics::getErrors);
+        this.sentRate = new RateMeter(() -> session.getTraffic().getBytesSent());
+        this.receivedRate = new RateMeter(() -> session.getTraffic().getBytesReceived());
+    }
+
+    private PlcProperties properties() {
+        return session.getProperties();
+    }
+
+    @Override
+    public long getDeviceId() {
+        return session.getDeviceId();
+    }
+
+    @Override
+    public String getHost() {
+        return properties().getHost();
+    }
+
+    @Override
+    public int getPort() {
+        return properties().getPort();
+    }
+
+    @Override
+    public String getProtocol() {
+        return properties().getProtocol();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return properties().getPoolSize();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return session.isConnected();
+    }
+
+    @Override
+    public long getReadRequests() {
+        return metrics.getReadRequests();
+    }
+
+    @Override
+    public long getReadItems() {
+        return metrics.getReadItems();
+    }
+
+    @Override
+    public long getWriteRequests() {
+        return metrics.getWriteRequests();
+    }
+
+    @Override
+    public long getWriteItems() {
+        return metrics.getWriteItems();
+    }
+
+    @Override
+    public long getErrors() {
+        return metrics.getErrors();
+    }
+
+    @Override
+    public long getReconnects() {
+        return metrics.getReconnects();
+    }
+
+    @Override
+    public double getLastConnectMillis() {
+        return metrics.getLastConnectMillis();
+    }
+
+    @Override
+    public double getRequestsPerSecond() {
+        return requestRate.perSecond();
+    }
+
+    @Override
+    public double getItemsPerSecond() {
+        return itemRate.perSecond();
+    }
+
+    @Override
+    public double getErrorsPerSecond() {
+        return errorRate.perSecond();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return session.getTraffic().getBytesSent();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return session.getTraffic().getBytesReceived();
+    }
+
+    @Override
+    public double getBytesSentPerSecond() {
+        return sentRate.perSecond();
+    }
+
+    @Override
+    public double getBytesReceivedPerSecond() {
+        return receivedRate.perSecond();
+    }
+
+    @Override
+    public int getPendingJobs() {
+        return session.getPendingJobs();
+    }
+
+    @Override
+    public double getJobsPerRequest() {
+        long requests = session.getTraffic().getRequestsSent();
+        return requests == 0 ? 0 : session.getTraffic().getJobsSent() / (double) requests;
+    }
+
+    @Override
+    public Map<String, String> getQueueWait() {
+        Map<String, String> wait = new LinkedHashMap<>();
+        for (RequestPriority priority : RequestPriority.values()) {
+            wait.put(priority.name(), session.getTraffic().getQueueWait(priority).snapshot().toString());
+        }
+        return wait;
+    }
+
+    @Override
+    public double getAverageLatencyMillis() {
+        return metrics.getAverageLatencyMillis();
+    }
+
+    @Override
+    public double getReadP99Millis() {
+        return snapshot(PlcOperation.READ).plus(snapshot(PlcOperation.READ_MULTIPLE)).getP99Millis();
+    }
+
+    @Override
+    public double getWriteP99Millis() {
+        return snapshot(PlcOperation.WRITE).plus(snapshot(PlcOperation.WRITE_MULTIPLE)).getP99Millis();
+    }
+
+    @Override
+    public Map<String, String> getLatency() {
+        Map<String, String> latency = new LinkedHashMap<>();
+        for (PlcOperation operation : PlcOperation.values()) {
+            latency.put(operation.name(), snapshot(operation).toString());
+        }
+        return latency;
+    }
+
+    private LatencySnapshot snapshot(PlcOperation operation) {
+        return metrics.getLatency(operation).snapshot();
+    }
+}
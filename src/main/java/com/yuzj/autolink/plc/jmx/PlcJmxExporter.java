@@ -0,0 +1,151 @@
+package com.yuzj.autolink.plc.jmx;
+
+import com.yuzj.autolink.dao.repository.AlarmRecordRepository;
+import com.yuzj.autolink.plc.event.ScanClassesReloadedEvent;
+import com.yuzj.autolink.plc.poll.PlcDataRecorder;
+import com.yuzj.autolink.plc.poll.ScanClass;
+import com.yuzj.autolink.plc.session.PlcConnectionManager;
+import com.yuzj.autolink.plc.session.PlcSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 将设备通信、扫描组、数据持久化和报警统计注册为JMX MBean
+ * 属性只在JMX客户端读取时从已有的计数器计算，不在采集路径上增加开销
+ *
+ * @author yuzj002
+ */
+@Slf4j
+@Component
+public class PlcJmxExporter {
+
+    public static final String DOMAIN = "com.yuzj.autolink";
+
+    @Resource
+    private PlcConnectionManager plcConnectionManager;
+
+    @Resource
+    private PlcDataRecorder plcDataRecorder;
+
+    @Resource
+    private AlarmRecordRepository alarmRecordRepository;
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    /**
+     * 已注册的设备MBean
+     */
+    private final Set<ObjectName> deviceNames = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已注册的扫描组MBean
+     */
+    private final Set<ObjectName> scanClassNames = ConcurrentHashMap.newKeySet();
+
+    private ObjectName recorderName;
+    private ObjectName alarmName;
+    private ObjectName traceName;
+
+    @PostConstruct
+    public void init() {
+        recorderName = register(name("type=DataRecorder"), new PlcDataRecorderMonitor(plcDataRecorder));
+        alarmName = register(name("type=Alarms"), new PlcAlarmMonitor(alarmRecordRepository));
+        traceName = register(name("type=Trace"), new PlcTraceControl());
+        registerDevices();
+    }
+
+    /**
+     * 扫描组重新生成后同步设备和扫描组MBean
+     */
+    @EventListener
+    public synchronized void onScanClassesReloaded(ScanClassesReloadedEvent event) {
+        registerDevices();
+        unregisterAll(scanClassNames);
+        for (ScanClass scanClass : event.getScanClasses()) {
+            ObjectName name = name("type=ScanClass,device=" + scanClass.getDeviceId() + ",rate=" + scanClass.getScanRate());
+            ObjectName registered = register(name, new ScanClassMonitor(scanClass));
+            if (registered != null) {
+                scanClassNames.add(registered);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        unregisterAll(scanClassNames);
+        unregisterAll(deviceNames);
+        unregister(recorderName);
+        unregister(alarmName);
+        unregister(traceName);
+    }
+
+    /**
+     * 按当前会话重新注册设备MBean，设备配置重新加载后会话对象会变化
+     */
+    private synchronized void registerDevices() {
+        unregisterAll(deviceNames);
+        for (PlcSession session : plcConnectionManager.getSessions()) {
+            ObjectName registered = register(name("type=PlcDevice,id=" + session.getDeviceId()), new PlcDeviceMonitor(session));
+            if (registered != null) {
+                deviceNames.add(registered);
+            }
+        }
+    }
+
+    private ObjectName name(String properties) {
+        try {
+            return new ObjectName(DOMAIN + ":" + properties);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("无效的MBean名称: " + properties, e);
+        }
+    }
+
+    /**
+     * 注册MBean，同名MBean已存在时先注销
+     *
+     * @return 注册成功的名称，失败时返回null
+     */
+    private ObjectName register(ObjectName name, Object mbean) {
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+            return name;
+        } catch (JMException e) {
+            log.warn("注册MBean失败: {}", name, e);
+            return null;
+        }
+    }
+
+    private void unregisterAll(Set<ObjectName> names) {
+        for (ObjectName name : names) {
+            unregister(name);
+        }
+        names.clear();
+    }
+
+    private void unregister(ObjectName name) {
+        if (name == null) {
+            return;
+        }
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            log.warn("注销MBean失败: {}", name, e);
+        }
+    }
+}
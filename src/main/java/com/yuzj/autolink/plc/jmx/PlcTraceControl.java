@@ -0,0 +1,71 @@
+package com.yuzj.autolink.plc.jmx;
+
+import com.yuzj.autolink.plc.trace.PlcTrace;
+import com.yuzj.autolink.plc.trace.TraceEvent;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 采集链路跟踪控制
+ *
+ * @author yuzj002
+ */
+class PlcTraceControl implements PlcTraceMXBean {
+
+    @Override
+    public boolean isEnabled() {
+        return PlcTrace.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        PlcTrace.setEnabled(enabled);
+    }
+
+    @Override
+    public int getCapacity() {
+        return PlcTrace.CAPACITY;
+    }
+
+    @Override
+    public long getRecordedCount() {
+        return PlcTrace.getRecordedCount();
+    }
+
+    @Override
+    public void clear() {
+        PlcTrace.clear();
+    }
+
+    @Override
+    public int dump(String file) throws IOException {
+        List<TraceEvent> events = PlcTrace.snapshot();
+        try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            PlcTrace.export(writer, events);
+        }
+        return events.size();
+    }
+
+    @Override
+    public String describeSlowestCycle() {
+        List<TraceEvent> events = PlcTrace.slowestCycle();
+        if (events.isEmpty()) {
+            return "没有扫描周期事件";
+        }
+        long origin = events.get(0).getStartNanos();
+        StringBuilder text = new StringBuilder();
+        for (TraceEvent event : events) {
+            text.append(String.format(Locale.ROOT, "%+9.3fms %8.3fms %-8s device=%d db=%d bytes=%d items=%d [%s]\n",
+                    (event.getStartNanos() - origin) / 1e6, event.getDurationNanos() / 1e6,
+                    event.getStage().getDisplayName(), event.getDeviceId(), event.getDbNumber(),
+                    event.getBytes(), event.getItems(), event.getSource()));
+        }
+        return text.toString();
+    }
+}
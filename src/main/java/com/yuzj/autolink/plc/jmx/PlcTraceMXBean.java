@@ -0,0 +1,37 @@
+package com.yuzj.autolink.plc.jmx;
+
+import java.io.IOException;
+
+/**
+ * 采集链路跟踪控制
+ *
+ * @author yuzj002
+ */
+public interface PlcTraceMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getCapacity();
+
+    /**
+     * 累计记录的事件数，包括已被覆盖的事件
+     */
+    long getRecordedCount();
+
+    void clear();
+
+    /**
+     * 导出缓冲区中的所有事件
+     *
+     * @param file 目标文件(CSV)
+     * @return 导出的事件数
+     */
+    int dump(String file) throws IOException;
+
+    /**
+     * 耗时最长的扫描周期及期间发生的所有事件(含GC)
+     */
+    String describeSlowestCycle();
+}
@@ -0,0 +1,42 @@
+package com.yuzj.autolink.plc.jmx;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 累计计数的速率
+ * 只在读取属性时计算两次读取之间的平均速率，采集热路径上不做任何额外工作；
+ * 两次读取间隔不足1秒时返回上次的结果
+ *
+ * @author yuzj002
+ */
+final class RateMeter {
+
+    private static final long MIN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LongSupplier counter;
+    private long lastTime;
+    private long lastValue;
+    private double rate;
+
+    RateMeter(LongSupplier counter) {
+        this.counter = counter;
+        this.lastTime = System.nanoTime();
+        this.lastValue = counter.getAsLong();
+    }
+
+    /**
+     * 每秒增量
+     */
+    synchronized double perSecond() {
+        long now = System.nanoTime();
+        long elapsed = now - lastTime;
+        if (elapsed >= MIN_INTERVAL_NANOS) {
+            long value = counter.getAsLong();
+            rate = (value - lastValue) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            lastValue = value;
+            lastTime = now;
+        }
+        return rate;
+    }
+}
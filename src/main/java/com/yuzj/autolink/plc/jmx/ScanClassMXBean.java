@@ -0,0 +1,63 @@
+package com.yuzj.autolink.plc.jmx;
+
+/**
+ * 扫描组监控
+ *
+ * @author yuzj002
+ */
+public interface ScanClassMXBean {
+
+    long getDeviceId();
+
+    /**
+     * 请求的扫描周期(毫秒)
+     */
+    int getScanRate();
+
+    /**
+     * 当前生效的扫描周期(毫秒)，自适应调节延长后大于请求的扫描周期
+     */
+    int getEffectiveRate();
+
+    /**
+     * 是否因PLC负载被延长了扫描周期
+     */
+    boolean isThrottled();
+
+    /**
+     * 实际扫描周期(毫秒)
+     */
+    double getAchievedRateMillis();
+
+    double getLastDurationMillis();
+
+    int getTagCount();
+
+    /**
+     * 读取计划中的读取块数
+     */
+    int getBlockCount();
+
+    long getCycleCount();
+
+    /**
+     * 因上一周期未完成或错过截止时间而跳过的周期数
+     */
+    long getOverrunCount();
+
+    long getErrorCount();
+
+    double getCyclesPerSecond();
+
+    /**
+     * 通过死区过滤上报的值数
+     */
+    long getForwardedCount();
+
+    /**
+     * 被死区过滤的值数
+     */
+    long getSuppressedCount();
+
+    long getLastUpdateTime();
+}
@@ -0,0 +1,105 @@
+package com.yuzj.autolink.plc.jmx;
+
+import com.yuzj.autolink.plc.poll.DeadbandFilter;
+import com.yuzj.autolink.plc.poll.ScanClass;
+
+/**
+ * 扫描组监控
+ *
+ * @author yuzj002
+ */
+class ScanClassMonitor implements ScanClassMXBean {
+
+    private final ScanClass scanClass;
+    private final RateMeter cycleRate;
+
+    ScanClassMonitor(ScanClass scanClass) {
+        this.scanClass = scanClass;
+        this.cycleRate = new RateMeter(scanClass::getCycleCount);
+    }
+
+    @Override
+    public long getDeviceId() {
+        return scanClass.getDeviceId();
+    }
+
+    @Override
+    public int getScanRate() {
+        return scanClass.getScanRate();
+    }
+
+    @Override
+    public int getEffectiveRate() {
+        return scanClass.getEffectiveRate();
+    }
+
+    @Override
+    public boolean isThrottled() {
+        return scanClass.isThrottled();
+    }
+
+    @Override
+    public double getAchievedRateMillis() {
+        return scanClass.getAchievedRateMillis();
+    }
+
+    @Override
+    public double getLastDurationMillis() {
+        return scanClass.getLastDurationMillis();
+    }
+
+    @Override
+    public int getTagCount() {
+        return scanClass.getTags().size();
+    }
+
+    @Override
+    public int getBlockCount() {
+        return scanClass.getPlan().getBlocks().size();
+    }
+
+    @Override
+    public long getCycleCount() {
+        return scanClass.getCycleCount();
+    }
+
+    @Override
+    public long getOverrunCount() {
+        return scanClass.getOverrunCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return scanClass.getErrorCount();
+    }
+
+    @Override
+    public double getCyclesPerSecond() {
+        return cycleRate.perSecond();
+    }
+
+    @Override
+    public long getForwardedCount() {
+        DeadbandFilter filter = scanClass.getFilter();
+        long total = 0;
+        for (int i = 0; i < getTagCount(); i++) {
+            total += filter.getForwardedCount(i);
+        }
+        return total;
+    }
+
+    @Override
+    public long getSuppressedCount() {
+        DeadbandFilter filter = scanClass.getFilter();
+        long total = 0;
+        for (int i = 0; i < getTagCount(); i++) {
+            total += filter.getSuppressedCount(i);
+        }
+        return total;
+    }
+
+    @Override
+    public long getLastUpdateTime() {
+        return scanClass.getLastUpdateTime();
+    }
+}
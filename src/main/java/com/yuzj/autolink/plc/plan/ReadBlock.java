@@ -0,0 +1,58 @@
+package com.yuzj.autolink.plc.plan;
+
+import com.yuzj.autolink.plc.address.PlcArea;
+import lombok.Getter;
+
+/**
+ * 连续字节区间读取块
+ * 同一存储区域内相邻(或间隙在容差内)的地址合并为一个块，一次读取后在本地解码
+ *
+ * @author yuzj002
+ */
+@Getter
+public final class ReadBlock {
+
+    /**
+     * 存储区域
+     */
+    private final PlcArea area;
+
+    /**
+     * 数据块编号，非DB区为0
+     */
+    private final int dbNumber;
+
+    /**
+     * 起始字节偏移
+     */
+    private final int startOffset;
+
+    /**
+     * 读取字节数
+     */
+    private final int length;
+
+    /**
+     * 块内地址在所属读取计划地址数组中的下标
+     */
+    private final int[] itemIndexes;
+
+    /**
+     * 块内是否全部为单个位地址，此类块读取后保留原始字节，由调用方按位处理
+     */
+    private final boolean bitOnly;
+
+    ReadBlock(PlcArea area, int dbNumber, int startOffset, int length, int[] itemIndexes, boolean bitOnly) {
+        this.area = area;
+        this.dbNumber = dbNumber;
+        this.startOffset = startOffset;
+        this.length = length;
+        this.itemIndexes = itemIndexes;
+        this.bitOnly = bitOnly;
+    }
+
+    @Override
+    public String toString() {
+        return area + (area == PlcArea.DB ? String.valueOf(dbNumber) : "") + "[" + startOffset + "+" + length + "]";
+    }
+}
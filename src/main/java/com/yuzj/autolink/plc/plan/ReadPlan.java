@@ -0,0 +1,61 @@
+package com.yuzj.autolink.plc.plan;
+
+import com.yuzj.autolink.plc.address.PlcAddress;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量读取计划
+ * 保存调用方给出的地址顺序以及合并后的读取块，执行时按块读取、按下标回填结果
+ *
+ * @author yuzj002
+ */
+@Getter
+public final class ReadPlan {
+
+    /**
+     * 计划内的地址，顺序与调用方一致
+     */
+    private final PlcAddress[] addresses;
+
+    /**
+     * 合并后的读取块
+     */
+    private final List<ReadBlock> blocks;
+
+    /**
+     * 每个地址所属读取块的下标
+     */
+    private final int[] blockIndexes;
+
+    ReadPlan(PlcAddress[] addresses, List<ReadBlock> blocks) {
+        this.addresses = addresses;
+        this.blocks = Collections.unmodifiableList(blocks);
+        this.blockIndexes = new int[addresses.length];
+        for (int b = 0; b < blocks.size(); b++) {
+            for (int index : blocks.get(b).getItemIndexes()) {
+                blockIndexes[index] = b;
+            }
+        }
+    }
+
+    /**
+     * 计划内地址数量
+     */
+    public int size() {
+        return addresses.length;
+    }
+
+    /**
+     * 计划读取的总字节数(含合并间隙)
+     */
+    public int totalBytes() {
+        int total = 0;
+        for (ReadBlock block : blocks) {
+            total += block.getLength();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,70 @@
+package com.yuzj.autolink.plc.plan;
+
+import com.yuzj.autolink.plc.address.PlcAddress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 批量读取规划器
+ * 按 存储区域/DB编号/字节偏移 排序地址，将落在同一区域且间隙不超过容差的地址合并为连续读取块
+ *
+ * @author yuzj002
+ */
+public final class ReadPlanner {
+
+    private static final Comparator<PlcAddress> ADDRESS_ORDER = Comparator
+            .comparing(PlcAddress::getArea)
+            .thenComparingInt(PlcAddress::getDbNumber)
+            .thenComparingInt(PlcAddress::getByteOffset);
+
+    private ReadPlanner() {
+    }
+
+    /**
+     * 生成读取计划
+     *
+     * @param addresses    地址数组，不能包含null
+     * @param gapTolerance 合并时允许的最大间隙字节数，间隙内的字节会被一并读取
+     * @return 读取计划
+     */
+    public static ReadPlan plan(PlcAddress[] addresses, int gapTolerance) {
+        int gap = Math.max(0, gapTolerance);
+        Integer[] order = new Integer[addresses.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> ADDRESS_ORDER.compare(addresses[a], addresses[b]));
+
+        List<ReadBlock> blocks = new ArrayList<>();
+        int blockStart = 0;
+        while (blockStart < order.length) {
+            PlcAddress first = addresses[order[blockStart]];
+            int start = first.getByteOffset();
+            int end = start + first.getLength();
+            int next = blockStart + 1;
+            while (next < order.length) {
+                PlcAddress candidate = addresses[order[next]];
+                if (candidate.getArea() != first.getArea()
+                        || candidate.getDbNumber() != first.getDbNumber()
+                        || candidate.getByteOffset() > end + gap) {
+                    break;
+                }
+                end = Math.max(end, candidate.getByteOffset() + candidate.getLength());
+                next++;
+            }
+
+            int[] itemIndexes = new int[next - blockStart];
+            boolean bitOnly = true;
+            for (int i = 0; i < itemIndexes.length; i++) {
+                itemIndexes[i] = order[blockStart + i];
+                bitOnly &= addresses[itemIndexes[i]].isBit();
+            }
+            blocks.add(new ReadBlock(first.getArea(), first.getDbNumber(), start, end - start, itemIndexes, bitOnly));
+            blockStart = next;
+        }
+        return new ReadPlan(addresses.clone(), blocks);
+    }
+}
@@ -0,0 +1,145 @@
+package com.yuzj.autolink.plc.plan;
+
+import com.yuzj.autolink.plc.codec.S7ValueCodec;
+
+import java.util.Arrays;
+
+/**
+ * 读取计划的执行结果
+ * 值和质量按计划地址顺序排列，质量不是GOOD的地址值为null。
+ * 全部为位地址的读取块只保存原始字节，其中的值在首次取值时才解码，按位处理的调用方可直接比较原始字节。
+ * 数组每次读取新建，持有者可以原地修改
+ *
+ * @author yuzj002
+ */
+public final class ReadResult {
+
+    private final ReadPlan plan;
+    private final Object[] values;
+    private final TagQuality[] qualities;
+
+    /**
+     * 按读取块排列的原始数据，读取失败的块为null
+     */
+    private final byte[][] blockData;
+
+    /**
+     * 位读取块的值是否已全部解码
+     */
+    private boolean bitsDecoded;
+
+    /**
+     * @param plan 读取计划，质量初始为GOOD
+     */
+    public ReadResult(ReadPlan plan) {
+        this.plan = plan;
+        this.values = new Object[plan.size()];
+        this.qualities = new TagQuality[plan.size()];
+        this.blockData = new byte[plan.getBlocks().size()][];
+        Arrays.fill(qualities, TagQuality.GOOD);
+    }
+
+    /**
+     * 按计划地址顺序排列的值，位读取块的值在此一并解码
+     */
+    public Object[] getValues() {
+        if (!bitsDecoded) {
+            for (int i = 0; i < values.length; i++) {
+                getValue(i);
+            }
+            bitsDecoded = true;
+        }
+        return values;
+    }
+
+    /**
+     * 按计划地址顺序排列的值，不解码位读取块，其中未经{@link #getValue(int)}取值的地址为null
+     */
+    public Object[] peekValues() {
+        return values;
+    }
+
+    /**
+     * 读取块的原始数据
+     *
+     * @param block 读取块在计划中的下标
+     * @return 数据从块起始偏移开始，读取失败时为null
+     */
+    public byte[] getBlockData(int block) {
+        return blockData[block];
+    }
+
+    /**
+     * 保存读取成功的块数据
+     *
+     * @param block 读取块在计划中的下标
+     * @param data  数据从块起始偏移开始
+     */
+    public void setBlockData(int block, byte[] data) {
+        blockData[block] = data;
+    }
+
+    /**
+     * 按计划地址顺序排列的质量
+     */
+    public TagQuality[] getQualities() {
+        return qualities;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public Object getValue(int index) {
+        Object value = values[index];
+        if (value == null && qualities[index] == TagQuality.GOOD) {
+            int b = plan.getBlockIndexes()[index];
+            ReadBlock block = plan.getBlocks().get(b);
+            if (block.isBitOnly() && blockData[b] != null) {
+                value = S7ValueCodec.decode(plan.getAddresses()[index], blockData[b], block.getStartOffset());
+                values[index] = value;
+            }
+        }
+        return value;
+    }
+
+    public TagQuality getQuality(int index) {
+        return qualities[index];
+    }
+
+    /**
+     * 设置读取失败的地址
+     *
+     * @param index   地址在计划中的下标
+     * @param quality 失败原因
+     */
+    public void setBad(int index, TagQuality quality) {
+        values[index] = null;
+        qualities[index] = quality;
+    }
+
+    /**
+     * 质量不是GOOD的地址数量
+     */
+    public int getBadCount() {
+        int count = 0;
+        for (TagQuality quality : qualities) {
+            if (quality != TagQuality.GOOD) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 是否有地址因通信失败未读到
+     */
+    public boolean hasCommError() {
+        for (TagQuality quality : qualities) {
+            if (quality == TagQuality.BAD_COMM) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,87 @@
+package com.yuzj.autolink.plc.plan;
+
+import com.yuzj.autolink.plc.s7.S7Protocol;
+import lombok.Getter;
+
+/**
+ * 标签数据质量，参照OPC质量码
+ * 批量读取按数据项返回码逐项给出，不抛出异常
+ *
+ * @author yuzj002
+ */
+@Getter
+public enum TagQuality {
+
+    /**
+     * 读取成功
+     */
+    GOOD("正常"),
+
+    /**
+     * 地址无效: 格式错误、超出范围、对象不存在、类型不符或不允许访问，重试不会恢复
+     */
+    BAD_ADDRESS("地址无效"),
+
+    /**
+     * 通信失败: 连接断开、请求超时或PLC硬件故障
+     */
+    BAD_COMM("通信失败"),
+
+    /**
+     * 本次读取失败，值为上次上报的值
+     */
+    UNCERTAIN_STALE("数据陈旧");
+
+    /**
+     * 显示名称
+     */
+    private final String displayName;
+
+    TagQuality(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * 是否为可用的最新值
+     */
+    public boolean isGood() {
+        return this == GOOD;
+    }
+
+    /**
+     * 按S7数据项返回码确定质量
+     *
+     * @param returnCode 数据项返回码，未收到响应的数据项为0
+     */
+    public static TagQuality fromReturnCode(int returnCode) {
+        switch (returnCode) {
+            case S7Protocol.RETURN_CODE_SUCCESS:
+                return GOOD;
+            case S7Protocol.RETURN_CODE_ACCESS_DENIED:
+            case S7Protocol.RETURN_CODE_ADDRESS_OUT_OF_RANGE:
+            case S7Protocol.RETURN_CODE_DATA_TYPE_NOT_SUPPORTED:
+            case S7Protocol.RETURN_CODE_DATA_TYPE_INCONSISTENT:
+            case S7Protocol.RETURN_CODE_OBJECT_NOT_EXIST:
+                return BAD_ADDRESS;
+            default:
+                return BAD_COMM;
+        }
+    }
+
+    /**
+     * 按名称查找，用于读取数据库中的质量列
+     *
+     * @param name 质量名称
+     * @return 质量，名称为空或无法识别时返回null
+     */
+    public static TagQuality fromName(String name) {
+        if (name != null) {
+            for (TagQuality quality : values()) {
+                if (quality.name().equalsIgnoreCase(name.trim())) {
+                    return quality;
+                }
+            }
+        }
+        return null;
+    }
+}
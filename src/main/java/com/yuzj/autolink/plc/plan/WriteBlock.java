@@ -0,0 +1,73 @@
+package com.yuzj.autolink.plc.plan;
+
+import com.yuzj.autolink.plc.address.PlcArea;
+import lombok.Getter;
+
+/**
+ * 写入块
+ * 相邻或重叠的字节写入合并为一个连续字节块，无法并入字节块的位写入单独成块
+ *
+ * @author yuzj002
+ */
+@Getter
+public final class WriteBlock {
+
+    /**
+     * 存储区域
+     */
+    private final PlcArea area;
+
+    /**
+     * 数据块编号，非DB区为0
+     */
+    private final int dbNumber;
+
+    /**
+     * 起始字节偏移
+     */
+    private final int startOffset;
+
+    /**
+     * 位偏移，仅位写入时有效
+     */
+    private final int bitOffset;
+
+    /**
+     * 是否按位写入
+     */
+    private final boolean bitAccess;
+
+    /**
+     * 写入数据，位写入时为一个字节(0或1)
+     */
+    private final byte[] data;
+
+    /**
+     * 并入本块的地址在所属写入计划地址数组中的下标
+     */
+    private final int[] itemIndexes;
+
+    WriteBlock(PlcArea area, int dbNumber, int startOffset, int bitOffset, boolean bitAccess,
+               byte[] data, int[] itemIndexes) {
+        this.area = area;
+        this.dbNumber = dbNumber;
+        this.startOffset = startOffset;
+        this.bitOffset = bitOffset;
+        this.bitAccess = bitAccess;
+        this.data = data;
+        this.itemIndexes = itemIndexes;
+    }
+
+    /**
+     * 写入字节数，位写入时为1
+     */
+    public int getLength() {
+        return data.length;
+    }
+
+    @Override
+    public String toString() {
+        return area + (area == PlcArea.DB ? String.valueOf(dbNumber) : "")
+                + "[" + startOffset + (bitAccess ? "." + bitOffset : "+" + data.length) + "]";
+    }
+}
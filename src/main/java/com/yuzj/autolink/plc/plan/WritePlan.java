@@ -0,0 +1,39 @@
+package com.yuzj.autolink.plc.plan;
+
+import com.yuzj.autolink.plc.address.PlcAddress;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量写入计划
+ * 保存调用方给出的地址顺序以及合并后的写入块，执行后按下标回填每个地址的写入结果
+ *
+ * @author yuzj002
+ */
+@Getter
+public final class WritePlan {
+
+    /**
+     * 计划内的地址，顺序与调用方一致
+     */
+    private final PlcAddress[] addresses;
+
+    /**
+     * 合并后的写入块
+     */
+    private final List<WriteBlock> blocks;
+
+    WritePlan(PlcAddress[] addresses, List<WriteBlock> blocks) {
+        this.addresses = addresses;
+        this.blocks = Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * 计划内地址数量
+     */
+    public int size() {
+        return addresses.length;
+    }
+}
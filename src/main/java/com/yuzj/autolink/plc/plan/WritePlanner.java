@@ -0,0 +1,183 @@
+package com.yuzj.autolink.plc.plan;
+
+import com.yuzj.autolink.plc.address.PlcAddress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量写入规划器
+ * 按 存储区域/DB编号/字节偏移 排序字节写入，将相邻或重叠的区间合并为连续写入块；
+ * 块内数据按调用方给出的顺序依次覆盖，因此区间重叠时后出现的值生效。
+ * 位写入所在字节已被字节块覆盖时并入该块，否则作为单独的位写入，避免改写同字节的其他位
+ *
+ * @author yuzj002
+ */
+public final class WritePlanner {
+
+    private static final Comparator<PlcAddress> ADDRESS_ORDER = Comparator
+            .comparing(PlcAddress::getArea)
+            .thenComparingInt(PlcAddress::getDbNumber)
+            .thenComparingInt(PlcAddress::getByteOffset);
+
+    private WritePlanner() {
+    }
+
+    /**
+     * 生成写入计划
+     *
+     * @param addresses 地址数组，不能包含null
+     * @param values    与地址一一对应的已编码数据，位地址为一个字节(0或1)
+     * @return 写入计划
+     */
+    public static WritePlan plan(PlcAddress[] addresses, byte[][] values) {
+        List<Integer> byteWrites = new ArrayList<>();
+        List<Integer> bitWrites = new ArrayList<>();
+        for (int i = 0; i < addresses.length; i++) {
+            if (addresses[i].isBit()) {
+                bitWrites.add(i);
+            } else {
+                byteWrites.add(i);
+            }
+        }
+        byteWrites.sort((a, b) -> ADDRESS_ORDER.compare(addresses[a], addresses[b]));
+
+        // 合并相邻或重叠的字节写入区间
+        List<Range> ranges = new ArrayList<>();
+        Range current = null;
+        for (int index : byteWrites) {
+            PlcAddress address = addresses[index];
+            if (current == null || !current.accepts(address)) {
+                current = new Range(address);
+                ranges.add(current);
+            }
+            current.add(index, address);
+        }
+
+        // 位写入: 并入覆盖其字节的区间，否则按位地址去重，后出现的值生效
+        Map<Long, List<Integer>> bits = new LinkedHashMap<>();
+        for (int index : bitWrites) {
+            PlcAddress address = addresses[index];
+            Range range = findRange(ranges, address);
+            if (range != null) {
+                range.members.add(index);
+            } else {
+                bits.computeIfAbsent(bitKey(address), k -> new ArrayList<>()).add(index);
+            }
+        }
+
+        List<WriteBlock> blocks = new ArrayList<>(ranges.size() + bits.size());
+        for (Range range : ranges) {
+            blocks.add(range.toBlock(addresses, values));
+        }
+        for (List<Integer> members : bits.values()) {
+            int last = members.get(members.size() - 1);
+            PlcAddress address = addresses[last];
+            blocks.add(new WriteBlock(address.getArea(), address.getDbNumber(), address.getByteOffset(),
+                    address.getBitOffset(), true, new byte[]{values[last][0]}, toArray(members)));
+        }
+        return new WritePlan(addresses.clone(), blocks);
+    }
+
+    /**
+     * 二分查找包含位地址所在字节的区间
+     */
+    private static Range findRange(List<Range> ranges, PlcAddress address) {
+        int low = 0;
+        int high = ranges.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Range range = ranges.get(mid);
+            int cmp = range.compareTo(address);
+            if (cmp == 0) {
+                return range;
+            } else if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return null;
+    }
+
+    private static long bitKey(PlcAddress address) {
+        return ((long) address.getArea().ordinal() << 48)
+                | ((long) address.getDbNumber() << 32)
+                | ((long) address.getByteOffset() << 3)
+                | address.getBitOffset();
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * 合并中的字节区间
+     */
+    private static final class Range {
+        private final PlcAddress first;
+        private final int start;
+        private int end;
+        private final List<Integer> members = new ArrayList<>();
+
+        Range(PlcAddress first) {
+            this.first = first;
+            this.start = first.getByteOffset();
+            this.end = start;
+        }
+
+        boolean accepts(PlcAddress address) {
+            return address.getArea() == first.getArea()
+                    && address.getDbNumber() == first.getDbNumber()
+                    && address.getByteOffset() <= end;
+        }
+
+        void add(int index, PlcAddress address) {
+            members.add(index);
+            end = Math.max(end, address.getByteOffset() + address.getLength());
+        }
+
+        /**
+         * 区间相对位地址所在字节的位置: 0包含，负数在前，正数在后
+         */
+        int compareTo(PlcAddress address) {
+            int cmp = first.getArea().compareTo(address.getArea());
+            if (cmp == 0) {
+                cmp = Integer.compare(first.getDbNumber(), address.getDbNumber());
+            }
+            if (cmp != 0) {
+                return cmp;
+            }
+            if (end <= address.getByteOffset()) {
+                return -1;
+            }
+            return start > address.getByteOffset() ? 1 : 0;
+        }
+
+        WriteBlock toBlock(PlcAddress[] addresses, byte[][] values) {
+            int[] indexes = toArray(members);
+            Arrays.sort(indexes);
+            byte[] data = new byte[end - start];
+            // 按调用方顺序依次覆盖
+            for (int index : indexes) {
+                PlcAddress address = addresses[index];
+                int pos = address.getByteOffset() - start;
+                if (address.isBit()) {
+                    int mask = 1 << address.getBitOffset();
+                    data[pos] = (byte) (values[index][0] != 0 ? data[pos] | mask : data[pos] & ~mask);
+                } else {
+                    System.arraycopy(values[index], 0, data, pos, address.getLength());
+                }
+            }
+            return new WriteBlock(first.getArea(), first.getDbNumber(), start, 0, false, data, indexes);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.yuzj.autolink.plc.poll;
+
+import com.yuzj.autolink.dao.model.PlcTagConfig;
+import com.yuzj.autolink.plc.address.PlcAddress;
+import com.yuzj.autolink.plc.plan.ReadBlock;
+import com.yuzj.autolink.plc.plan.ReadPlan;
+import com.yuzj.autolink.plc.plan.ReadResult;
+import com.yuzj.autolink.plc.plan.TagQuality;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 死区过滤器
+ * 每个扫描组一个，在解码后逐个比较标签值与上次上报值，只让变化的值继续流向持久化、报警和界面。
+ * 状态保存在按标签下标排列的数组中，过滤过程不分配对象；同一扫描组的周期不会并发执行，过滤器无需加锁。
+ * 全部为位地址的读取块中按值变化过滤的BOOL标签不经解码，直接按块原始字节每8字节组成一个long，
+ * 与上次的字按位异或后只遍历变化的位；这类标签的质量按块处理，块质量不变时不逐个访问。
+ * 质量变化总是上报；已上报过值的标签通信失败时沿用上次上报的值并标记为UNCERTAIN_STALE
+ *
+ * @author yuzj002
+ */
+@Slf4j
+public final class DeadbandFilter {
+
+    private final DeadbandType[] types;
+
+    /**
+     * 绝对死区，PERCENT已换算为绝对值
+     */
+    private final double[] thresholds;
+
+    private final Object[] lastValues;
+    private final TagQuality[] lastQualities;
+    private final double[] lastNumbers;
+    private final boolean[] reported;
+
+    private final AtomicLongArray forwarded;
+    private final AtomicLongArray suppressed;
+
+    /**
+     * 逐个比较的标签下标
+     */
+    private final int[] scalarTags;
+
+    /**
+     * 按位比较的读取块
+     */
+    private final BitBlock[] bitBlocks;
+
+    /**
+     * 标签所属的按位比较读取块在bitBlocks中的下标，逐个比较的标签为-1
+     */
+    private final int[] bitBlockOf;
+
+    /**
+     * @param tags 扫描组标签
+     * @param plan 扫描组读取计划，地址下标与标签一致
+     */
+    DeadbandFilter(List<PlcTagConfig> tags, ReadPlan plan) {
+        int size = tags.size();
+        types = new DeadbandType[size];
+        thresholds = new double[size];
+        lastValues = new Object[size];
+        lastQualities = new TagQuality[size];
+        lastNumbers = new double[size];
+        reported = new boolean[size];
+        forwarded = new AtomicLongArray(size);
+        suppressed = new AtomicLongArray(size);
+
+        for (int i = 0; i < size; i++) {
+            PlcTagConfig tag = tags.get(i);
+            DeadbandType type = DeadbandType.fromName(tag.getDeadbandType());
+            double deadband = tag.getDeadband() != null ? Math.abs(tag.getDeadband()) : 0;
+            if (type == DeadbandType.PERCENT) {
+                if (tag.getSpanMin() == null || tag.getSpanMax() == null) {
+                    log.warn("标签 {} 未配置量程，百分比死区按值变化处理", tag.getTagName());
+                    type = DeadbandType.CHANGE;
+                } else {
+                    deadband = Math.abs(tag.getSpanMax() - tag.getSpanMin()) * deadband / 100;
+                }
+            }
+            types[i] = type;
+            thresholds[i] = deadband;
+        }
+
+        bitBlockOf = new int[size];
+        Arrays.fill(bitBlockOf, -1);
+        PlcAddress[] addresses = plan.getAddresses();
+        List<BitBlock> blocks = new ArrayList<>();
+        for (int b = 0; b < plan.getBlocks().size(); b++) {
+            ReadBlock block = plan.getBlocks().get(b);
+            if (!block.isBitOnly()) {
+                continue;
+            }
+            BitBlock bits = new BitBlock(b, block.getLength());
+            int[] packedTags = new int[block.getItemIndexes().length];
+            int packedCount = 0;
+            for (int index : block.getItemIndexes()) {
+                PlcAddress address = addresses[index];
+                int position = ((address.getByteOffset() - block.getStartOffset()) << 3) + address.getBitOffset();
+                // 同一位上的重复标签和不过滤的标签逐个处理
+                if (types[index] == DeadbandType.NONE || bits.tagAt[position] >= 0) {
+                    continue;
+                }
+                bits.tagAt[position] = index;
+                bits.mask[position >>> 6] |= 1L << position;
+                bitBlockOf[index] = blocks.size();
+                packedTags[packedCount++] = index;
+            }
+            if (packedCount > 0) {
+                bits.tags = Arrays.copyOf(packedTags, packedCount);
+                blocks.add(bits);
+            }
+        }
+        bitBlocks = blocks.toArray(new BitBlock[0]);
+
+        int[] scalars = new int[size];
+        int scalarCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (bitBlockOf[i] < 0) {
+                scalars[scalarCount++] = i;
+            }
+        }
+        scalarTags = Arrays.copyOf(scalars, scalarCount);
+    }
+
+    /**
+     * 过滤一个周期的读取结果
+     *
+     * @param result  读取结果，陈旧的值原地替换为上次上报的值，通信失败且有上次上报值的质量原地改为UNCERTAIN_STALE；
+     *                位读取块中需要上报的标签在此写入值，未上报的可能仍为null
+     * @param changed 输出参数，需要上报的下标置为true
+     * @return 需要上报的数量
+     */
+    int apply(ReadResult result, boolean[] changed) {
+        Arrays.fill(changed, false);
+        Object[] values = result.peekValues();
+        TagQuality[] qualities = result.getQualities();
+        int count = 0;
+        for (BitBlock bits : bitBlocks) {
+            count += applyBits(bits, result.getBlockData(bits.block), values, qualities, changed);
+        }
+        for (int i : scalarTags) {
+            Object value = result.getValue(i);
+            TagQuality quality = qualities[i];
+            if (quality == TagQuality.BAD_COMM && lastValues[i] != null) {
+                value = lastValues[i];
+                values[i] = value;
+                quality = TagQuality.UNCERTAIN_STALE;
+                qualities[i] = quality;
+            }
+            boolean pass = !reported[i] || quality != lastQualities[i] || (quality.isGood() && exceeds(i, value));
+            changed[i] = pass;
+            if (pass) {
+                if (quality.isGood()) {
+                    lastValues[i] = value;
+                    if (value instanceof Number) {
+                        lastNumbers[i] = ((Number) value).doubleValue();
+                    }
+                }
+                lastQualities[i] = quality;
+                reported[i] = true;
+                forwarded.incrementAndGet(i);
+                count++;
+            } else {
+                suppressed.incrementAndGet(i);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 位读取块的变化检测: 块质量变化时上报块内全部标签；质量为GOOD时逐字与上次的字异或，
+     * 只处理结果中为1的位
+     *
+     * @param data 块原始数据，读取失败时为null
+     * @return 需要上报的标签数量
+     */
+    private int applyBits(BitBlock bits, byte[] data, Object[] values, TagQuality[] qualities, boolean[] changed) {
+        bits.cycles.incrementAndGet();
+        TagQuality quality = data != null ? TagQuality.GOOD : qualities[bits.tags[0]];
+        if (quality == TagQuality.BAD_COMM && bits.hasValue) {
+            quality = TagQuality.UNCERTAIN_STALE;
+        }
+        if (!quality.isGood()) {
+            if (quality == TagQuality.UNCERTAIN_STALE) {
+                for (int index : bits.tags) {
+                    values[index] = lastValues[index];
+                    qualities[index] = quality;
+                }
+            }
+            if (quality == bits.lastQuality) {
+                return 0;
+            }
+            bits.lastQuality = quality;
+            for (int index : bits.tags) {
+                changed[index] = true;
+                forwarded.incrementAndGet(index);
+            }
+            return bits.tags.length;
+        }
+
+        boolean all = bits.lastQuality != TagQuality.GOOD;
+        bits.lastQuality = TagQuality.GOOD;
+        bits.hasValue = true;
+        int count = 0;
+        for (int w = 0; w < bits.mask.length; w++) {
+            long word = readWord(data, w) & bits.mask[w];
+            long diff = all ? bits.mask[w] : word ^ bits.lastWords[w];
+            bits.lastWords[w] = word;
+            while (diff != 0) {
+                int bit = Long.numberOfTrailingZeros(diff);
+                diff &= diff - 1;
+                int index = bits.tagAt[(w << 6) + bit];
+                Boolean value = Boolean.valueOf((word & (1L << bit)) != 0);
+                values[index] = value;
+                lastValues[index] = value;
+                changed[index] = true;
+                forwarded.incrementAndGet(index);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 块数据中第w个8字节按小端组成的字，S7位地址x.y对应第x字节的第y位，字中位序与块内位序一致
+     */
+    private static long readWord(byte[] data, int w) {
+        int start = w << 3;
+        int end = Math.min(start + 8, data.length);
+        long word = 0;
+        for (int i = start; i < end; i++) {
+            word |= (data[i] & 0xFFL) << ((i - start) << 3);
+        }
+        return word;
+    }
+
+    /**
+     * 清除上报状态，下一周期所有标签重新上报，连接恢复后调用
+     */
+    void reset() {
+        Arrays.fill(reported, false);
+        Arrays.fill(lastQualities, null);
+        for (BitBlock bits : bitBlocks) {
+            bits.lastQuality = null;
+        }
+    }
+
+    private boolean exceeds(int index, Object value) {
+        switch (types[index]) {
+            case NONE:
+                return true;
+            case ABSOLUTE:
+            case PERCENT:
+                if (value instanceof Number && lastValues[index] instanceof Number) {
+                    double number = ((Number) value).doubleValue();
+                    double last = lastNumbers[index];
+                    if (Double.isNaN(number) || Double.isNaN(last)) {
+                        return Double.isNaN(number) != Double.isNaN(last);
+                    }
+                    return Math.abs(number - last) > thresholds[index];
+                }
+                return !Objects.deepEquals(value, lastValues[index]);
+            default:
+                // 数组每周期重新解码，按元素比较
+                return !Objects.deepEquals(value, lastValues[index]);
+        }
+    }
+
+    /**
+     * 标签已上报的次数
+     *
+     * @param index 标签在扫描组中的下标
+     */
+    public long getForwardedCount(int index) {
+        return forwarded.get(index);
+    }
+
+    /**
+     * 标签被死区过滤的次数，按位比较的标签由所属块的过滤周期数减去上报次数得出
+     *
+     * @param index 标签在扫描组中的下标
+     */
+    public long getSuppressedCount(int index) {
+        int b = bitBlockOf[index];
+        if (b < 0) {
+            return suppressed.get(index);
+        }
+        return Math.max(0, bitBlocks[b].cycles.get() - forwarded.get(index));
+    }
+
+    /**
+     * 按位比较的读取块状态，位序为块内字节偏移乘8加位偏移
+     */
+    private static final class BitBlock {
+
+        /**
+         * 读取块在计划中的下标
+         */
+        final int block;
+
+        /**
+         * 块内位序对应的标签下标，无标签为-1
+         */
+        final int[] tagAt;
+
+        /**
+         * 有标签的位
+         */
+        final long[] mask;
+
+        /**
+         * 上次上报时的字
+         */
+        final long[] lastWords;
+
+        /**
+         * 块内按位比较的标签下标
+         */
+        int[] tags;
+
+        /**
+         * 上次上报的块质量，未上报为null
+         */
+        TagQuality lastQuality;
+
+        /**
+         * 是否读取成功过，通信失败时据此沿用上次的值
+         */
+        boolean hasValue;
+
+        /**
+         * 过滤周期数
+         */
+        final AtomicLong cycles = new AtomicLong();
+
+        BitBlock(int block, int length) {
+            int words = (length + 7) >>> 3;
+            this.block = block;
+            this.tagAt = new int[words << 6];
+            this.mask = new long[words];
+            this.lastWords = new long[words];
+            Arrays.fill(tagAt, -1);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.yuzj.autolink.plc.poll;
+
+/**
+ * 死区类型
+ *
+ * @author yuzj002
+ */
+public enum DeadbandType {
+
+    /**
+     * 不过滤，每次读取都上报
+     */
+    NONE,
+
+    /**
+     * 值变化时上报
+     */
+    CHANGE,
+
+    /**
+     * 与上次上报值之差超过绝对死区时上报
+     */
+    ABSOLUTE,
+
+    /**
+     * 与上次上报值之差超过量程百分比时上报
+     */
+    PERCENT;
+
+    /**
+     * 按名称查找
+     *
+     * @param name 死区类型名称
+     * @return 死区类型，名称为空或无法识别时返回CHANGE
+     */
+    public static DeadbandType fromName(String name) {
+        if (name != null) {
+            for (DeadbandType type : values()) {
+                if (type.name().equalsIgnoreCase(name.trim())) {
+                    return type;
+                }
+            }
+        }
+        return CHANGE;
+    }
+}
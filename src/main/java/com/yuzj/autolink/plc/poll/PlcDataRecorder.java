@@ -0,0 +1,194 @@
+package com.yuzj.autolink.plc.poll;
+
+import com.yuzj.autolink.dao.model.PlcDataRecord;
+import com.yuzj.autolink.dao.model.PlcTagConfig;
+import com.yuzj.autolink.dao.repository.PlcDataRecordRepository;
+import com.yuzj.autolink.plc.codec.S7ValueCodec;
+import com.yuzj.autolink.plc.plan.TagQuality;
+import com.yuzj.autolink.plc.session.LatencyHistogram;
+import com.yuzj.autolink.plc.trace.PlcTrace;
+import com.yuzj.autolink.plc.trace.TraceStage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 采集数据记录器
+ * 只接收通过死区过滤或质量变化的值，先放入内存队列，由后台线程定时批量写入plc_data_record，质量列记录读取质量
+ *
+ * @author yuzj002
+ */
+@Slf4j
+@Component
+public class PlcDataRecorder implements PollListener {
+
+    /**
+     * 批量写入间隔(毫秒)
+     */
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    /**
+     * 单次批量写入的最大记录数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 队列容量上限，数据库写入跟不上时丢弃新记录
+     */
+    private static final int MAX_PENDING = 100_000;
+
+    /**
+     * 记录值的最大长度，与tag_value列宽度一致，超长的数组值截断
+     */
+    private static final int MAX_VALUE_LENGTH = 4000;
+
+    @Resource
+    private PlcPollingEngine plcPollingEngine;
+
+    @Resource
+    private PlcDataRecordRepository plcDataRecordRepository;
+
+    private final Queue<PlcDataRecord> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final LongAdder savedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+    private volatile int lastBatchSize;
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PLC-Data-Recorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        plcPollingEngine.addListener(this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        plcPollingEngine.removeListener(this);
+        flusher.shutdown();
+        flush();
+    }
+
+    @Override
+    public void onScan(ScanClass scanClass, Object[] values, TagQuality[] qualities, boolean[] changed) {
+        List<PlcTagConfig> tags = scanClass.getTags();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < values.length; i++) {
+            if (!changed[i]) {
+                continue;
+            }
+            if (pendingCount.incrementAndGet() > MAX_PENDING) {
+                pendingCount.decrementAndGet();
+                droppedCount.increment();
+                continue;
+            }
+            PlcTagConfig tag = tags.get(i);
+            PlcDataRecord record = new PlcDataRecord();
+            record.setTagName(tag.getTagName());
+            String text = S7ValueCodec.format(values[i]);
+            record.setTagValue(text != null && text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) : text);
+            record.setDataType(tag.getDataType());
+            record.setQuality(qualities[i].name());
+            record.setCreateTime(now);
+            pending.add(record);
+        }
+    }
+
+    /**
+     * 将队列中的记录分批写入数据库
+     */
+    private void flush() {
+        List<PlcDataRecord> batch = new ArrayList<>(BATCH_SIZE);
+        PlcDataRecord record;
+        while ((record = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(record);
+            if (batch.size() == BATCH_SIZE) {
+                save(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            save(batch);
+        }
+    }
+
+    private void save(List<PlcDataRecord> batch) {
+        long start = System.nanoTime();
+        long traceStart = PlcTrace.begin();
+        Object traceEvent = PlcTrace.beginEvent(TraceStage.PERSIST_FLUSH);
+        try {
+            plcDataRecordRepository.saveBatch(batch, BATCH_SIZE);
+            batchLatency.record(System.nanoTime() - start);
+            PlcTrace.end(TraceStage.PERSIST_FLUSH, PlcTrace.NO_DEVICE, PlcTrace.NO_DB, 0, batch.size(), traceStart, traceEvent);
+            batchCount.increment();
+            lastBatchSize = batch.size();
+            savedCount.add(batch.size());
+        } catch (Exception e) {
+            droppedCount.add(batch.size());
+            log.error("采集数据写入失败, 丢弃{}条记录: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 等待写入的记录数
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * 已写入的记录数
+     */
+    public long getSavedCount() {
+        return savedCount.sum();
+    }
+
+    /**
+     * 因队列已满或写入失败而丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 成功写入的批次数
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 最近一个批次的记录数
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * 批量写入耗时直方图
+     */
+    public LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+}
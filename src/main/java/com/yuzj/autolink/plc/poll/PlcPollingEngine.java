@@ -0,0 +1,303 @@
+package com.yuzj.autolink.plc.poll;
+
+import com.yuzj.autolink.dao.model.PlcTagConfig;
+import com.yuzj.autolink.dao.repository.PlcTagConfigRepository;
+import com.yuzj.autolink.plc.address.PlcAddress;
+import com.yuzj.autolink.plc.address.PlcAddressCache;
+import com.yuzj.autolink.plc.address.S7DataType;
+import com.yuzj.autolink.plc.event.PlcConnectStatusEvent;
+import com.yuzj.autolink.plc.event.ScanClassesReloadedEvent;
+import com.yuzj.autolink.plc.plan.ReadPlanner;
+import com.yuzj.autolink.plc.plan.TagQuality;
+import com.yuzj.autolink.plc.session.PlcConnectionManager;
+import com.yuzj.autolink.plc.session.PlcSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+
+/**
+ * 周期采集引擎
+ * 按plc_tag_config中的设备ID和扫描周期将标签分为扫描组，每组生成一次读取计划。
+ * 所有扫描组由一个定时线程按截止时间调度(DelayQueue基于LockSupport.parkNanos等待)，
+ * 读取请求异步发出，结果在各会话执行器中回调
+ *
+ * @author yuzj002
+ */
+@Slf4j
+@Component
+public class PlcPollingEngine {
+
+    /**
+     * 最小扫描周期(毫秒)
+     */
+    public static final int MIN_SCAN_RATE = 10;
+
+    /**
+     * 未配置扫描周期时的默认值(毫秒)
+     */
+    public static final int DEFAULT_SCAN_RATE = 1000;
+
+    @Resource
+    private PlcConnectionManager plcConnectionManager;
+
+    @Resource
+    private PlcTagConfigRepository plcTagConfigRepository;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    private final DelayQueue<ScanClass> queue = new DelayQueue<>();
+    private final List<PollListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 各标签最新值，键为标签名称
+     */
+    private final Map<String, Object> latestValues = new ConcurrentHashMap<>();
+
+    /**
+     * 各标签最新质量，键为标签名称
+     */
+    private final Map<String, TagQuality> latestQualities = new ConcurrentHashMap<>();
+
+    private volatile List<ScanClass> scanClasses = Collections.emptyList();
+    private Thread timer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        start();
+    }
+
+    /**
+     * 加载标签配置并启动定时线程
+     */
+    public synchronized void start() {
+        reload();
+        if (timer == null) {
+            timer = new Thread(this::runTimer, "PLC-Poll-Timer");
+            timer.setDaemon(true);
+            timer.setPriority(Thread.MAX_PRIORITY);
+            timer.start();
+            log.info("周期采集引擎已启动");
+        }
+    }
+
+    /**
+     * 重新加载标签配置并生成扫描组，标签配置变更后调用
+     */
+    public synchronized void reload() {
+        for (ScanClass scanClass : scanClasses) {
+            scanClass.cancel();
+        }
+        queue.clear();
+
+        List<ScanClass> compiled = compile(plcTagConfigRepository.list());
+        scanClasses = Collections.unmodifiableList(compiled);
+        latestValues.clear();
+        latestQualities.clear();
+        queue.addAll(compiled);
+        for (ScanClass scanClass : compiled) {
+            log.info("扫描组: 设备{}, 周期{}ms, {}个标签合并为{}个读取块",
+                    scanClass.getDeviceId(), scanClass.getScanRate(), scanClass.getTags().size(),
+                    scanClass.getPlan().getBlocks().size());
+        }
+        eventPublisher.publishEvent(new ScanClassesReloadedEvent(scanClasses));
+    }
+
+    /**
+     * 设备连接建立或恢复后，该设备的扫描组立即执行一次已生成的读取计划并重新上报所有标签，之后按原周期继续。
+     * 读取计划与PDU大小无关，按新协商的PDU划分请求
+     */
+    @EventListener
+    public void onConnectStatus(PlcConnectStatusEvent event) {
+        if (!event.isConnected()) {
+            return;
+        }
+        int resumed = 0;
+        for (ScanClass scanClass : scanClasses) {
+            if (scanClass.getDeviceId() != event.getDeviceId() || scanClass.isCancelled()) {
+                continue;
+            }
+            scanClass.requestResync();
+            // 正在执行的扫描组由定时线程放回队列，按原截止时间执行
+            if (queue.remove(scanClass)) {
+                scanClass.rescheduleNow();
+                queue.add(scanClass);
+            }
+            resumed++;
+        }
+        if (resumed > 0) {
+            log.info("设备{}连接已建立，{}个扫描组立即恢复采集", event.getDeviceId(), resumed);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.interrupt();
+            timer = null;
+        }
+        for (ScanClass scanClass : scanClasses) {
+            scanClass.cancel();
+        }
+        queue.clear();
+    }
+
+    /**
+     * 按设备和扫描周期分组并生成读取计划
+     */
+    private List<ScanClass> compile(List<PlcTagConfig> tagConfigs) {
+        Map<Long, Map<Integer, List<PlcTagConfig>>> groups = new TreeMap<>();
+        for (PlcTagConfig tag : tagConfigs) {
+            long deviceId = tag.getDeviceId() != null ? tag.getDeviceId() : PlcConnectionManager.DEFAULT_DEVICE_ID;
+            int scanRate = tag.getScanRate() != null ? Math.max(tag.getScanRate(), MIN_SCAN_RATE) : DEFAULT_SCAN_RATE;
+            groups.computeIfAbsent(deviceId, id -> new TreeMap<>())
+                    .computeIfAbsent(scanRate, rate -> new ArrayList<>())
+                    .add(tag);
+        }
+
+        List<ScanClass> compiled = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, List<PlcTagConfig>>> device : groups.entrySet()) {
+            PlcSession session = plcConnectionManager.getSession(device.getKey());
+            if (session == null) {
+                log.warn("标签所属设备不存在: {}, 已忽略{}个扫描组", device.getKey(), device.getValue().size());
+                continue;
+            }
+            for (Map.Entry<Integer, List<PlcTagConfig>> rate : device.getValue().entrySet()) {
+                List<PlcTagConfig> tags = new ArrayList<>();
+                List<PlcAddress> addresses = new ArrayList<>();
+                for (PlcTagConfig tag : rate.getValue()) {
+                    PlcAddress address = resolveAddress(tag);
+                    if (address != null) {
+                        tags.add(tag);
+                        addresses.add(address);
+                    }
+                }
+                if (!tags.isEmpty()) {
+                    compiled.add(new ScanClass(session, rate.getKey(), tags, ReadPlanner.plan(
+                            addresses.toArray(new PlcAddress[0]), session.getProperties().getReadGapTolerance())));
+                }
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * 解析标签地址，标签配置了数据类型时按该类型解码
+     *
+     * @return 地址描述符，地址无效时返回null
+     */
+    private PlcAddress resolveAddress(PlcTagConfig tag) {
+        try {
+            PlcAddress address = PlcAddressCache.get(tag.getAddress());
+            S7DataType dataType = S7DataType.fromName(tag.getDataType());
+            return dataType != null ? address.withDataType(dataType) : address;
+        } catch (IllegalArgumentException e) {
+            log.warn("标签 {} 地址无效: {}", tag.getTagName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 定时线程: 取出到期的扫描组执行，推进截止时间后放回队列
+     */
+    private void runTimer() {
+        while (!Thread.currentThread().isInterrupted()) {
+            ScanClass scanClass;
+            try {
+                scanClass = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (scanClass.isCancelled()) {
+                continue;
+            }
+            try {
+                scanClass.fire(this);
+            } catch (Exception e) {
+                log.error("扫描组执行异常: {}", scanClass, e);
+            }
+            scanClass.advance(System.nanoTime());
+            if (!scanClass.isCancelled()) {
+                queue.add(scanClass);
+            }
+        }
+        log.info("周期采集引擎已停止");
+    }
+
+    /**
+     * 发布通过死区过滤的值: 更新最新值和质量并通知监听器
+     */
+    void publish(ScanClass scanClass, Object[] values, TagQuality[] qualities, boolean[] changed) {
+        if (scanClass.isCancelled()) {
+            return;
+        }
+        List<PlcTagConfig> tags = scanClass.getTags();
+        for (int i = 0; i < values.length; i++) {
+            if (changed[i]) {
+                String tagName = tags.get(i).getTagName();
+                if (values[i] != null) {
+                    latestValues.put(tagName, values[i]);
+                } else {
+                    latestValues.remove(tagName);
+                }
+                latestQualities.put(tagName, qualities[i]);
+            }
+        }
+        for (PollListener listener : listeners) {
+            try {
+                listener.onScan(scanClass, values, qualities, changed);
+            } catch (Exception e) {
+                log.error("扫描结果监听器异常: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    public void addListener(PollListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PollListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 当前所有扫描组
+     */
+    public List<ScanClass> getScanClasses() {
+        return scanClasses;
+    }
+
+    /**
+     * 标签最新值
+     *
+     * @param tagName 标签名称
+     * @return 最新值，尚未读取时返回null
+     */
+    public Object getLatestValue(String tagName) {
+        return latestValues.get(tagName);
+    }
+
+    /**
+     * 标签最新质量
+     *
+     * @param tagName 标签名称
+     * @return 最新质量，尚未读取时返回null
+     */
+    public TagQuality getLatestQuality(String tagName) {
+        return latestQualities.get(tagName);
+    }
+}
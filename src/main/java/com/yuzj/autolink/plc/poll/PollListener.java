@@ -0,0 +1,25 @@
+package com.yuzj.autolink.plc.poll;
+
+import com.yuzj.autolink.plc.plan.TagQuality;
+
+/**
+ * 扫描结果监听器
+ * 在所属会话的执行器线程中回调，实现中不应执行耗时操作。
+ * 只有至少一个标签通过死区过滤或质量变化时才会回调，参数数组不应在回调外保留
+ *
+ * @author yuzj002
+ */
+@FunctionalInterface
+public interface PollListener {
+
+    /**
+     * 一个扫描周期读取完成
+     *
+     * @param scanClass 扫描组
+     * @param values    读取结果，下标与{@link ScanClass#getTags()}一致，质量为BAD_*的值为null，
+     *                  未上报的BOOL标签可能未解码，只应读取changed为true的下标
+     * @param qualities 读取质量，下标与值一致
+     * @param changed   通过死区过滤或质量变化需要上报的标签为true
+     */
+    void onScan(ScanClass scanClass, Object[] values, TagQuality[] qualities, boolean[] changed);
+}
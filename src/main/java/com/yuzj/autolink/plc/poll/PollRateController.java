@@ -0,0 +1,188 @@
+package com.yuzj.autolink.plc.poll;
+
+import com.yuzj.autolink.config.PlcProperties;
+import com.yuzj.autolink.plc.s7.RequestPriority;
+import com.yuzj.autolink.plc.session.LatencySnapshot;
+import com.yuzj.autolink.plc.session.PlcOperation;
+import com.yuzj.autolink.plc.session.PlcSession;
+import com.yuzj.autolink.plc.session.PlcSessionMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扫描周期自适应调节
+ * 每个调节周期统计各设备批量读取响应时间p95和请求失败率: 超过目标时按优先级从低到高延长扫描组周期
+ * (先慢速扫描，慢速扫描都已到上限后再延长快速扫描)，响应时间低于目标一半且无失败时按相反顺序逐步恢复。
+ * 生效周期始终在配置周期和配置周期的maxScanStretch倍之间
+ *
+ * @author yuzj002
+ */
+@Slf4j
+@Component
+public class PollRateController {
+
+    /**
+     * 调节周期(毫秒)
+     */
+    private static final long CONTROL_INTERVAL_MILLIS = 2000;
+
+    /**
+     * 每次延长的倍数，恢复时按相同倍数缩短
+     */
+    private static final double STEP = 1.5;
+
+    /**
+     * 延长顺序，恢复时反向
+     */
+    private static final RequestPriority[] THROTTLE_ORDER = {RequestPriority.SLOW_SCAN, RequestPriority.FAST_SCAN};
+
+    @Resource
+    private PlcPollingEngine plcPollingEngine;
+
+    @Resource
+    private PlcProperties plcProperties;
+
+    /**
+     * 各设备上一调节周期结束时的统计，只由调节线程访问
+     */
+    private final Map<Long, Window> windows = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        if (!plcProperties.isAdaptivePolling()) {
+            log.info("扫描周期自适应调节已关闭");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PLC-Poll-Rate-Controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::adjust, CONTROL_INTERVAL_MILLIS, CONTROL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 执行一次调节
+     */
+    void adjust() {
+        try {
+            Map<PlcSession, List<ScanClass>> bySession = new LinkedHashMap<>();
+            for (ScanClass scanClass : plcPollingEngine.getScanClasses()) {
+                bySession.computeIfAbsent(scanClass.getSession(), s -> new ArrayList<>()).add(scanClass);
+            }
+            for (Map.Entry<PlcSession, List<ScanClass>> entry : bySession.entrySet()) {
+                adjust(entry.getKey(), entry.getValue());
+            }
+        } catch (Exception e) {
+            log.warn("扫描周期调节失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private void adjust(PlcSession session, List<ScanClass> scanClasses) {
+        PlcSessionMetrics metrics = session.getMetrics();
+        Window current = new Window(session, metrics.getLatency(PlcOperation.READ_MULTIPLE).snapshot(),
+                metrics.getReadRequests() + metrics.getWriteRequests(), metrics.getErrors());
+        Window previous = windows.put(session.getDeviceId(), current);
+        if (previous == null || previous.session != session || !session.isConnected()) {
+            return;
+        }
+
+        LatencySnapshot latency = current.latency.minus(previous.latency);
+        long errors = current.errors - previous.errors;
+        long total = current.requests - previous.requests + errors;
+        if (total == 0) {
+            return;
+        }
+        double p95 = latency.getP95Millis();
+        double errorPercent = errors * 100.0 / total;
+        int target = plcProperties.getTargetResponseMillis();
+
+        if (p95 > target || errorPercent > plcProperties.getMaxErrorPercent()) {
+            throttle(scanClasses, p95, errorPercent);
+        } else if (p95 < target / 2.0 && errors == 0) {
+            restore(scanClasses, p95);
+        }
+    }
+
+    /**
+     * 延长优先级最低且尚未到上限的一类扫描组
+     */
+    private void throttle(List<ScanClass> scanClasses, double p95, double errorPercent) {
+        int stretch = Math.max(1, plcProperties.getMaxScanStretch());
+        for (RequestPriority priority : THROTTLE_ORDER) {
+            boolean changed = false;
+            for (ScanClass scanClass : scanClasses) {
+                int max = scanClass.getScanRate() * stretch;
+                if (scanClass.getPriority() != priority || scanClass.getEffectiveRate() >= max) {
+                    continue;
+                }
+                int rate = Math.min(max, (int) Math.ceil(scanClass.getEffectiveRate() * STEP));
+                scanClass.setEffectiveRate(rate);
+                changed = true;
+                log.info("PLC响应变慢(p95={}ms, 失败率={}%), 延长扫描周期: {}",
+                        String.format("%.1f", p95), String.format("%.1f", errorPercent), scanClass);
+            }
+            if (changed) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 缩短优先级最高且已被延长的一类扫描组
+     */
+    private void restore(List<ScanClass> scanClasses, double p95) {
+        for (int i = THROTTLE_ORDER.length - 1; i >= 0; i--) {
+            boolean changed = false;
+            for (ScanClass scanClass : scanClasses) {
+                if (scanClass.getPriority() != THROTTLE_ORDER[i] || !scanClass.isThrottled()) {
+                    continue;
+                }
+                scanClass.setEffectiveRate((int) (scanClass.getEffectiveRate() / STEP));
+                changed = true;
+                log.info("PLC响应恢复(p95={}ms), 缩短扫描周期: {}", String.format("%.1f", p95), scanClass);
+            }
+            if (changed) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 调节周期结束时的累计统计
+     */
+    private static final class Window {
+        final PlcSession session;
+        final LatencySnapshot latency;
+        final long requests;
+        final long errors;
+
+        Window(PlcSession session, LatencySnapshot latency, long requests, long errors) {
+            this.session = session;
+            this.latency = latency;
+            this.requests = requests;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.yuzj.autolink.plc.poll;
+
+import com.yuzj.autolink.dao.model.PlcTagConfig;
+import com.yuzj.autolink.plc.plan.ReadPlan;
+import com.yuzj.autolink.plc.s7.RequestPriority;
+import com.yuzj.autolink.plc.session.PlcSession;
+import com.yuzj.autolink.plc.trace.PlcTrace;
+import com.yuzj.autolink.plc.trace.TraceStage;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 扫描组
+ * 同一设备上扫描周期相同的标签，读取计划在创建时生成一次，之后每个周期直接执行。
+ * 周期截止时间按绝对时间累加，不受单次执行耗时和唤醒延迟影响；上一周期未完成时跳过本周期并计为超时。
+ * 读取结果先经过死区过滤，只有值或质量变化的标签才会发布
+ *
+ * @author yuzj002
+ */
+@Slf4j
+public final class ScanClass implements Delayed {
+
+    /**
+     * 实际周期滑动平均的平滑系数(1/8)
+     */
+    private static final int AVERAGE_SHIFT = 3;
+
+    /**
+     * 所属会话
+     */
+    @Getter
+    private final PlcSession session;
+
+    /**
+     * 请求的扫描周期(毫秒)
+     */
+    @Getter
+    private final int scanRate;
+
+    /**
+     * 请求优先级通道，周期小于默认扫描周期的为快速扫描
+     */
+    @Getter
+    private final RequestPriority priority;
+
+    /**
+     * 组内标签，顺序与读取计划中的地址一致
+     */
+    @Getter
+    private final List<PlcTagConfig> tags;
+
+    /**
+     * 预先生成的读取计划
+     */
+    @Getter
+    private final ReadPlan plan;
+
+    /**
+     * 死区过滤器
+     */
+    @Getter
+    private final DeadbandFilter filter;
+
+    /**
+     * 每周期复用的变化标记
+     */
+    private final boolean[] changed;
+
+    /**
+     * 当前生效的扫描周期，由自适应调节修改
+     */
+    private volatile int effectiveRate;
+    private volatile long periodNanos;
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private final LongAdder cycleCount = new LongAdder();
+    private final LongAdder overrunCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+
+    // 以下两个字段只在扫描组不在调度队列中时写入: 定时线程取出后执行和推进，或连接恢复时由事件线程
+    // 移出队列后调用rescheduleNow。写入与读取之间都隔着DelayQueue的入队/出队，由队列的锁保证可见性
+    private long nextDeadline;
+    private long lastStart;
+    private volatile long averagePeriodNanos;
+
+    private volatile long lastDurationNanos;
+    private volatile long lastUpdateTime;
+    private volatile boolean cancelled;
+
+    /**
+     * 下一周期是否重新上报所有标签
+     */
+    private volatile boolean resync;
+
+    ScanClass(PlcSession session, int scanRate, List<PlcTagConfig> tags, ReadPlan plan) {
+        this.session = session;
+        this.scanRate = scanRate;
+        this.priority = scanRate < PlcPollingEngine.DEFAULT_SCAN_RATE ? RequestPriority.FAST_SCAN : RequestPriority.SLOW_SCAN;
+        this.tags = Collections.unmodifiableList(tags);
+        this.plan = plan;
+        this.filter = new DeadbandFilter(tags, plan);
+        this.changed = new boolean[tags.size()];
+        this.effectiveRate = scanRate;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(scanRate);
+        this.nextDeadline = System.nanoTime();
+    }
+
+    /**
+     * 执行一个扫描周期，读取异步完成后通知引擎
+     */
+    void fire(PlcPollingEngine engine) {
+        if (!busy.compareAndSet(false, true)) {
+            overrunCount.increment();
+            return;
+        }
+        if (!session.isConnected()) {
+            busy.set(false);
+            lastStart = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (lastStart != 0) {
+            long interval = start - lastStart;
+            long average = averagePeriodNanos;
+            averagePeriodNanos = average == 0 ? interval : average + ((interval - average) >> AVERAGE_SHIFT);
+        }
+        lastStart = start;
+        cycleCount.increment();
+
+        long traceStart = PlcTrace.begin();
+        Object traceEvent = PlcTrace.beginEvent(TraceStage.SCAN_CYCLE);
+        session.readPlanAsync(plan, priority).whenComplete((result, error) -> {
+            lastDurationNanos = System.nanoTime() - start;
+            busy.set(false);
+            if (error != null) {
+                errorCount.increment();
+                log.debug("扫描组读取失败: {} - {}", this, error.getMessage());
+            } else {
+                if (result.hasCommError()) {
+                    errorCount.increment();
+                } else {
+                    lastUpdateTime = System.currentTimeMillis();
+                }
+                if (resync) {
+                    resync = false;
+                    filter.reset();
+                }
+                if (filter.apply(result, changed) > 0) {
+                    engine.publish(this, result.peekValues(), result.getQualities(), changed);
+                }
+            }
+            if (traceStart != 0L || traceEvent != null) {
+                PlcTrace.end(TraceStage.SCAN_CYCLE, getDeviceId(), PlcTrace.NO_DB, plan.totalBytes(), tags.size(),
+                        traceStart, traceEvent);
+            }
+        });
+    }
+
+    /**
+     * 推进到下一个截止时间，已错过的周期直接跳过
+     *
+     * @param now 当前时间(纳秒)
+     */
+    void advance(long now) {
+        nextDeadline += periodNanos;
+        if (now - nextDeadline >= 0) {
+            long missed = (now - nextDeadline) / periodNanos + 1;
+            nextDeadline += missed * periodNanos;
+            overrunCount.add(missed);
+        }
+    }
+
+    /**
+     * 连接恢复后重新上报所有标签，作为中断后的新基准
+     */
+    void requestResync() {
+        resync = true;
+    }
+
+    /**
+     * 下一周期立即执行，只能在从调度队列移除成功后、重新入队前调用，此时定时线程不会访问本扫描组
+     */
+    void rescheduleNow() {
+        lastStart = 0;
+        nextDeadline = System.nanoTime();
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(nextDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof ScanClass) {
+            return Long.signum(nextDeadline - ((ScanClass) other).nextDeadline);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * 设备ID
+     */
+    public long getDeviceId() {
+        return session.getDeviceId();
+    }
+
+    /**
+     * 当前生效的扫描周期(毫秒)，PLC响应变慢时由自适应调节延长，不小于请求的扫描周期
+     */
+    public int getEffectiveRate() {
+        return effectiveRate;
+    }
+
+    /**
+     * 是否因PLC负载被延长了扫描周期
+     */
+    public boolean isThrottled() {
+        return effectiveRate > scanRate;
+    }
+
+    /**
+     * 修改生效的扫描周期，从下一个截止时间起生效
+     *
+     * @param rate 扫描周期(毫秒)，不小于请求的扫描周期
+     */
+    void setEffectiveRate(int rate) {
+        int bounded = Math.max(rate, scanRate);
+        periodNanos = TimeUnit.MILLISECONDS.toNanos(bounded);
+        effectiveRate = bounded;
+    }
+
+    /**
+     * 实际扫描周期(毫秒)，尚未执行两个周期时为0
+     */
+    public double getAchievedRateMillis() {
+        return averagePeriodNanos / 1_000_000.0;
+    }
+
+    /**
+     * 最近一个周期的读取耗时(毫秒)
+     */
+    public double getLastDurationMillis() {
+        return lastDurationNanos / 1_000_000.0;
+    }
+
+    /**
+     * 最近一次读取未发生通信失败的时间戳(毫秒)，尚未成功时为0
+     */
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    public long getCycleCount() {
+        return cycleCount.sum();
+    }
+
+    public long getOverrunCount() {
+        return overrunCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ScanClass[device=%d, rate=%dms, effective=%dms, tags=%d, achieved=%.2fms, overruns=%d]",
+                getDeviceId(), scanRate, effectiveRate, tags.size(), getAchievedRateMillis(), getOverrunCount());
+    }
+}
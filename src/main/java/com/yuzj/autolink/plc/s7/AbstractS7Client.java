@@ -0,0 +1,1023 @@
+package com.yuzj.autolink.plc.s7;
+
+import com.yuzj.autolink.plc.address.PlcArea;
+import com.yuzj.autolink.plc.trace.PlcTrace;
+import com.yuzj.autolink.plc.trace.TraceStage;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.yuzj.autolink.plc.s7.S7Protocol.*;
+
+/**
+ * S7客户端协议实现
+ * 负责报文编解码、COTP连接与PDU协商、数据项打包拆分以及流水线作业调度:
+ * 在途请求数不超过协商的最大并行作业数(AmQ)，响应按PDU引用号匹配回对应请求。
+ * 并发调用产生的作业按优先级进入各自通道的等待队列，有空闲作业槽时选择优先级最高(含老化提升)的通道，
+ * 将其队首连续的同类作业合并为一个多项请求，直到PDU装满，响应再按数据项分发回各调用方。
+ * 子类只负责传输层，发送时调用{@link #transmit(ByteBuffer)}，收到完整TPKT报文后回调{@link #onFrame(ByteBuffer, int)}
+ *
+ * @author yuzj002
+ */
+@Slf4j
+abstract class AbstractS7Client implements S7Client {
+
+    /**
+     * 请求的最大并行作业数
+     */
+    static final int REQUESTED_MAX_AMQ = 8;
+
+    /**
+     * 单个TPKT报文的最大长度
+     */
+    static final int MAX_FRAME_LENGTH = ISO_HEADER_LENGTH + MAX_PDU_SIZE;
+
+    private static final int STATE_CLOSED = 0;
+    private static final int STATE_CONNECTING = 1;
+    private static final int STATE_SETUP = 2;
+    private static final int STATE_READY = 3;
+
+    /**
+     * 等待作业每经过该时间提升一个优先级
+     */
+    private static final long AGING_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * 合并窗口定时器，所有连接共用，只在设置了合并窗口时创建线程
+     */
+    private static final ScheduledExecutorService BATCH_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "S7-Batch-Timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    protected final String host;
+    protected final int port;
+    protected final int rack;
+    protected final int slot;
+    protected final int timeout;
+
+    /**
+     * 发送缓冲区，在sendLock保护下复用
+     */
+    private final ByteBuffer tx;
+
+    private final Object sendLock = new Object();
+
+    /**
+     * 各优先级通道等待发送的作业，下标为优先级序号
+     */
+    private final List<ArrayDeque<Job>> lanes = newLanes();
+
+    /**
+     * 各优先级通道等待发送的调用数，一次调用拆分出的多个作业只计一次，下标为优先级序号
+     */
+    private final int[] queuedCalls = new int[RequestPriority.values().length];
+
+    /**
+     * 所有通道等待发送的作业数
+     */
+    private int pendingCount;
+
+    /**
+     * 已发送等待响应的请求，键为PDU引用号
+     */
+    private final Map<Integer, Request> inFlight = new HashMap<>();
+
+    private volatile int state = STATE_CLOSED;
+    private CompletableFuture<Void> handshake;
+    private int setupReference;
+    private int pduReference;
+    private boolean dispatchScheduled;
+
+    /**
+     * 合并窗口(纳秒)，为0时只合并发送时已在队列中的作业
+     */
+    private volatile long batchWindowNanos;
+
+    /**
+     * 建立连接的总时限(毫秒)，TCP连接、COTP连接和S7通信参数协商共用
+     */
+    private volatile int connectTimeout;
+
+    /**
+     * 本次连接的截止时间(纳秒)
+     */
+    private volatile long connectDeadline;
+
+    /**
+     * 协商后的PDU大小
+     */
+    @Getter
+    private volatile int pduSize = MIN_PDU_SIZE;
+
+    /**
+     * 协商后主叫方最大并行作业数
+     */
+    @Getter
+    private volatile int maxAmqCalling = 1;
+
+    /**
+     * 协商后被叫方最大并行作业数
+     */
+    @Getter
+    private volatile int maxAmqCalled = 1;
+
+    /**
+     * 报文流量统计，未设置时不统计
+     */
+    private volatile S7TrafficCounter traffic;
+
+    /**
+     * 所属设备ID，用于跟踪事件
+     */
+    private volatile long deviceId = PlcTrace.NO_DEVICE;
+
+    AbstractS7Client(String host, int port, int rack, int slot, int timeout, ByteBuffer tx) {
+        this.host = host;
+        this.port = port;
+        this.rack = rack;
+        this.slot = slot;
+        this.timeout = timeout;
+        this.connectTimeout = timeout;
+        this.tx = tx;
+    }
+
+    /**
+     * 设置报文流量统计，须在连接前设置
+     */
+    public void setTrafficCounter(S7TrafficCounter traffic) {
+        this.traffic = traffic;
+    }
+
+    /**
+     * 设置合并窗口: 有空闲并行作业槽且队首请求未装满时，最早的作业最多等待该时间，
+     * 期间到达的作业合并到同一请求中发送
+     *
+     * @param micros 合并窗口(微秒)，为0时不等待
+     */
+    public void setBatchWindow(long micros) {
+        this.batchWindowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(micros, 0));
+    }
+
+    /**
+     * 设置建立连接的总时限，未设置时与请求超时相同
+     *
+     * @param millis 总时限(毫秒)，不大于0时忽略
+     */
+    public void setConnectTimeout(int millis) {
+        if (millis > 0) {
+            this.connectTimeout = millis;
+        }
+    }
+
+    /**
+     * 本次连接剩余的时限(毫秒)，供传输层建立TCP连接时使用，至少为1
+     */
+    protected int remainingConnectMillis() {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(connectDeadline - System.nanoTime());
+        return (int) Math.max(1, Math.min(remaining, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 设置所属设备ID，用于跟踪事件
+     */
+    public void setDeviceId(long deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * 建立传输层连接，连接建立后须调用{@link #startHandshake()}；阻塞等待时不应超过{@link #remainingConnectMillis()}
+     */
+    protected abstract void openTransport() throws IOException;
+
+    /**
+     * 发送一个完整报文，数据位于frame的[0, limit)区间，调用时已持有发送锁
+     */
+    protected abstract void transmit(ByteBuffer frame) throws IOException;
+
+    /**
+     * 关闭传输层连接
+     */
+    protected abstract void closeTransport();
+
+    /**
+     * 在同一个套接字上依次完成TCP连接、COTP连接和S7通信参数协商，全部步骤共用一个总时限，
+     * 主机不可达时由TCP连接直接失败，不再单独探测
+     */
+    @Override
+    public synchronized void connect() throws IOException {
+        close();
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        synchronized (sendLock) {
+            handshake = ready;
+            state = STATE_CONNECTING;
+        }
+        connectDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeout);
+        try {
+            openTransport();
+            ready.get(Math.max(connectDeadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            SocketTimeoutException timeoutException = new SocketTimeoutException(
+                    "S7连接超时(" + connectTimeout + "ms): " + host + ":" + port);
+            abort(timeoutException);
+            throw timeoutException;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(new InterruptedIOException("S7连接被中断"));
+            throw new InterruptedIOException("S7连接被中断");
+        } catch (ExecutionException e) {
+            throw asIOException(e.getCause());
+        } catch (IOException e) {
+            abort(e);
+            throw e;
+        }
+        log.debug("S7通信参数协商完成: {}:{}, pduSize={}, maxAmqCalling={}, maxAmqCalled={}",
+                host, port, pduSize, maxAmqCalling, maxAmqCalled);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return state == STATE_READY;
+    }
+
+    /**
+     * 是否已关闭，传输层在阻塞建立连接前先登记套接字再检查该状态，连接过程中被关闭时由{@link #closeTransport()}中断
+     */
+    protected final boolean isClosed() {
+        return state == STATE_CLOSED;
+    }
+
+    @Override
+    public void close() {
+        if (state != STATE_CLOSED) {
+            abort(new IOException("S7连接已关闭"));
+        }
+    }
+
+    @Override
+    public int getPendingJobs() {
+        synchronized (sendLock) {
+            return pendingCount + inFlight.size();
+        }
+    }
+
+    @Override
+    public void read(List<S7Item> items) throws IOException {
+        S7Client.await(readAsync(items));
+    }
+
+    @Override
+    public void write(List<S7Item> items) throws IOException {
+        S7Client.await(writeAsync(items));
+    }
+
+    @Override
+    public CompletableFuture<Void> readAsync(List<S7Item> items, RequestPriority priority) {
+        return submit(FUNC_READ_VAR, priority, items, maxReadItemLength(pduSize));
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(List<S7Item> items, RequestPriority priority) {
+        return submit(FUNC_WRITE_VAR, priority, items, maxWriteItemLength(pduSize));
+    }
+
+    /**
+     * 将数据项按单个请求的容量划分为作业并加入对应通道的等待队列。通道容量按调用计算，
+     * 超过PDU容量的数据项拆分出的作业整体入队，通道已满时整个调用失败
+     *
+     * @param maxLength 单个数据项的最大长度，超过的拆分为多个子数据项
+     */
+    private CompletableFuture<Void> submit(int function, RequestPriority priority, List<S7Item> items, int maxLength) {
+        List<S7Item> requestItems = split(items, maxLength);
+        boolean split = requestItems != items;
+        List<Job> jobs = new ArrayList<>(2);
+        int from = 0;
+        while (from < requestItems.size()) {
+            int to = pack(function, requestItems, from);
+            jobs.add(new Job(function, priority, requestItems, from, to));
+            from = to;
+        }
+        if (jobs.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        jobs.get(jobs.size() - 1).last = true;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[jobs.size()];
+        long now = System.nanoTime();
+        synchronized (sendLock) {
+            int ordinal = priority.ordinal();
+            if (state != STATE_READY || queuedCalls[ordinal] >= priority.getQueueCapacity()) {
+                CompletableFuture<Void> future = new CompletableFuture<>();
+                future.completeExceptionally(new IOException(state != STATE_READY ? "S7连接未建立"
+                        : "S7请求队列已满: " + priority.getDisplayName()));
+                return future;
+            }
+            ArrayDeque<Job> lane = lanes.get(ordinal);
+            for (int i = 0; i < futures.length; i++) {
+                Job job = jobs.get(i);
+                job.enqueued = now;
+                lane.add(job);
+                futures[i] = job.future;
+            }
+            pendingCount += jobs.size();
+            queuedCalls[ordinal]++;
+        }
+        dispatch();
+        if (futures.length == 1 && !split) {
+            // 常见的单作业调用直接返回作业的Future，不再组合
+            return jobs.get(0).future;
+        }
+        return CompletableFuture.allOf(futures).thenRun(() -> mergeSplitResults(requestItems));
+    }
+
+    /**
+     * 在并行作业数允许的范围内合并并发送等待中的作业
+     */
+    private void dispatch() {
+        IOException failure = null;
+        synchronized (sendLock) {
+            while (state == STATE_READY && inFlight.size() < maxAmqCalling && pendingCount > 0) {
+                Request request = nextRequest();
+                if (request == null) {
+                    break;
+                }
+                request.reference = nextPduReference();
+                request.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+                request.traceStart = PlcTrace.begin();
+                request.traceEvent = PlcTrace.beginEvent(request.function == FUNC_READ_VAR
+                        ? TraceStage.S7_READ : TraceStage.S7_WRITE);
+                inFlight.put(request.reference, request);
+                try {
+                    if (request.function == FUNC_READ_VAR) {
+                        encodeReadVar(request);
+                    } else {
+                        encodeWriteVar(request);
+                    }
+                    sendFrame();
+                } catch (IOException e) {
+                    failure = e;
+                    break;
+                }
+                S7TrafficCounter counter = traffic;
+                if (counter != null) {
+                    counter.recordRequest(request.jobs.size());
+                }
+            }
+        }
+        if (failure != null) {
+            // 发送失败后报文可能错位，关闭连接
+            abort(failure);
+        }
+    }
+
+    /**
+     * 从选中通道的队首取出功能码相同的连续作业合并为一个请求，直到PDU装满或遇到不同功能码的作业，
+     * 不跨越读写交替的位置以保持调用顺序。设置了合并窗口且请求未装满时，最早的作业等待到窗口结束再发送，
+     * 写入通道不等待
+     *
+     * @return 合并后的请求，需要继续等待时返回null
+     */
+    private Request nextRequest() {
+        long now = System.nanoTime();
+        ArrayDeque<Job> lane = selectLane(now);
+        Job head = lane.peek();
+        PduBudget budget = new PduBudget(head.function, pduSize);
+        int count = 0;
+        boolean closed = false;
+        for (Job job : lane) {
+            if (job.function != head.function || !budget.tryAdd(job.items, job.from, job.to)) {
+                closed = true;
+                break;
+            }
+            count++;
+        }
+        long window = batchWindowNanos;
+        if (!closed && window > 0 && head.priority != RequestPriority.WRITE) {
+            long wait = head.enqueued + window - now;
+            if (wait > 0) {
+                scheduleDispatch(wait);
+                return null;
+            }
+        }
+        S7TrafficCounter counter = traffic;
+        Request request = new Request(head.function);
+        for (int i = 0; i < count; i++) {
+            Job job = lane.poll();
+            if (job.last) {
+                // 同一调用的作业在通道中连续排列，最后一个作业出队时该调用离开通道
+                queuedCalls[job.priority.ordinal()]--;
+            }
+            if (counter != null) {
+                counter.recordQueueWait(job.priority, now - job.enqueued);
+            }
+            request.add(job);
+        }
+        pendingCount -= count;
+        return request;
+    }
+
+    /**
+     * 选择下一个发送的通道: 通道优先级序号减去队首作业的老化级数，值小者优先，相同时优先级高的通道优先。
+     * 作业每等待{@link #AGING_NANOS}提升一级，最高提升到写入通道同级，因此写入最多等待一个在途请求完成
+     */
+    private ArrayDeque<Job> selectLane(long now) {
+        ArrayDeque<Job> selected = null;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < lanes.size(); i++) {
+            Job head = lanes.get(i).peek();
+            if (head == null) {
+                continue;
+            }
+            long rank = Math.max(0, i - (now - head.enqueued) / AGING_NANOS);
+            if (rank < best) {
+                best = rank;
+                selected = lanes.get(i);
+            }
+        }
+        return selected;
+    }
+
+    private static List<ArrayDeque<Job>> newLanes() {
+        int count = RequestPriority.values().length;
+        List<ArrayDeque<Job>> lanes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lanes.add(new ArrayDeque<>());
+        }
+        return lanes;
+    }
+
+    /**
+     * 合并窗口结束时重新发送，调用时已持有发送锁
+     */
+    private void scheduleDispatch(long delayNanos) {
+        if (dispatchScheduled) {
+            return;
+        }
+        dispatchScheduled = true;
+        BATCH_TIMER.schedule(() -> {
+            synchronized (sendLock) {
+                dispatchScheduled = false;
+            }
+            dispatch();
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 传输层连接建立后发送COTP连接请求
+     */
+    protected final void startHandshake() throws IOException {
+        synchronized (sendLock) {
+            if (state != STATE_CONNECTING) {
+                return;
+            }
+            tx.clear();
+            tx.position(TPKT_HEADER_LENGTH);
+            tx.put((byte) 0x11);
+            tx.put((byte) COTP_CONNECTION_REQUEST);
+            tx.putShort((short) 0x0000);
+            tx.putShort((short) 0x0001);
+            tx.put((byte) 0x00);
+            // TPDU大小 1024
+            tx.put((byte) 0xC0).put((byte) 0x01).put((byte) 0x0A);
+            // 本地TSAP
+            tx.put((byte) 0xC1).put((byte) 0x02).putShort((short) 0x0100);
+            // 远端TSAP: 机架号和插槽号
+            tx.put((byte) 0xC2).put((byte) 0x02).put((byte) 0x03).put((byte) ((rack << 5) | slot));
+            sendFrame();
+        }
+    }
+
+    /**
+     * 处理收到的完整TPKT报文，报文位于rx的[0, length)区间
+     *
+     * @throws IOException 报文错误，调用方应关闭连接
+     */
+    protected final void onFrame(ByteBuffer rx, int length) throws IOException {
+        S7TrafficCounter counter = traffic;
+        if (counter != null) {
+            counter.recordReceived(length);
+        }
+        int current = state;
+        if (current == STATE_CONNECTING) {
+            if (length < 6 || (rx.get(5) & 0xFF) != COTP_CONNECTION_CONFIRM) {
+                throw new IOException("COTP连接被拒绝: rack=" + rack + ", slot=" + slot);
+            }
+            sendSetupCommunication();
+            return;
+        }
+        if (current == STATE_SETUP) {
+            int param = checkAck(rx, length, setupReference, FUNC_SETUP_COMMUNICATION);
+            int negotiatedPdu = u16(rx, param + 6);
+            if (negotiatedPdu < JOB_HEADER_LENGTH + VAR_PARAM_HEADER_LENGTH + VAR_ITEM_SPEC_LENGTH + ITEM_DATA_HEADER_LENGTH + 1
+                    || negotiatedPdu > MAX_PDU_SIZE) {
+                throw new IOException("PLC协商的PDU大小无效: " + negotiatedPdu);
+            }
+            CompletableFuture<Void> ready;
+            synchronized (sendLock) {
+                maxAmqCalling = Math.min(REQUESTED_MAX_AMQ, Math.max(1, u16(rx, param + 2)));
+                maxAmqCalled = Math.max(1, u16(rx, param + 4));
+                pduSize = negotiatedPdu;
+                state = STATE_READY;
+                ready = handshake;
+            }
+            ready.complete(null);
+            return;
+        }
+        if (current != STATE_READY) {
+            return;
+        }
+
+        int reference = u16(rx, ISO_HEADER_LENGTH + 4);
+        Request request;
+        synchronized (sendLock) {
+            request = inFlight.remove(reference);
+        }
+        if (request == null) {
+            log.warn("收到未知PDU引用的响应: {}", reference);
+            return;
+        }
+        try {
+            int param = checkAck(rx, length, request.reference, request.function);
+            if (request.function == FUNC_READ_VAR) {
+                parseReadVar(rx, length, request, param);
+            } else {
+                parseWriteVar(rx, length, request, param);
+            }
+            request.complete(null);
+        } catch (IOException e) {
+            request.complete(e);
+        }
+        if (request.traceStart != 0L || request.traceEvent != null) {
+            trace(request);
+        }
+        dispatch();
+    }
+
+    /**
+     * 检查在途作业是否超时
+     *
+     * @throws SocketTimeoutException 有作业等待响应超时，调用方应关闭连接
+     */
+    protected final void checkDeadlines() throws SocketTimeoutException {
+        long now = System.nanoTime();
+        synchronized (sendLock) {
+            for (Request request : inFlight.values()) {
+                if (now - request.deadline > 0) {
+                    throw new SocketTimeoutException("S7响应超时: PDU引用=" + request.reference);
+                }
+            }
+        }
+    }
+
+    /**
+     * 关闭连接并以异常结束握手和所有未完成的作业
+     */
+    protected final void abort(IOException cause) {
+        List<Job> failed;
+        CompletableFuture<Void> ready;
+        synchronized (sendLock) {
+            if (state == STATE_CLOSED) {
+                return;
+            }
+            state = STATE_CLOSED;
+            ready = handshake;
+            failed = new ArrayList<>(pendingCount);
+            for (ArrayDeque<Job> lane : lanes) {
+                failed.addAll(lane);
+                lane.clear();
+            }
+            Arrays.fill(queuedCalls, 0);
+            pendingCount = 0;
+            for (Request request : inFlight.values()) {
+                failed.addAll(request.jobs);
+            }
+            inFlight.clear();
+        }
+        closeTransport();
+        if (ready != null) {
+            ready.completeExceptionally(cause);
+        }
+        for (Job job : failed) {
+            job.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 通信设置，协商PDU大小和并行作业数
+     */
+    private void sendSetupCommunication() throws IOException {
+        synchronized (sendLock) {
+            setupReference = nextPduReference();
+            beginJob(setupReference, SETUP_PARAM_LENGTH, 0);
+            tx.put((byte) FUNC_SETUP_COMMUNICATION).put((byte) 0x00);
+            tx.putShort((short) REQUESTED_MAX_AMQ);
+            tx.putShort((short) REQUESTED_MAX_AMQ);
+            tx.putShort((short) MAX_PDU_SIZE);
+            sendFrame();
+            state = STATE_SETUP;
+        }
+    }
+
+    /**
+     * 从from开始尽量多地将数据项装入一个请求
+     *
+     * @return 本次请求的结束下标(不含)
+     */
+    private int pack(int function, List<S7Item> items, int from) {
+        PduBudget budget = new PduBudget(function, pduSize);
+        int to = from;
+        while (to < items.size() && budget.tryAdd(items, to, to + 1)) {
+            to++;
+        }
+        return to;
+    }
+
+    private void encodeReadVar(Request request) {
+        List<S7Item> items = request.items;
+        beginJob(request.reference, VAR_PARAM_HEADER_LENGTH + items.size() * VAR_ITEM_SPEC_LENGTH, 0);
+        tx.put((byte) FUNC_READ_VAR).put((byte) items.size());
+        for (S7Item item : items) {
+            putItemSpec(item);
+        }
+    }
+
+    private void parseReadVar(ByteBuffer rx, int end, Request request, int param) throws IOException {
+        List<S7Item> items = request.items;
+        int count = items.size();
+        if ((rx.get(param + 1) & 0xFF) != count) {
+            throw new IOException("ReadVar响应数据项数量不匹配: 请求" + count + "个, 返回" + (rx.get(param + 1) & 0xFF) + "个");
+        }
+        int pos = param + u16(rx, ISO_HEADER_LENGTH + 6);
+        for (int i = 0; i < count; i++) {
+            S7Item item = items.get(i);
+            if (pos + ITEM_DATA_HEADER_LENGTH > end) {
+                throw new IOException("ReadVar响应数据不完整");
+            }
+            int returnCode = rx.get(pos) & 0xFF;
+            int dataLength = dataLength(rx.get(pos + 1) & 0xFF, u16(rx, pos + 2));
+            pos += ITEM_DATA_HEADER_LENGTH;
+            if (pos + dataLength > end) {
+                throw new IOException("ReadVar响应数据不完整");
+            }
+            if (returnCode == RETURN_CODE_SUCCESS) {
+                if (dataLength < item.getLength()) {
+                    returnCode = RETURN_CODE_DATA_TYPE_INCONSISTENT;
+                } else {
+                    copyIn(rx, pos, item);
+                }
+            }
+            item.setReturnCode(returnCode);
+            pos += dataLength;
+            if ((dataLength & 1) != 0 && i < count - 1) {
+                pos++;
+            }
+        }
+    }
+
+    private void encodeWriteVar(Request request) {
+        List<S7Item> items = request.items;
+        int count = items.size();
+        int dataLength = 0;
+        for (S7Item item : items) {
+            dataLength += itemDataSize(item.getLength());
+        }
+        if ((items.get(count - 1).getLength() & 1) != 0) {
+            // 最后一项不填充
+            dataLength--;
+        }
+        beginJob(request.reference, VAR_PARAM_HEADER_LENGTH + count * VAR_ITEM_SPEC_LENGTH, dataLength);
+        tx.put((byte) FUNC_WRITE_VAR).put((byte) count);
+        for (S7Item item : items) {
+            putItemSpec(item);
+        }
+        for (int i = 0; i < count; i++) {
+            S7Item item = items.get(i);
+            tx.put((byte) 0x00);
+            if (item.isBitAccess()) {
+                tx.put((byte) DATA_TRANSPORT_BIT).putShort((short) 1);
+            } else {
+                tx.put((byte) DATA_TRANSPORT_BYTE).putShort((short) (item.getLength() << 3));
+            }
+            copyOut(item);
+            if ((item.getLength() & 1) != 0 && i < count - 1) {
+                tx.put((byte) 0x00);
+            }
+        }
+    }
+
+    private void parseWriteVar(ByteBuffer rx, int end, Request request, int param) throws IOException {
+        List<S7Item> items = request.items;
+        int count = items.size();
+        if ((rx.get(param + 1) & 0xFF) != count) {
+            throw new IOException("WriteVar响应数据项数量不匹配: 请求" + count + "个, 返回" + (rx.get(param + 1) & 0xFF) + "个");
+        }
+        int pos = param + u16(rx, ISO_HEADER_LENGTH + 6);
+        if (pos + count > end) {
+            throw new IOException("WriteVar响应数据不完整");
+        }
+        for (S7Item item : items) {
+            item.setReturnCode(rx.get(pos++) & 0xFF);
+        }
+    }
+
+    private void trace(Request request) {
+        S7Item first = request.items.get(0);
+        int db = first.getArea() == PlcArea.DB ? first.getDbNumber() : PlcTrace.NO_DB;
+        int bytes = 0;
+        for (S7Item item : request.items) {
+            bytes += item.getLength();
+            if (item.getArea() != PlcArea.DB || item.getDbNumber() != db) {
+                db = PlcTrace.NO_DB;
+            }
+        }
+        PlcTrace.end(request.function == FUNC_READ_VAR ? TraceStage.S7_READ : TraceStage.S7_WRITE,
+                deviceId, db, bytes, request.items.size(), request.traceStart, request.traceEvent);
+    }
+
+    private void putItemSpec(S7Item item) {
+        tx.put((byte) 0x12).put((byte) 0x0A).put((byte) 0x10);
+        tx.put((byte) (item.isBitAccess() ? TRANSPORT_SIZE_BIT : TRANSPORT_SIZE_BYTE));
+        tx.putShort((short) item.getLength());
+        tx.putShort((short) item.getDbNumber());
+        tx.put((byte) item.getArea().getAreaCode());
+        int address = item.isBitAccess() ? item.bitAddress() : item.getByteOffset() << 3;
+        tx.put((byte) (address >> 16)).put((byte) (address >> 8)).put((byte) address);
+    }
+
+    /**
+     * 按绝对位置复制，不改变两个缓冲区的位置，也不创建视图
+     */
+    private static void copyIn(ByteBuffer rx, int pos, S7Item item) {
+        ByteBuffer dst = item.getBuffer();
+        int offset = item.getBufferOffset();
+        int length = item.getLength();
+        if (rx.hasArray() && dst.hasArray()) {
+            System.arraycopy(rx.array(), rx.arrayOffset() + pos, dst.array(), dst.arrayOffset() + offset, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            dst.put(offset + i, rx.get(pos + i));
+        }
+    }
+
+    private void copyOut(S7Item item) {
+        ByteBuffer src = item.getBuffer();
+        int offset = item.getBufferOffset();
+        int length = item.getLength();
+        if (src.hasArray()) {
+            tx.put(src.array(), src.arrayOffset() + offset, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            tx.put(src.get(offset + i));
+        }
+    }
+
+    /**
+     * 将超过单个PDU容量的数据项拆分为多个子数据项
+     */
+    private static List<S7Item> split(List<S7Item> items, int maxLength) {
+        boolean oversized = false;
+        for (S7Item item : items) {
+            if (item.getLength() > maxLength) {
+                oversized = true;
+                break;
+            }
+        }
+        if (!oversized) {
+            return items;
+        }
+        List<S7Item> result = new ArrayList<>(items.size() + 4);
+        for (S7Item item : items) {
+            if (item.getLength() <= maxLength) {
+                result.add(item);
+                continue;
+            }
+            item.setReturnCode(RETURN_CODE_SUCCESS);
+            for (int offset = 0; offset < item.getLength(); offset += maxLength) {
+                result.add(item.slice(offset, Math.min(maxLength, item.getLength() - offset)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 子数据项失败时将返回码回填到原始数据项
+     */
+    private static void mergeSplitResults(List<S7Item> requestItems) {
+        for (S7Item item : requestItems) {
+            if (item.parent != null && !item.isSuccess() && item.parent.isSuccess()) {
+                item.parent.setReturnCode(item.getReturnCode());
+            }
+        }
+    }
+
+    private void beginJob(int reference, int paramLength, int dataLength) {
+        tx.clear();
+        tx.position(TPKT_HEADER_LENGTH);
+        tx.put((byte) 0x02).put((byte) COTP_DATA).put((byte) COTP_EOT);
+        tx.put((byte) PROTOCOL_ID).put((byte) ROSCTR_JOB);
+        tx.putShort((short) 0x0000);
+        tx.putShort((short) reference);
+        tx.putShort((short) paramLength);
+        tx.putShort((short) dataLength);
+    }
+
+    private void sendFrame() throws IOException {
+        int length = tx.position();
+        tx.put(0, (byte) TPKT_VERSION);
+        tx.put(1, (byte) 0x00);
+        tx.putShort(2, (short) length);
+        tx.flip();
+        transmit(tx);
+        S7TrafficCounter counter = traffic;
+        if (counter != null) {
+            counter.recordSent(length);
+        }
+    }
+
+    /**
+     * 校验确认报文
+     *
+     * @return 参数区起始位置
+     */
+    private static int checkAck(ByteBuffer rx, int length, int reference, int function) throws IOException {
+        int header = ISO_HEADER_LENGTH;
+        if (length < header + ACK_HEADER_LENGTH + 1 || (rx.get(5) & 0xFF) != COTP_DATA
+                || (rx.get(header) & 0xFF) != PROTOCOL_ID) {
+            throw new IOException("无效的S7响应报文");
+        }
+        // 通信设置和ReadVar/WriteVar只应以ACK_DATA应答，错误类别和错误代码位于其12字节报文头的末尾；
+        // 其他类型(包括不带数据的ACK)报文头长度不同，按协议错误处理
+        int rosctr = rx.get(header + 1) & 0xFF;
+        if (rosctr != ROSCTR_ACK_DATA) {
+            throw new IOException("非预期的S7报文类型: 0x" + Integer.toHexString(rosctr));
+        }
+        if (u16(rx, header + 4) != reference) {
+            throw new IOException("PDU引用不匹配: 期望" + reference + ", 实际" + u16(rx, header + 4));
+        }
+        int errorClass = rx.get(header + 10) & 0xFF;
+        int errorCode = rx.get(header + 11) & 0xFF;
+        if (errorClass != 0 || errorCode != 0) {
+            throw new IOException(String.format("S7请求被拒绝: 错误类别=0x%02X, 错误代码=0x%02X", errorClass, errorCode));
+        }
+        int param = header + ACK_HEADER_LENGTH;
+        if ((rx.get(param) & 0xFF) != function) {
+            throw new IOException("响应功能码不匹配: 期望0x" + Integer.toHexString(function)
+                    + ", 实际0x" + Integer.toHexString(rx.get(param) & 0xFF));
+        }
+        return param;
+    }
+
+    /**
+     * 校验TPKT报文头并返回报文长度
+     */
+    static int frameLength(ByteBuffer rx) throws IOException {
+        if ((rx.get(0) & 0xFF) != TPKT_VERSION) {
+            throw new IOException("无效的TPKT报文头");
+        }
+        int length = u16(rx, 2);
+        if (length <= TPKT_HEADER_LENGTH || length > MAX_FRAME_LENGTH) {
+            throw new IOException("TPKT报文长度异常: " + length);
+        }
+        return length;
+    }
+
+    private int nextPduReference() {
+        pduReference = (pduReference + 1) & 0xFFFF;
+        return pduReference;
+    }
+
+    static int u16(ByteBuffer buffer, int pos) {
+        return ((buffer.get(pos) & 0xFF) << 8) | (buffer.get(pos + 1) & 0xFF);
+    }
+
+    private static IOException asIOException(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause.getMessage(), cause);
+    }
+
+    /**
+     * 一次调用产生的作业，对应调用数据项列表中的[from, to)区间，不超过单个请求的容量
+     */
+    private static final class Job {
+        final int function;
+        final RequestPriority priority;
+        final List<S7Item> items;
+        final int from;
+        final int to;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        long enqueued;
+
+        /**
+         * 是否为所属调用的最后一个作业
+         */
+        boolean last;
+
+        Job(int function, RequestPriority priority, List<S7Item> items, int from, int to) {
+            this.function = function;
+            this.priority = priority;
+            this.items = items;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * 一个ReadVar/WriteVar请求报文，由一个或多个作业合并而成
+     */
+    private static final class Request {
+        final int function;
+        final List<S7Item> items = new ArrayList<>();
+        final List<Job> jobs = new ArrayList<>(2);
+        int reference;
+        long deadline;
+        long traceStart;
+        Object traceEvent;
+
+        Request(int function) {
+            this.function = function;
+        }
+
+        void add(Job job) {
+            jobs.add(job);
+            items.addAll(job.items.subList(job.from, job.to));
+        }
+
+        /**
+         * 结束所有作业，数据项各自的返回码已在解析响应时设置
+         *
+         * @param error 报文级错误，成功时为null
+         */
+        void complete(IOException error) {
+            for (Job job : jobs) {
+                if (error == null) {
+                    job.future.complete(null);
+                } else {
+                    job.future.completeExceptionally(error);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个请求的容量，请求和响应报文都不能超过PDU大小，数据项数不超过单个请求的上限
+     */
+    private static final class PduBudget {
+        private final int function;
+        private final int pduSize;
+        private int requestSize = JOB_HEADER_LENGTH + VAR_PARAM_HEADER_LENGTH;
+        private int responseSize = ACK_HEADER_LENGTH + VAR_PARAM_HEADER_LENGTH;
+        private int count;
+
+        PduBudget(int function, int pduSize) {
+            this.function = function;
+            this.pduSize = pduSize;
+        }
+
+        /**
+         * 数据项[from, to)能全部装入时计入容量
+         *
+         * @return 是否装入
+         */
+        boolean tryAdd(List<S7Item> items, int from, int to) {
+            int request = requestSize;
+            int response = responseSize;
+            for (int i = from; i < to; i++) {
+                int length = items.get(i).getLength();
+                if (function == FUNC_READ_VAR) {
+                    request += VAR_ITEM_SPEC_LENGTH;
+                    response += itemDataSize(length);
+                } else {
+                    request += VAR_ITEM_SPEC_LENGTH + itemDataSize(length);
+                    response += 1;
+                }
+            }
+            if (count + to - from > MAX_ITEMS_PER_REQUEST || request > pduSize || response > pduSize) {
+                return false;
+            }
+            requestSize = request;
+            responseSize = response;
+            count += to - from;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.yuzj.autolink.plc.s7;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import static com.yuzj.autolink.plc.s7.S7Protocol.TPKT_HEADER_LENGTH;
+
+/**
+ * 基于NIO的非阻塞S7客户端
+ * 所有连接共享一个选择器线程，收发使用复用的直接缓冲区，单个线程即可驱动大量PLC连接
+ *
+ * @author yuzj002
+ */
+@Slf4j
+public class NioS7Client extends AbstractS7Client {
+
+    private final S7Reactor reactor = S7Reactor.shared();
+
+    /**
+     * 接收缓冲区，至少容纳一个完整报文和下一个报文的开头
+     */
+    private final ByteBuffer inbound = ByteBuffer.allocateDirect(MAX_FRAME_LENGTH * 2);
+
+    /**
+     * 发送缓冲区，容纳全部在途作业的请求报文
+     */
+    private final ByteBuffer outbound = ByteBuffer.allocateDirect(MAX_FRAME_LENGTH * (REQUESTED_MAX_AMQ + 2));
+
+    private volatile SocketChannel channel;
+    private volatile SelectionKey key;
+
+    public NioS7Client(String host, int port, int rack, int slot, int timeout) {
+        super(host, port, rack, slot, timeout, ByteBuffer.allocateDirect(MAX_FRAME_LENGTH));
+    }
+
+    @Override
+    protected void openTransport() throws IOException {
+        SocketChannel ch = SocketChannel.open();
+        try {
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            synchronized (outbound) {
+                inbound.clear();
+                outbound.clear();
+            }
+            channel = ch;
+            boolean connected = ch.connect(new InetSocketAddress(host, port));
+            reactor.execute(() -> register(ch, connected));
+        } catch (IOException e) {
+            channel = null;
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 在选择器线程中注册通道
+     */
+    private void register(SocketChannel ch, boolean connected) {
+        if (channel != ch) {
+            return;
+        }
+        try {
+            key = ch.register(reactor.selector(), connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+            if (connected) {
+                startHandshake();
+            }
+        } catch (IOException e) {
+            abort(e);
+        }
+    }
+
+    /**
+     * 处理选择器事件，在选择器线程中调用
+     */
+    void handleEvent(SelectionKey selectionKey) {
+        SocketChannel ch = channel;
+        if (ch == null) {
+            selectionKey.cancel();
+            return;
+        }
+        try {
+            if (selectionKey.isConnectable()) {
+                if (!ch.finishConnect()) {
+                    // 连接尚未完成，保留OP_CONNECT等待下次就绪
+                    return;
+                }
+                selectionKey.interestOps(SelectionKey.OP_READ);
+                startHandshake();
+                return;
+            }
+            if (selectionKey.isReadable()) {
+                if (ch.read(inbound) < 0) {
+                    throw new EOFException("PLC已关闭连接");
+                }
+                processInbound();
+            }
+            if (selectionKey.isValid() && selectionKey.isWritable()) {
+                synchronized (outbound) {
+                    if (flush(ch)) {
+                        selectionKey.interestOps(SelectionKey.OP_READ);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("S7连接异常: {}:{} - {}", host, port, e.getMessage());
+            abort(e);
+        } catch (RuntimeException e) {
+            // 未检查异常同样终止连接，否则只被选择器线程兜底记录，连接和等待中的调用一直挂起到超时
+            log.warn("S7连接异常: {}:{} - {}", host, port, e.toString());
+            abort(new IOException("S7连接异常: " + e, e));
+        }
+    }
+
+    /**
+     * 检查作业超时，在选择器线程中调用
+     */
+    void checkTimeout() {
+        try {
+            checkDeadlines();
+        } catch (IOException e) {
+            log.warn("S7连接异常: {}:{} - {}", host, port, e.getMessage());
+            abort(e);
+        }
+    }
+
+    /**
+     * 逐个取出接收缓冲区中的完整报文，报文始终从缓冲区起始位置开始
+     */
+    private void processInbound() throws IOException {
+        while (inbound.position() >= TPKT_HEADER_LENGTH) {
+            int length = frameLength(inbound);
+            if (inbound.position() < length) {
+                break;
+            }
+            onFrame(inbound, length);
+            inbound.flip();
+            inbound.position(length);
+            inbound.compact();
+        }
+    }
+
+    @Override
+    protected void transmit(ByteBuffer frame) throws IOException {
+        synchronized (outbound) {
+            if (outbound.remaining() < frame.remaining()) {
+                throw new IOException("S7发送缓冲区已满");
+            }
+            SocketChannel ch = channel;
+            if (ch == null) {
+                throw new IOException("S7连接已关闭");
+            }
+            outbound.put(frame);
+            if (!flush(ch)) {
+                // 内核发送缓冲区已满，剩余数据等通道可写时发送
+                SelectionKey selectionKey = key;
+                reactor.execute(() -> {
+                    if (selectionKey != null && selectionKey.isValid()) {
+                        selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * 尽量发送缓冲区中的数据，调用时已持有outbound锁
+     *
+     * @param ch 调用方取得的通道，并发关闭时写入抛出ClosedChannelException
+     * @return 是否已全部发送
+     */
+    private boolean flush(SocketChannel ch) throws IOException {
+        outbound.flip();
+        try {
+            ch.write(outbound);
+            return !outbound.hasRemaining();
+        } finally {
+            outbound.compact();
+        }
+    }
+
+    @Override
+    protected void closeTransport() {
+        SocketChannel ch = channel;
+        channel = null;
+        key = null;
+        if (ch != null) {
+            try {
+                ch.close();
+            } catch (IOException e) {
+                log.debug("关闭S7通道时出错: {}", e.getMessage());
+            }
+        }
+    }
+}
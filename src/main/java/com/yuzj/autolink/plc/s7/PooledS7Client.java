@@ -0,0 +1,473 @@
+package com.yuzj.autolink.plc.s7;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * S7连接池
+ * 对同一台PLC建立多条并行连接(S7-1500等CPU支持多个并发连接)，读取分派给负载最低的连接，
+ * 大批量读取按数据量拆分到多条连接上并行执行；写入始终经由下标最小的可用连接，保持调用顺序。
+ * 断开的连接在后台被移除并重建，每个连接位置各自按指数退避重试:
+ * 第n次失败后等待retryInterval×2^min(n, retryCount)毫秒，再在[一半, 全部]之间随机取值。
+ * 共享的维护线程只检查和调度，阻塞的重建在重建线程中执行，每个连接池同时最多一个重建任务，
+ * 不可达的PLC不会拖延其他连接池的重建
+ *
+ * @author yuzj002
+ */
+@Slf4j
+public class PooledS7Client implements S7Client {
+
+    /**
+     * 连接维护线程数，所有连接池共享，只执行不阻塞的检查
+     */
+    private static final int MAINTAINER_THREADS = 2;
+
+    /**
+     * 重建间隔上限(毫秒)
+     */
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    private static ScheduledExecutorService maintainer;
+
+    /**
+     * 重建线程，按需创建，空闲后回收
+     */
+    private static ExecutorService rebuilder;
+
+    private final Supplier<S7Client> factory;
+    private final AtomicReferenceArray<S7Client> members;
+    private final int maintainInterval;
+    private final int retryCount;
+    private final String name;
+
+    /**
+     * 各连接位置连续重建失败的次数，在连接池监视器下访问
+     */
+    private final int[] failures;
+
+    /**
+     * 各连接位置下一次允许重建的时间(纳秒)，在连接池监视器下访问
+     */
+    private final long[] nextAttempts;
+
+    private volatile boolean closed = true;
+    private ScheduledFuture<?> maintainTask;
+
+    /**
+     * connect()中正在建立的连接，关闭连接池时直接关闭，不等待连接时限
+     */
+    private volatile S7Client connecting;
+
+    /**
+     * 每次连接和关闭时递增，后台重建的连接只在代数未变时加入连接池
+     */
+    private long generation;
+
+    /**
+     * 是否有重建任务在执行，在连接池监视器下访问
+     */
+    private boolean rebuilding;
+
+    /**
+     * @param factory          创建单条连接的工厂
+     * @param poolSize         连接数
+     * @param maintainInterval 检查断开连接的间隔，也是重建的初始间隔(毫秒)
+     * @param retryCount       重建间隔翻倍的最大次数
+     * @param name             日志中显示的连接名称
+     */
+    public PooledS7Client(Supplier<S7Client> factory, int poolSize, int maintainInterval, int retryCount, String name) {
+        this.factory = factory;
+        this.members = new AtomicReferenceArray<>(poolSize);
+        this.maintainInterval = Math.max(maintainInterval, 100);
+        this.retryCount = Math.max(retryCount, 0);
+        this.name = name;
+        this.failures = new int[poolSize];
+        this.nextAttempts = new long[poolSize];
+    }
+
+    private static synchronized ScheduledExecutorService maintainer() {
+        if (maintainer == null) {
+            maintainer = Executors.newScheduledThreadPool(MAINTAINER_THREADS, r -> {
+                Thread thread = new Thread(r, "S7-Pool-Maintainer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return maintainer;
+    }
+
+    private static synchronized ExecutorService rebuilder() {
+        if (rebuilder == null) {
+            rebuilder = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "S7-Pool-Rebuild");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return rebuilder;
+    }
+
+    /**
+     * 依次建立所有连接，至少一条连接成功即视为连接成功，其余连接由后台继续重试；
+     * 第一条连接失败时说明PLC不可达，直接失败，不再逐条等待连接时限
+     */
+    @Override
+    public synchronized void connect() throws IOException {
+        close();
+        closed = false;
+        generation++;
+        Arrays.fill(failures, 0);
+        Arrays.fill(nextAttempts, System.nanoTime());
+        IOException failure = null;
+        int connectedCount = 0;
+        for (int i = 0; i < members.length(); i++) {
+            S7Client member = factory.get();
+            connecting = member;
+            try {
+                if (closed) {
+                    throw new IOException("S7连接已关闭");
+                }
+                member.connect();
+                S7Client replaced = members.getAndSet(i, member);
+                if (replaced != null) {
+                    replaced.close();
+                }
+                connectedCount++;
+            } catch (IOException e) {
+                member.close();
+                failure = e;
+                if (connectedCount == 0 || closed) {
+                    break;
+                }
+            } finally {
+                connecting = null;
+            }
+        }
+        if (closed) {
+            // 建立过程中被关闭
+            close();
+            throw new IOException("S7连接已关闭");
+        }
+        if (connectedCount == 0) {
+            closed = true;
+            throw failure;
+        }
+        if (connectedCount < members.length()) {
+            log.warn("S7连接池部分连接失败: {}, 已连接{}/{}, 后台继续重试: {}",
+                    name, connectedCount, members.length(), failure.getMessage());
+        }
+        maintainTask = maintainer().scheduleWithFixedDelay(this::maintain,
+                maintainInterval, maintainInterval, TimeUnit.MILLISECONDS);
+        log.debug("S7连接池已建立: {}, 连接数={}", name, connectedCount);
+    }
+
+    /**
+     * 移除断开的连接，到达重建时间的位置交给重建线程，在维护线程中执行，不阻塞
+     */
+    private void maintain() {
+        long current;
+        int[] due = new int[members.length()];
+        int dueCount = 0;
+        List<S7Client> removed = new ArrayList<>(0);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            current = generation;
+            long now = System.nanoTime();
+            for (int i = 0; i < members.length(); i++) {
+                S7Client member = members.get(i);
+                if (member != null && member.isConnected()) {
+                    continue;
+                }
+                if (member != null && members.compareAndSet(i, member, null)) {
+                    failures[i] = 0;
+                    nextAttempts[i] = now + backoffNanos(0);
+                    removed.add(member);
+                    log.warn("S7连接池移除已断开的连接: {}#{}", name, i);
+                }
+                if (!rebuilding && now - nextAttempts[i] >= 0) {
+                    due[dueCount++] = i;
+                }
+            }
+            rebuilding |= dueCount > 0;
+        }
+        for (S7Client member : removed) {
+            member.close();
+        }
+        if (dueCount > 0) {
+            int[] slots = Arrays.copyOf(due, dueCount);
+            rebuilder().execute(() -> rebuild(current, slots));
+        }
+    }
+
+    /**
+     * 依次重建各连接位置，在重建线程中执行。
+     * 建立连接不持有连接池监视器，加入连接池时在监视器下确认连接池未被关闭或重新连接，否则关闭新连接
+     *
+     * @param current 调度时的连接池代数
+     * @param slots   到达重建时间的连接位置
+     */
+    private void rebuild(long current, int[] slots) {
+        try {
+            for (int i : slots) {
+                synchronized (this) {
+                    if (closed || generation != current) {
+                        return;
+                    }
+                }
+                S7Client fresh = factory.get();
+                IOException failure = null;
+                try {
+                    fresh.connect();
+                } catch (IOException e) {
+                    failure = e;
+                }
+                boolean added = false;
+                synchronized (this) {
+                    if (closed || generation != current) {
+                        fresh.close();
+                        return;
+                    }
+                    if (failure != null) {
+                        long delay = backoffNanos(++failures[i]);
+                        nextAttempts[i] = System.nanoTime() + delay;
+                        log.debug("S7连接池重建连接失败: {}#{}, 第{}次, {}ms后重试 - {}", name, i, failures[i],
+                                TimeUnit.NANOSECONDS.toMillis(delay), failure.getMessage());
+                    } else if (members.compareAndSet(i, null, fresh)) {
+                        failures[i] = 0;
+                        added = true;
+                    }
+                }
+                if (added) {
+                    log.info("S7连接池已重建连接: {}#{}", name, i);
+                } else {
+                    fresh.close();
+                }
+            }
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+            }
+        }
+    }
+
+    /**
+     * 按连续失败次数计算重建间隔，在[一半, 全部]之间随机取值，避免多个连接位置同时重连
+     */
+    private long backoffNanos(int failureCount) {
+        int exponent = Math.min(Math.min(failureCount, retryCount), 16);
+        long delay = Math.min((long) maintainInterval << exponent, MAX_BACKOFF_MILLIS);
+        long jittered = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        return TimeUnit.MILLISECONDS.toNanos(jittered);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !closed && leastLoaded() != null;
+    }
+
+    @Override
+    public int getPduSize() {
+        S7Client member = leastLoaded();
+        return member != null ? member.getPduSize() : S7Protocol.MIN_PDU_SIZE;
+    }
+
+    /**
+     * 各可用连接最大并行作业数之和
+     */
+    @Override
+    public int getMaxAmqCalling() {
+        int total = 0;
+        for (S7Client member : healthyMembers()) {
+            total += member.getMaxAmqCalling();
+        }
+        return Math.max(total, 1);
+    }
+
+    @Override
+    public int getPendingJobs() {
+        int total = 0;
+        for (S7Client member : healthyMembers()) {
+            total += member.getPendingJobs();
+        }
+        return total;
+    }
+
+    /**
+     * 当前可用连接数
+     */
+    public int getActiveConnections() {
+        return healthyMembers().size();
+    }
+
+    @Override
+    public void read(List<S7Item> items) throws IOException {
+        S7Client.await(readAsync(items));
+    }
+
+    @Override
+    public void write(List<S7Item> items) throws IOException {
+        S7Client.await(writeAsync(items));
+    }
+
+    /**
+     * 数据量超过一个PDU时按数据量拆分为连续的几组，分别交给负载最低的几条连接并行读取
+     */
+    @Override
+    public CompletableFuture<Void> readAsync(List<S7Item> items, RequestPriority priority) {
+        List<S7Client> healthy = healthyMembers();
+        if (healthy.isEmpty()) {
+            return notConnected();
+        }
+        sortByLoad(healthy);
+
+        int totalLength = 0;
+        for (S7Item item : items) {
+            totalLength += item.getLength();
+        }
+        int pduSize = healthy.get(0).getPduSize();
+        int groups = Math.min(Math.min(healthy.size(), items.size()), (totalLength + pduSize - 1) / pduSize);
+        if (groups <= 1) {
+            return healthy.get(0).readAsync(items, priority);
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[groups];
+        int from = 0;
+        int consumed = 0;
+        for (int g = 0; g < groups; g++) {
+            int to = from;
+            if (g == groups - 1) {
+                to = items.size();
+            } else {
+                long target = (long) totalLength * (g + 1) / groups;
+                // 每组至少一个数据项，并为后续各组各留一个
+                while (to < items.size() - (groups - g - 1) && (to == from || consumed < target)) {
+                    consumed += items.get(to).getLength();
+                    to++;
+                }
+            }
+            futures[g] = healthy.get(g).readAsync(items.subList(from, to), priority);
+            from = to;
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * 写入不拆分，且始终经由下标最小的可用连接，连续的写入调用按调用顺序到达PLC；
+     * 该连接断开后改由下一条连接写入，切换前后的写入之间不保证顺序
+     */
+    @Override
+    public CompletableFuture<Void> writeAsync(List<S7Item> items, RequestPriority priority) {
+        S7Client member = firstHealthy();
+        if (member == null) {
+            return notConnected();
+        }
+        return member.writeAsync(items, priority);
+    }
+
+    /**
+     * 关闭连接池。另一线程正在connect()时先关闭其正在建立的连接，使其尽快返回，再在连接池监视器下关闭所有连接
+     */
+    @Override
+    public void close() {
+        closed = true;
+        S7Client pending = connecting;
+        if (pending != null) {
+            pending.close();
+        }
+        synchronized (this) {
+            closed = true;
+            generation++;
+            if (maintainTask != null) {
+                maintainTask.cancel(false);
+                maintainTask = null;
+            }
+            for (int i = 0; i < members.length(); i++) {
+                S7Client member = members.getAndSet(i, null);
+                if (member != null) {
+                    member.close();
+                }
+            }
+        }
+    }
+
+    private S7Client leastLoaded() {
+        S7Client best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < members.length(); i++) {
+            S7Client member = members.get(i);
+            if (member == null || !member.isConnected()) {
+                continue;
+            }
+            int load = member.getPendingJobs();
+            if (load < bestLoad) {
+                best = member;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private S7Client firstHealthy() {
+        for (int i = 0; i < members.length(); i++) {
+            S7Client member = members.get(i);
+            if (member != null && member.isConnected()) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    private List<S7Client> healthyMembers() {
+        List<S7Client> healthy = new ArrayList<>(members.length());
+        for (int i = 0; i < members.length(); i++) {
+            S7Client member = members.get(i);
+            if (member != null && member.isConnected()) {
+                healthy.add(member);
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * 按当前作业数升序排列，先取快照避免排序过程中负载变化
+     */
+    private static void sortByLoad(List<S7Client> clients) {
+        int[] loads = new int[clients.size()];
+        for (int i = 0; i < loads.length; i++) {
+            loads[i] = clients.get(i).getPendingJobs();
+        }
+        for (int i = 1; i < loads.length; i++) {
+            int load = loads[i];
+            S7Client client = clients.get(i);
+            int j = i - 1;
+            while (j >= 0 && loads[j] > load) {
+                loads[j + 1] = loads[j];
+                clients.set(j + 1, clients.get(j));
+                j--;
+            }
+            loads[j + 1] = load;
+            clients.set(j + 1, client);
+        }
+    }
+
+    private static CompletableFuture<Void> notConnected() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new IOException("S7连接未建立"));
+        return future;
+    }
+}
@@ -0,0 +1,53 @@
+package com.yuzj.autolink.plc.s7;
+
+import lombok.Getter;
+
+/**
+ * 请求优先级通道，按声明顺序从高到低
+ * 每条连接为每个通道维护有界等待队列，低优先级作业按等待时间逐级提升，不会被持续的高优先级请求饿死
+ *
+ * @author yuzj002
+ */
+@Getter
+public enum RequestPriority {
+
+    /**
+     * 写入，包括操作员在界面上的写入
+     */
+    WRITE("写入", 256),
+
+    /**
+     * 按需读取，包括界面读取和报警触发的读取
+     */
+    URGENT_READ("按需读取", 1024),
+
+    /**
+     * 扫描周期小于1秒的周期采集
+     */
+    FAST_SCAN("快速扫描", 1024),
+
+    /**
+     * 扫描周期不小于1秒的周期采集
+     */
+    SLOW_SCAN("慢速扫描", 1024),
+
+    /**
+     * 连续字节和结构体等大块读取
+     */
+    BULK("批量读取", 256);
+
+    /**
+     * 显示名称
+     */
+    private final String displayName;
+
+    /**
+     * 等待队列容量(调用数)，超过PDU容量而拆分的调用只计一次，队列已满时新的调用直接失败
+     */
+    private final int queueCapacity;
+
+    RequestPriority(String displayName, int queueCapacity) {
+        this.displayName = displayName;
+        this.queueCapacity = queueCapacity;
+    }
+}
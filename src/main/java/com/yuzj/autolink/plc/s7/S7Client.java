@@ -0,0 +1,133 @@
+package com.yuzj.autolink.plc.s7;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * S7客户端
+ * 负责一条到PLC的ISO-on-TCP连接，读写结果通过数据项返回码体现，通信异常以IOException报告
+ *
+ * @author yuzj002
+ */
+public interface S7Client extends Closeable {
+
+    /**
+     * 建立连接，完成COTP连接并协商PDU大小
+     *
+     * @throws IOException 连接失败
+     */
+    void connect() throws IOException;
+
+    /**
+     * 是否已连接并完成握手
+     */
+    boolean isConnected();
+
+    /**
+     * 协商后的PDU大小
+     */
+    int getPduSize();
+
+    /**
+     * 协商后主叫方最大并行作业数
+     */
+    int getMaxAmqCalling();
+
+    /**
+     * 当前等待发送和执行中的作业数，用于连接池选择负载最低的连接
+     */
+    int getPendingJobs();
+
+    /**
+     * 批量读取数据项，数据写入各数据项的缓冲区
+     *
+     * @param items 数据项
+     * @throws IOException 通信异常
+     */
+    void read(List<S7Item> items) throws IOException;
+
+    /**
+     * 按指定优先级批量读取数据项
+     *
+     * @param items    数据项
+     * @param priority 优先级通道
+     * @throws IOException 通信异常
+     */
+    default void read(List<S7Item> items, RequestPriority priority) throws IOException {
+        await(readAsync(items, priority));
+    }
+
+    /**
+     * 批量写入数据项，数据取自各数据项的缓冲区
+     *
+     * @param items 数据项
+     * @throws IOException 通信异常
+     */
+    void write(List<S7Item> items) throws IOException;
+
+    /**
+     * 异步批量读取数据项，使用按需读取通道
+     *
+     * @param items 数据项
+     * @return 全部请求完成时完成，通信异常时以IOException异常完成
+     */
+    default CompletableFuture<Void> readAsync(List<S7Item> items) {
+        return readAsync(items, RequestPriority.URGENT_READ);
+    }
+
+    /**
+     * 按指定优先级异步批量读取数据项
+     *
+     * @param items    数据项
+     * @param priority 优先级通道
+     * @return 全部请求完成时完成，通信异常或队列已满时以IOException异常完成
+     */
+    CompletableFuture<Void> readAsync(List<S7Item> items, RequestPriority priority);
+
+    /**
+     * 异步批量写入数据项，使用写入通道
+     *
+     * @param items 数据项
+     * @return 全部请求完成时完成，通信异常时以IOException异常完成
+     */
+    default CompletableFuture<Void> writeAsync(List<S7Item> items) {
+        return writeAsync(items, RequestPriority.WRITE);
+    }
+
+    /**
+     * 按指定优先级异步批量写入数据项
+     *
+     * @param items    数据项
+     * @param priority 优先级通道
+     * @return 全部请求完成时完成，通信异常或队列已满时以IOException异常完成
+     */
+    CompletableFuture<Void> writeAsync(List<S7Item> items, RequestPriority priority);
+
+    /**
+     * 关闭连接，未完成的请求以异常结束
+     */
+    @Override
+    void close();
+
+    /**
+     * 等待异步读写完成，同步读写据此实现
+     *
+     * @param future 异步读写返回的Future
+     * @throws IOException 通信异常，非IOException的失败原因包装为IOException
+     */
+    static void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待S7响应时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        }
+    }
+}
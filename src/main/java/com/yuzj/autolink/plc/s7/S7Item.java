@@ -0,0 +1,139 @@
+package com.yuzj.autolink.plc.s7;
+
+import com.yuzj.autolink.plc.address.PlcArea;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ReadVar/WriteVar数据项
+ * 描述一段连续的存储区(或单个位)，读取时数据写入缓冲区，写入时从缓冲区取数据，
+ * 执行后由{@link AbstractS7Client}回填返回码，阻塞和NIO两种传输方式相同
+ *
+ * @author yuzj002
+ */
+@Getter
+public final class S7Item {
+
+    /**
+     * 存储区域
+     */
+    private final PlcArea area;
+
+    /**
+     * 数据块编号，非DB区为0
+     */
+    private final int dbNumber;
+
+    /**
+     * 起始字节偏移
+     */
+    private final int byteOffset;
+
+    /**
+     * 位偏移，仅位访问时有效
+     */
+    private final int bitOffset;
+
+    /**
+     * 字节数，位访问时为1
+     */
+    private final int length;
+
+    /**
+     * 是否按位访问
+     */
+    private final boolean bitAccess;
+
+    /**
+     * 数据缓冲区
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * 数据在缓冲区中的起始位置
+     */
+    private final int bufferOffset;
+
+    /**
+     * 数据项返回码
+     */
+    private int returnCode;
+
+    /**
+     * 超过PDU容量被拆分时指向原始数据项
+     */
+    final S7Item parent;
+
+    private S7Item(PlcArea area, int dbNumber, int byteOffset, int bitOffset, int length, boolean bitAccess,
+                   ByteBuffer buffer, int bufferOffset, S7Item parent) {
+        this.area = area;
+        this.dbNumber = dbNumber;
+        this.byteOffset = byteOffset;
+        this.bitOffset = bitOffset;
+        this.length = length;
+        this.bitAccess = bitAccess;
+        this.buffer = buffer;
+        this.bufferOffset = bufferOffset;
+        this.parent = parent;
+    }
+
+    /**
+     * 按字节访问的数据项
+     *
+     * @param area         存储区域
+     * @param dbNumber     数据块编号
+     * @param byteOffset   起始字节偏移
+     * @param length       字节数
+     * @param buffer       数据缓冲区
+     * @param bufferOffset 数据在缓冲区中的起始位置
+     */
+    public static S7Item ofBytes(PlcArea area, int dbNumber, int byteOffset, int length, ByteBuffer buffer, int bufferOffset) {
+        return new S7Item(area, dbNumber, byteOffset, 0, length, false, buffer, bufferOffset, null);
+    }
+
+    /**
+     * 按位访问的数据项，位值占缓冲区中的一个字节(0或1)
+     *
+     * @param area         存储区域
+     * @param dbNumber     数据块编号
+     * @param byteOffset   字节偏移
+     * @param bitOffset    位偏移
+     * @param buffer       数据缓冲区
+     * @param bufferOffset 数据在缓冲区中的位置
+     */
+    public static S7Item ofBit(PlcArea area, int dbNumber, int byteOffset, int bitOffset, ByteBuffer buffer, int bufferOffset) {
+        return new S7Item(area, dbNumber, byteOffset, bitOffset, 1, true, buffer, bufferOffset, null);
+    }
+
+    /**
+     * 拆分出的子数据项
+     */
+    S7Item slice(int offset, int sliceLength) {
+        return new S7Item(area, dbNumber, byteOffset + offset, 0, sliceLength, false, buffer, bufferOffset + offset, this);
+    }
+
+    /**
+     * 协议中的位地址: 字节偏移*8+位偏移
+     */
+    int bitAddress() {
+        return (byteOffset << 3) + bitOffset;
+    }
+
+    void setReturnCode(int returnCode) {
+        this.returnCode = returnCode;
+    }
+
+    /**
+     * 是否执行成功
+     */
+    public boolean isSuccess() {
+        return returnCode == S7Protocol.RETURN_CODE_SUCCESS;
+    }
+
+    @Override
+    public String toString() {
+        return area + (area == PlcArea.DB ? String.valueOf(dbNumber) : "")
+                + "[" + byteOffset + (bitAccess ? "." + bitOffset : "+" + length) + "]";
+    }
+}
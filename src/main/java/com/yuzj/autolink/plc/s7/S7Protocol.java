@@ -0,0 +1,124 @@
+package com.yuzj.autolink.plc.s7;
+
+/**
+ * S7协议常量及报文尺寸计算
+ * 报文结构: TPKT(4) + COTP(3) + S7头 + 参数 + 数据，PDU大小只计算S7头之后的部分
+ *
+ * @author yuzj002
+ */
+public final class S7Protocol {
+
+    // TPKT / COTP
+    public static final int TPKT_VERSION = 0x03;
+    public static final int TPKT_HEADER_LENGTH = 4;
+    public static final int COTP_DATA_HEADER_LENGTH = 3;
+    public static final int ISO_HEADER_LENGTH = TPKT_HEADER_LENGTH + COTP_DATA_HEADER_LENGTH;
+    public static final int COTP_CONNECTION_REQUEST = 0xE0;
+    public static final int COTP_CONNECTION_CONFIRM = 0xD0;
+    public static final int COTP_DATA = 0xF0;
+    public static final int COTP_EOT = 0x80;
+
+    // S7头
+    public static final int PROTOCOL_ID = 0x32;
+    public static final int ROSCTR_JOB = 0x01;
+    public static final int ROSCTR_ACK_DATA = 0x03;
+    public static final int JOB_HEADER_LENGTH = 10;
+    public static final int ACK_HEADER_LENGTH = 12;
+
+    // 功能码
+    public static final int FUNC_SETUP_COMMUNICATION = 0xF0;
+    public static final int FUNC_READ_VAR = 0x04;
+    public static final int FUNC_WRITE_VAR = 0x05;
+
+    // ReadVar/WriteVar参数
+    public static final int VAR_PARAM_HEADER_LENGTH = 2;
+    public static final int VAR_ITEM_SPEC_LENGTH = 12;
+    public static final int ITEM_DATA_HEADER_LENGTH = 4;
+    public static final int SETUP_PARAM_LENGTH = 8;
+
+    /**
+     * 单个请求最多携带的数据项数，与常见S7 CPU的限制保持一致
+     */
+    public static final int MAX_ITEMS_PER_REQUEST = 20;
+
+    // 请求项传输尺寸
+    public static final int TRANSPORT_SIZE_BIT = 0x01;
+    public static final int TRANSPORT_SIZE_BYTE = 0x02;
+
+    // 数据项传输尺寸
+    public static final int DATA_TRANSPORT_BIT = 0x03;
+    public static final int DATA_TRANSPORT_BYTE = 0x04;
+    public static final int DATA_TRANSPORT_INTEGER = 0x05;
+
+    // 数据项返回码
+    public static final int RETURN_CODE_SUCCESS = 0xFF;
+    public static final int RETURN_CODE_HARDWARE_FAULT = 0x01;
+    public static final int RETURN_CODE_ACCESS_DENIED = 0x03;
+    public static final int RETURN_CODE_ADDRESS_OUT_OF_RANGE = 0x05;
+    public static final int RETURN_CODE_DATA_TYPE_NOT_SUPPORTED = 0x06;
+    public static final int RETURN_CODE_DATA_TYPE_INCONSISTENT = 0x07;
+    public static final int RETURN_CODE_OBJECT_NOT_EXIST = 0x0A;
+
+    // PDU协商
+    public static final int MIN_PDU_SIZE = 240;
+    public static final int MAX_PDU_SIZE = 960;
+
+    private S7Protocol() {
+    }
+
+    /**
+     * ReadVar请求中单个数据项可携带的最大字节数
+     */
+    public static int maxReadItemLength(int pduSize) {
+        return pduSize - ACK_HEADER_LENGTH - VAR_PARAM_HEADER_LENGTH - ITEM_DATA_HEADER_LENGTH;
+    }
+
+    /**
+     * WriteVar请求中单个数据项可携带的最大字节数
+     */
+    public static int maxWriteItemLength(int pduSize) {
+        return pduSize - JOB_HEADER_LENGTH - VAR_PARAM_HEADER_LENGTH - VAR_ITEM_SPEC_LENGTH - ITEM_DATA_HEADER_LENGTH;
+    }
+
+    /**
+     * 数据项在响应/写请求数据区中占用的字节数(含填充字节)
+     */
+    public static int itemDataSize(int length) {
+        return ITEM_DATA_HEADER_LENGTH + length + (length & 1);
+    }
+
+    /**
+     * 由数据项传输尺寸和长度字段计算数据字节数
+     */
+    public static int dataLength(int transportSize, int length) {
+        if (transportSize == DATA_TRANSPORT_BYTE || transportSize == DATA_TRANSPORT_INTEGER) {
+            // 长度以位为单位
+            return (length + 7) >> 3;
+        }
+        return length;
+    }
+
+    /**
+     * 数据项返回码描述
+     */
+    public static String returnCodeText(int returnCode) {
+        switch (returnCode) {
+            case RETURN_CODE_SUCCESS:
+                return "成功";
+            case RETURN_CODE_HARDWARE_FAULT:
+                return "硬件故障";
+            case RETURN_CODE_ACCESS_DENIED:
+                return "不允许访问该对象";
+            case RETURN_CODE_ADDRESS_OUT_OF_RANGE:
+                return "地址超出范围";
+            case RETURN_CODE_DATA_TYPE_NOT_SUPPORTED:
+                return "不支持的数据类型";
+            case RETURN_CODE_DATA_TYPE_INCONSISTENT:
+                return "数据类型不一致";
+            case RETURN_CODE_OBJECT_NOT_EXIST:
+                return "对象不存在";
+            default:
+                return "未知错误(0x" + Integer.toHexString(returnCode) + ")";
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.yuzj.autolink.plc.s7;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * NIO选择器线程
+ * 所有{@link NioS7Client}连接共享一个选择器线程，负责连接建立、报文收发和作业超时检查
+ *
+ * @author yuzj002
+ */
+@Slf4j
+final class S7Reactor implements Runnable {
+
+    /**
+     * 选择超时，也是作业超时检查的间隔(毫秒)
+     */
+    private static final long SELECT_TIMEOUT_MILLIS = 200;
+
+    private static S7Reactor shared;
+
+    private final Selector selector;
+
+    /**
+     * 需要在选择器线程中执行的任务(注册通道、修改关注事件等)
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private long lastDeadlineCheck;
+
+    private S7Reactor() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    /**
+     * 获取共享的选择器线程，首次调用时启动
+     */
+    static synchronized S7Reactor shared() {
+        if (shared == null) {
+            try {
+                S7Reactor reactor = new S7Reactor();
+                Thread thread = new Thread(reactor, "S7-NIO-Reactor");
+                thread.setDaemon(true);
+                thread.start();
+                shared = reactor;
+            } catch (IOException e) {
+                throw new UncheckedIOException("无法创建NIO选择器", e);
+            }
+        }
+        return shared;
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    /**
+     * 在选择器线程中执行任务
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                runTasks();
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (key.isValid()) {
+                        ((NioS7Client) key.attachment()).handleEvent(key);
+                    }
+                }
+
+                long now = System.nanoTime();
+                if (now - lastDeadlineCheck >= SELECT_TIMEOUT_MILLIS * 1_000_000L) {
+                    lastDeadlineCheck = now;
+                    for (SelectionKey key : selector.keys()) {
+                        if (key.isValid()) {
+                            ((NioS7Client) key.attachment()).checkTimeout();
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // 单个连接的异常已在连接内处理，这里只兜底防止选择器线程退出
+                log.error("NIO选择器线程异常: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.yuzj.autolink.plc.s7;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static com.yuzj.autolink.plc.s7.S7Protocol.TPKT_HEADER_LENGTH;
+
+/**
+ * 基于阻塞套接字的S7客户端
+ * 每个连接使用一个接收线程读取响应报文，发送在调用线程中完成
+ *
+ * @author yuzj002
+ */
+@Slf4j
+public class S7TcpClient extends AbstractS7Client {
+
+    /**
+     * 接收线程空闲时检查作业超时的间隔(毫秒)
+     */
+    private static final int IDLE_POLL_MILLIS = 200;
+
+    private volatile Socket socket;
+    private InputStream input;
+    private OutputStream output;
+
+    // 接收缓冲区仅由接收线程使用
+    private final byte[] rxFrame = new byte[MAX_FRAME_LENGTH];
+    private final ByteBuffer rx = ByteBuffer.wrap(rxFrame);
+
+    public S7TcpClient(String host, int port, int rack, int slot, int timeout) {
+        super(host, port, rack, slot, timeout, ByteBuffer.allocate(MAX_FRAME_LENGTH));
+    }
+
+    @Override
+    protected void openTransport() throws IOException {
+        Socket s = new Socket();
+        // 先登记套接字，连接过程中调用close()时关闭套接字使TCP连接立即失败
+        socket = s;
+        try {
+            if (isClosed()) {
+                throw new IOException("S7连接已关闭");
+            }
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(Math.min(timeout, IDLE_POLL_MILLIS));
+            s.connect(new InetSocketAddress(host, port), remainingConnectMillis());
+            input = s.getInputStream();
+            output = s.getOutputStream();
+        } catch (IOException e) {
+            if (socket == s) {
+                socket = null;
+            }
+            closeQuietly(s);
+            throw e;
+        }
+
+        Thread receiver = new Thread(() -> receiveLoop(s), "S7-Receiver-" + host + ":" + port);
+        receiver.setDaemon(true);
+        receiver.start();
+        startHandshake();
+    }
+
+    @Override
+    protected void transmit(ByteBuffer frame) throws IOException {
+        output.write(frame.array(), frame.arrayOffset(), frame.limit());
+        output.flush();
+    }
+
+    @Override
+    protected void closeTransport() {
+        Socket s = socket;
+        socket = null;
+        if (s != null) {
+            closeQuietly(s);
+        }
+    }
+
+    /**
+     * 接收线程: 读取完整报文后交给协议层处理
+     */
+    private void receiveLoop(Socket s) {
+        try {
+            while (socket == s) {
+                if (!receiveFrame()) {
+                    checkDeadlines();
+                    continue;
+                }
+                onFrame(rx, frameLength(rx));
+            }
+        } catch (IOException e) {
+            if (socket == s) {
+                log.warn("S7连接异常: {}:{} - {}", host, port, e.getMessage());
+                abort(e);
+            }
+        }
+    }
+
+    /**
+     * 接收一个完整的TPKT报文
+     *
+     * @return 在报文开始前读超时时返回false
+     */
+    private boolean receiveFrame() throws IOException {
+        if (!readFully(0, TPKT_HEADER_LENGTH, true)) {
+            return false;
+        }
+        int length = frameLength(rx);
+        readFully(TPKT_HEADER_LENGTH, length - TPKT_HEADER_LENGTH, false);
+        return true;
+    }
+
+    /**
+     * 读取指定长度的数据，报文开始后的读超时累计超过超时时间视为连接异常
+     *
+     * @param idleAllowed 尚未读到数据时是否允许读超时返回
+     * @return 空闲超时时返回false
+     */
+    private boolean readFully(int offset, int length, boolean idleAllowed) throws IOException {
+        int read = 0;
+        long deadline = 0;
+        while (read < length) {
+            int n;
+            try {
+                n = input.read(rxFrame, offset + read, length - read);
+            } catch (SocketTimeoutException e) {
+                if (idleAllowed && read == 0) {
+                    return false;
+                }
+                if (deadline == 0) {
+                    deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+                } else if (System.nanoTime() - deadline > 0) {
+                    throw new SocketTimeoutException("S7报文接收超时");
+                }
+                continue;
+            }
+            if (n < 0) {
+                throw new EOFException("PLC已关闭连接");
+            }
+            read += n;
+        }
+        return true;
+    }
+
+    private static void closeQuietly(Socket s) {
+        try {
+            s.close();
+        } catch (IOException e) {
+            log.debug("关闭S7套接字时出错: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.yuzj.autolink.plc.s7;
+
+import com.yuzj.autolink.plc.session.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 报文流量和请求调度统计
+ * 同一设备的所有连接(包括连接池成员和重建的连接)共用一个统计对象，流量按TPKT报文长度累计，
+ * 并按优先级通道统计作业的排队等待时间
+ *
+ * @author yuzj002
+ */
+public final class S7TrafficCounter {
+
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder requestsSent = new LongAdder();
+    private final LongAdder jobsSent = new LongAdder();
+    private final LatencyHistogram[] queueWait = new LatencyHistogram[RequestPriority.values().length];
+
+    public S7TrafficCounter() {
+        for (int i = 0; i < queueWait.length; i++) {
+            queueWait[i] = new LatencyHistogram();
+        }
+    }
+
+    void recordSent(int length) {
+        bytesSent.add(length);
+        framesSent.increment();
+    }
+
+    void recordRequest(int jobs) {
+        requestsSent.increment();
+        jobsSent.add(jobs);
+    }
+
+    void recordQueueWait(RequestPriority priority, long waitNanos) {
+        queueWait[priority.ordinal()].record(waitNanos);
+    }
+
+    void recordReceived(int length) {
+        bytesReceived.add(length);
+        framesReceived.increment();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long getFramesSent() {
+        return framesSent.sum();
+    }
+
+    public long getFramesReceived() {
+        return framesReceived.sum();
+    }
+
+    /**
+     * 已发送的ReadVar/WriteVar请求数
+     */
+    public long getRequestsSent() {
+        return requestsSent.sum();
+    }
+
+    /**
+     * 已发送的调用作业数，与请求数之比为平均每个请求合并的作业数
+     */
+    public long getJobsSent() {
+        return jobsSent.sum();
+    }
+
+    /**
+     * 指定优先级通道作业从提交到发送的等待时间
+     */
+    public LatencyHistogram getQueueWait(RequestPriority priority) {
+        return queueWait[priority.ordinal()];
+    }
+}
@@ -4,8 +4,14 @@ import com.yuzj.autolink.config.PlcProperties;
 import com.yuzj.autolink.exception.PlcConnectionException;
 import com.yuzj.autolink.exception.PlcReadException;
 import com.yuzj.autolink.exception.PlcWriteException;
+import com.yuzj.autolink.plc.address.PlcAddress;
+import com.yuzj.autolink.plc.plan.ReadPlan;
+import com.yuzj.autolink.plc.plan.ReadResult;
+import com.yuzj.autolink.plc.s7.RequestPriority;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * PLC通信服务接口
@@ -43,15 +49,119 @@ public interface PlcService {
      */
     Object read(String address) throws PlcReadException;
 
+    /**
+     * 读取单个预解析地址数据
+     *
+     * @param address 预解析地址
+     * @return 读取的数据
+     * @throws PlcReadException 读取异常
+     */
+    Object read(PlcAddress address) throws PlcReadException;
+
+    /**
+     * 读取REAL值，4字节地址按浮点位模式解释，其余地址按整数转换
+     *
+     * @param address 地址
+     * @return 读取的值
+     * @throws PlcReadException 读取异常，字符串和数组地址也抛出此异常
+     */
+    float readReal(String address) throws PlcReadException;
+
+    /**
+     * 读取DINT值，字节和字地址按有符号数扩展
+     *
+     * @param address 地址
+     * @return 读取的值
+     * @throws PlcReadException 读取异常，字符串和数组地址也抛出此异常
+     */
+    int readDInt(String address) throws PlcReadException;
+
+    /**
+     * 读取BOOL值，非位地址非零为true
+     *
+     * @param address 地址
+     * @return 读取的值
+     * @throws PlcReadException 读取异常，字符串和数组地址也抛出此异常
+     */
+    boolean readBool(String address) throws PlcReadException;
+
+    /**
+     * 读取批次中的所有标签，结果保存在批次中，按句柄以原始类型取值
+     * 单个读取块失败时对应标签标记为失败，不抛出异常
+     *
+     * @param batch 标签批次
+     * @throws PlcReadException PLC未连接或通信异常
+     */
+    void readBatch(TagBatch batch) throws PlcReadException;
+
     /**
      * 批量读取多个地址数据
      *
      * @param addresses 地址数组
-     * @return 地址与数据的映射
+     * @return 地址与数据的映射，地址无效或读取失败的值为null
      * @throws PlcReadException 读取异常
      */
     Map<String, Object> readMultiple(String[] addresses) throws PlcReadException;
 
+    /**
+     * 异步读取单个地址数据，请求与其他在途请求流水线发送，不阻塞调用线程
+     *
+     * @param address 地址
+     * @return 读取结果，失败时以{@link PlcReadException}异常完成
+     */
+    CompletableFuture<Object> readAsync(String address);
+
+    /**
+     * 异步批量读取多个地址数据
+     *
+     * @param addresses 地址数组
+     * @return 地址与数据的映射，地址无效或读取失败的值为null，PLC未连接时以{@link PlcReadException}异常完成
+     */
+    CompletableFuture<Map<String, Object>> readMultipleAsync(String[] addresses);
+
+    /**
+     * 异步执行预先生成的读取计划，周期读取时只需生成一次计划
+     *
+     * @param plan 读取计划
+     * @return 按计划地址顺序排列的读取结果，PLC未连接时以{@link PlcReadException}异常完成
+     */
+    default CompletableFuture<ReadResult> readPlanAsync(ReadPlan plan) {
+        return readPlanAsync(plan, RequestPriority.URGENT_READ);
+    }
+
+    /**
+     * 按指定优先级通道异步执行读取计划
+     *
+     * @param plan     读取计划
+     * @param priority 优先级通道，周期采集按扫描周期使用快速或慢速扫描通道
+     * @return 按计划地址顺序排列的值和质量，单个读取块失败或通信失败时标记对应地址的质量而不异常完成，
+     * PLC未连接时以{@link PlcReadException}异常完成
+     */
+    CompletableFuture<ReadResult> readPlanAsync(ReadPlan plan, RequestPriority priority);
+
+    /**
+     * 读取DB区连续字节，数据直接写入调用方缓冲区(可为直接缓冲区)，超过PDU容量时自动拆分；
+     * 使用批量读取通道，不阻塞写入和周期采集
+     *
+     * @param db     数据块编号
+     * @param offset 起始字节偏移
+     * @param length 字节数
+     * @param dst    目标缓冲区，数据写入当前位置，读取成功后位置前移length
+     * @throws PlcReadException 读取异常
+     */
+    void readBytes(int db, int offset, int length, ByteBuffer dst) throws PlcReadException;
+
+    /**
+     * 读取DB区结构体(UDT)，按{@link com.yuzj.autolink.plc.codec.S7Field}注解映射到对象，整个结构体一次读取
+     *
+     * @param db     数据块编号
+     * @param offset 结构体起始字节偏移
+     * @param type   结构体类型，需有无参构造方法
+     * @return 解码后的对象
+     * @throws PlcReadException 读取异常或结构体映射不正确
+     */
+    <T> T readStruct(int db, int offset, Class<T> type) throws PlcReadException;
+
     /**
      * 写入单个地址数据
      *
@@ -61,12 +171,52 @@ public interface PlcService {
      */
     void write(String address, Object value) throws PlcWriteException;
 
+    /**
+     * 写入单个预解析地址数据
+     *
+     * @param address 预解析地址
+     * @param value   值
+     * @throws PlcWriteException 写入异常
+     */
+    void write(PlcAddress address, Object value) throws PlcWriteException;
+
+    /**
+     * 异步写入单个地址数据
+     *
+     * @param address 地址
+     * @param value   值
+     * @return 写入完成时完成，失败时以{@link PlcWriteException}异常完成
+     */
+    CompletableFuture<Void> writeAsync(String address, Object value);
+
+    /**
+     * 将缓冲区剩余数据写入DB区连续字节，数据直接取自调用方缓冲区，超过PDU容量时自动拆分
+     *
+     * @param db     数据块编号
+     * @param offset 起始字节偏移
+     * @param src    源缓冲区，写入当前位置到limit之间的数据，写入成功后位置前移到limit
+     * @throws PlcWriteException 写入异常
+     */
+    void writeBytes(int db, int offset, ByteBuffer src) throws PlcWriteException;
+
+    /**
+     * 写入DB区结构体(UDT)，字段未覆盖整个结构体时先读取原有数据，只修改映射字段
+     *
+     * @param db     数据块编号
+     * @param offset 结构体起始字节偏移
+     * @param value  结构体对象
+     * @throws PlcWriteException 写入异常或字段值无法编码
+     */
+    <T> void writeStruct(int db, int offset, T value) throws PlcWriteException;
+
     /**
      * 批量写入多个地址数据
+     * 单个地址失败不影响其他地址，地址区间重叠时按映射的迭代顺序后写入的值生效
      *
      * @param values 地址与值的映射
-     * @throws PlcWriteException 写入异常
+     * @return 地址与写入结果的映射，顺序与参数一致
+     * @throws PlcWriteException PLC未连接时抛出异常
      */
-    void writeMultiple(Map<String, Object> values) throws PlcWriteException;
-    
+    Map<String, PlcWriteResult> writeMultiple(Map<String, Object> values) throws PlcWriteException;
+
 }
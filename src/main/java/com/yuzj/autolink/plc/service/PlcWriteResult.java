@@ -0,0 +1,43 @@
+package com.yuzj.autolink.plc.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 批量写入中单个地址的写入结果
+ *
+ * @author yuzj002
+ */
+@Getter
+@ToString
+public final class PlcWriteResult {
+
+    /**
+     * PLC地址
+     */
+    private final String address;
+
+    /**
+     * 是否写入成功
+     */
+    private final boolean success;
+
+    /**
+     * 失败原因，成功时为null
+     */
+    private final String errorMessage;
+
+    private PlcWriteResult(String address, boolean success, String errorMessage) {
+        this.address = address;
+        this.success = success;
+        this.errorMessage = errorMessage;
+    }
+
+    public static PlcWriteResult success(String address) {
+        return new PlcWriteResult(address, true, null);
+    }
+
+    public static PlcWriteResult failure(String address, String errorMessage) {
+        return new PlcWriteResult(address, false, errorMessage);
+    }
+}
@@ -0,0 +1,181 @@
+package com.yuzj.autolink.plc.service;
+
+import com.yuzj.autolink.plc.address.PlcAddress;
+import com.yuzj.autolink.plc.address.PlcAddressCache;
+import com.yuzj.autolink.plc.codec.S7ValueCodec;
+import com.yuzj.autolink.plc.plan.ReadBlock;
+import com.yuzj.autolink.plc.plan.ReadPlan;
+import com.yuzj.autolink.plc.plan.ReadPlanner;
+import com.yuzj.autolink.plc.plan.TagQuality;
+import com.yuzj.autolink.plc.s7.S7Item;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量读取结果容器
+ * 标签加入时返回句柄，读取结果保存在按句柄排列的原始值数组中，通过类型化方法取值，不装箱。
+ * 读取计划、数据项和缓冲区在首次读取时生成并复用，之后的周期读取不再为单个标签分配对象，
+ * 只剩按S7请求分配的作业和Future等少量对象，不随标签数增长。
+ * 非线程安全，同一批次不能并发读取
+ *
+ * @author yuzj002
+ */
+public final class TagBatch {
+
+    private final List<PlcAddress> addresses = new ArrayList<>();
+
+    /**
+     * 原始值，见{@link S7ValueCodec#decodeRaw(PlcAddress, byte[], int)}，容量随标签加入扩展
+     */
+    private int[] rawValues = new int[0];
+
+    /**
+     * 最近一次读取的质量，尚未读取的标签为通信失败
+     */
+    private TagQuality[] qualities = new TagQuality[0];
+
+    private ReadPlan plan;
+    private int planGapTolerance;
+    private List<S7Item> items = Collections.emptyList();
+    private ReadBlock[] itemBlocks;
+
+    /**
+     * 加入标签
+     *
+     * @param address 地址字符串
+     * @return 标签句柄
+     * @throws IllegalArgumentException 地址格式不正确或不是标量地址
+     */
+    public int add(String address) {
+        return add(PlcAddressCache.get(address));
+    }
+
+    /**
+     * 加入预解析地址
+     *
+     * @param address 地址描述符
+     * @return 标签句柄
+     * @throws IllegalArgumentException 数组或字符串地址，批量读取只支持标量
+     */
+    public int add(PlcAddress address) {
+        if (address.getCount() > 0) {
+            throw new IllegalArgumentException("批量读取只支持标量地址: " + address);
+        }
+        int handle = addresses.size();
+        if (handle == rawValues.length) {
+            int capacity = Math.max(16, handle * 2);
+            rawValues = Arrays.copyOf(rawValues, capacity);
+            qualities = Arrays.copyOf(qualities, capacity);
+            Arrays.fill(qualities, handle, capacity, TagQuality.BAD_COMM);
+        }
+        addresses.add(address);
+        plan = null;
+        return handle;
+    }
+
+    /**
+     * 标签数量
+     */
+    public int size() {
+        return addresses.size();
+    }
+
+    /**
+     * 句柄对应的地址
+     */
+    public PlcAddress getAddress(int handle) {
+        return addresses.get(handle);
+    }
+
+    /**
+     * 最近一次读取该标签是否成功，尚未读取时为false
+     */
+    public boolean isGood(int handle) {
+        return qualities[handle] == TagQuality.GOOD;
+    }
+
+    /**
+     * 最近一次读取该标签的质量，尚未读取时为通信失败
+     */
+    public TagQuality getQuality(int handle) {
+        return qualities[handle];
+    }
+
+    /**
+     * 按REAL取值，4字节地址按浮点位模式解释
+     */
+    public float getReal(int handle) {
+        return S7ValueCodec.rawToReal(addresses.get(handle), rawValues[handle]);
+    }
+
+    /**
+     * 按DINT取值，字节和字按有符号数扩展
+     */
+    public int getDInt(int handle) {
+        return S7ValueCodec.rawToDInt(addresses.get(handle), rawValues[handle]);
+    }
+
+    /**
+     * 按BOOL取值
+     */
+    public boolean getBool(int handle) {
+        return S7ValueCodec.rawToBool(addresses.get(handle), rawValues[handle]);
+    }
+
+    /**
+     * 生成读取计划和读取数据项，标签和间隙容差不变时复用上次结果
+     *
+     * @param gapTolerance 合并相邻地址允许的最大间隙
+     * @return 需要读取的数据项，与读取计划中的读取块一一对应
+     */
+    public List<S7Item> prepare(int gapTolerance) {
+        if (plan != null && planGapTolerance == gapTolerance) {
+            return items;
+        }
+        plan = ReadPlanner.plan(addresses.toArray(new PlcAddress[0]), gapTolerance);
+        planGapTolerance = gapTolerance;
+
+        List<S7Item> prepared = new ArrayList<>(plan.getBlocks().size());
+        for (ReadBlock block : plan.getBlocks()) {
+            prepared.add(S7Item.ofBytes(block.getArea(), block.getDbNumber(), block.getStartOffset(), block.getLength(),
+                    ByteBuffer.wrap(new byte[block.getLength()]), 0));
+        }
+        items = Collections.unmodifiableList(prepared);
+        itemBlocks = plan.getBlocks().toArray(new ReadBlock[0]);
+        return items;
+    }
+
+    /**
+     * 读取完成后按数据项返回码解码各标签，失败的读取块按返回码设置块内标签的质量
+     */
+    public void decode() {
+        PlcAddress[] planAddresses = plan.getAddresses();
+        for (int i = 0; i < itemBlocks.length; i++) {
+            S7Item item = items.get(i);
+            ReadBlock block = itemBlocks[i];
+            if (!item.isSuccess()) {
+                TagQuality quality = TagQuality.fromReturnCode(item.getReturnCode());
+                for (int index : block.getItemIndexes()) {
+                    qualities[index] = quality;
+                }
+                continue;
+            }
+            byte[] data = item.getBuffer().array();
+            for (int index : block.getItemIndexes()) {
+                rawValues[index] = S7ValueCodec.decodeRaw(planAddresses[index], data, block.getStartOffset());
+                qualities[index] = TagQuality.GOOD;
+            }
+        }
+    }
+
+    /**
+     * 通信失败时将所有标签标记为通信失败
+     */
+    public void invalidate() {
+        Arrays.fill(qualities, TagQuality.BAD_COMM);
+    }
+}
@@ -1,21 +1,50 @@
 package com.yuzj.autolink.plc.service.impl;
 
-import com.github.s7connector.api.S7Connector;
-import com.github.s7connector.api.S7Serializer;
-import com.github.s7connector.api.factory.S7ConnectorFactory;
-import com.github.s7connector.api.factory.S7SerializerFactory;
 import com.yuzj.autolink.config.PlcProperties;
 import com.yuzj.autolink.exception.PlcConnectionException;
 import com.yuzj.autolink.exception.PlcReadException;
 import com.yuzj.autolink.exception.PlcWriteException;
+import com.yuzj.autolink.plc.address.PlcAddress;
+import com.yuzj.autolink.plc.address.PlcAddressCache;
+import com.yuzj.autolink.plc.address.PlcArea;
+import com.yuzj.autolink.plc.codec.S7StructCodec;
+import com.yuzj.autolink.plc.codec.S7ValueCodec;
+import com.yuzj.autolink.plc.plan.ReadBlock;
+import com.yuzj.autolink.plc.plan.ReadPlan;
+import com.yuzj.autolink.plc.plan.ReadPlanner;
+import com.yuzj.autolink.plc.plan.ReadResult;
+import com.yuzj.autolink.plc.plan.TagQuality;
+import com.yuzj.autolink.plc.plan.WriteBlock;
+import com.yuzj.autolink.plc.plan.WritePlan;
+import com.yuzj.autolink.plc.plan.WritePlanner;
+import com.yuzj.autolink.plc.s7.S7Item;
+import com.yuzj.autolink.plc.s7.S7Protocol;
+import com.yuzj.autolink.plc.s7.NioS7Client;
+import com.yuzj.autolink.plc.s7.PooledS7Client;
+import com.yuzj.autolink.plc.s7.RequestPriority;
+import com.yuzj.autolink.plc.s7.S7Client;
+import com.yuzj.autolink.plc.s7.S7TcpClient;
+import com.yuzj.autolink.plc.s7.S7TrafficCounter;
 import com.yuzj.autolink.plc.service.PlcService;
+import com.yuzj.autolink.plc.service.PlcWriteResult;
+import com.yuzj.autolink.plc.service.TagBatch;
+import com.yuzj.autolink.plc.trace.PlcTrace;
+import com.yuzj.autolink.plc.trace.TraceStage;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.regex.Pattern;
+import java.util.function.BiFunction;
 
 /**
  * S7 PLC服务实现类
@@ -24,18 +53,35 @@ import java.util.regex.Pattern;
  * @author yuzj002
  */
 @Slf4j
-@Service
 public class S7PlcServiceImpl implements PlcService {
 
-    private S7Connector connector;
-    private S7Serializer serializer;
+    private volatile S7Client client;
+
+    // 正在建立的连接，断开时一并关闭，使进行中的connect()尽快失败返回
+    private volatile S7Client connecting;
+
+    // 当前连接配置
+    private PlcProperties config;
 
     // 连接状态标识
     private final AtomicBoolean connected = new AtomicBoolean(false);
 
-    // 地址格式校验正则表达式
-    private static final Pattern DB_ADDRESS_PATTERN = Pattern.compile("^DB\\d+\\.DB[XBWDR]\\d+(\\.\\d+)?$");
-    private static final Pattern MEMORY_ADDRESS_PATTERN = Pattern.compile("^[IQM][BWD]?\\d+(\\.\\d+)?$");
+    // 报文流量统计
+    private final S7TrafficCounter traffic = new S7TrafficCounter();
+
+    // 设备ID，用于跟踪事件
+    private final long deviceId;
+
+    // 读取计划的解码执行器，为null时在完成读取的线程中解码
+    private volatile Executor decodeExecutor;
+
+    public S7PlcServiceImpl() {
+        this(PlcTrace.NO_DEVICE);
+    }
+
+    public S7PlcServiceImpl(long deviceId) {
+        this.deviceId = deviceId;
+    }
 
     @Override
     public void connect(PlcProperties config) throws PlcConnectionException {
@@ -55,36 +101,31 @@ public class S7PlcServiceImpl implements PlcService {
             // 验证参数
             validateConfiguration(config);
 
-            // 网络连通性检查
-            if (!isHostReachable(config.getHost(), config.getPort(), config.getTimeout())) {
-                throw new PlcConnectionException("无法连接到PLC主机: " + config.getHost() + ":" + config.getPort());
-            }
-
-            // 创建S7连接器
-            log.debug("正在创建S7连接器...");
-            connector = S7ConnectorFactory.buildTCPConnector()
-                    .withHost(config.getHost())
-                    .withPort(config.getPort())
-                    .withRack(config.getRack())
-                    .withSlot(config.getSlot())
-                    .build();
-
-            if (connector == null) {
-                throw new PlcConnectionException("无法创建S7连接器实例");
+            // 在同一个套接字上建立TCP连接并协商PDU大小，主机不可达时直接失败
+            log.debug("正在建立S7连接...");
+            S7Client newClient = createClient(config);
+            connecting = newClient;
+            try {
+                newClient.connect();
+                client = newClient;
+            } finally {
+                connecting = null;
             }
 
-            // 创建序列化器
-            log.debug("正在创建序列化器...");
-            serializer = S7SerializerFactory.buildSerializer(connector);
-
             // 标记连接成功
+            this.config = config;
             connected.set(true);
-            log.info("成功连接到S7 PLC: {}:{}", config.getHost(), config.getPort());
+            log.info("成功连接到S7 PLC: {}:{}, PDU大小={}", config.getHost(), config.getPort(), client.getPduSize());
 
         } catch (PlcConnectionException e) {
             log.error("PLC连接异常: {}", e.getMessage());
             connected.set(false);
             throw e;
+        } catch (IOException e) {
+            log.error("无法连接到PLC主机: {}:{} - {}", config.getHost(), config.getPort(), e.getMessage());
+            connected.set(false);
+            throw new PlcConnectionException("无法连接到PLC主机: " + config.getHost() + ":" + config.getPort()
+                    + " - " + e.getMessage(), e);
         } catch (Exception e) {
             log.error("连接S7 PLC时发生异常: {}", e.getMessage(), e);
             connected.set(false);
@@ -122,19 +163,95 @@ public class S7PlcServiceImpl implements PlcService {
         if (config.getTimeout() <= 0) {
             throw new PlcConnectionException("超时时间必须大于0");
         }
+
+        if (config.getConnectTimeout() <= 0) {
+            throw new PlcConnectionException("连接时限必须大于0");
+        }
+
+        if (config.getPoolSize() < 1) {
+            throw new PlcConnectionException("连接数必须大于0");
+        }
+
+        if (config.getProtocol() != null && !PlcProperties.PROTOCOL_S7.equals(config.getProtocol())
+                && !PlcProperties.PROTOCOL_S7_NIO.equals(config.getProtocol())) {
+            throw new PlcConnectionException("不支持的通信协议: " + config.getProtocol());
+        }
+    }
+
+    /**
+     * 按通信协议类型创建S7客户端，连接数大于1时创建连接池
+     *
+     * @param config PLC配置参数
+     * @return S7客户端
+     */
+    private S7Client createClient(PlcProperties config) {
+        if (config.getPoolSize() > 1) {
+            return new PooledS7Client(() -> createConnection(config), config.getPoolSize(),
+                    config.getRetryInterval(), config.getRetryCount(), config.getHost() + ":" + config.getPort());
+        }
+        return createConnection(config);
+    }
+
+    /**
+     * 创建单条S7连接
+     */
+    private S7Client createConnection(PlcProperties config) {
+        if (PlcProperties.PROTOCOL_S7_NIO.equals(config.getProtocol())) {
+            NioS7Client connection = new NioS7Client(config.getHost(), config.getPort(), config.getRack(), config.getSlot(), config.getTimeout());
+            connection.setTrafficCounter(traffic);
+            connection.setDeviceId(deviceId);
+            connection.setBatchWindow(config.getBatchWindowMicros());
+            connection.setConnectTimeout(config.getConnectTimeout());
+            return connection;
+        }
+        S7TcpClient connection = new S7TcpClient(config.getHost(), config.getPort(), config.getRack(), config.getSlot(), config.getTimeout());
+        connection.setTrafficCounter(traffic);
+        connection.setDeviceId(deviceId);
+        connection.setBatchWindow(config.getBatchWindowMicros());
+        connection.setConnectTimeout(config.getConnectTimeout());
+        return connection;
+    }
+
+    /**
+     * 设置读取计划的解码执行器。NIO传输层的读取在所有连接共享的选择器线程中完成，
+     * 不指定执行器时解码会占用该线程，多台设备的解码互相排队
+     *
+     * @param decodeExecutor 解码执行器，为null时在完成读取的线程中解码
+     */
+    public void setDecodeExecutor(Executor decodeExecutor) {
+        this.decodeExecutor = decodeExecutor;
+    }
+
+    /**
+     * 报文流量统计，重新连接后继续累计
+     */
+    public S7TrafficCounter getTraffic() {
+        return traffic;
+    }
+
+    /**
+     * 当前等待发送和执行中的作业数
+     */
+    public int getPendingJobs() {
+        S7Client current = client;
+        return current != null ? current.getPendingJobs() : 0;
     }
 
     @Override
     public void disconnect() {
-        if (connector != null) {
+        // 先于client读取，connect()先发布client再清除connecting，两者不会同时漏掉
+        S7Client pending = connecting;
+        if (pending != null) {
+            pending.close();
+        }
+        if (client != null) {
             try {
-                connector.close();
+                client.close();
                 log.info("已关闭S7连接");
             } catch (Exception e) {
                 log.error("关闭S7连接时出错: {}", e.getMessage(), e);
             } finally {
-                connector = null;
-                serializer = null;
+                client = null;
                 connected.set(false);
             }
         }
@@ -142,29 +259,31 @@ public class S7PlcServiceImpl implements PlcService {
 
     @Override
     public boolean isConnected() {
-        return connected.get() && connector != null;
+        S7Client current = client;
+        return connected.get() && current != null && current.isConnected();
     }
 
     @Override
     public Object read(String address) throws PlcReadException {
+        if (address == null || address.trim().isEmpty()) {
+            throw new PlcReadException("地址不能为空");
+        }
+        return read(parseAddress(address));
+    }
+
+    @Override
+    public Object read(PlcAddress address) throws PlcReadException {
         if (!isConnected()) {
             throw new PlcReadException("PLC未连接");
         }
 
-        if (address == null || address.trim().isEmpty()) {
+        if (address == null) {
             throw new PlcReadException("地址不能为空");
         }
 
         try {
-            // 校验地址格式
-            validateAddressFormat(address);
-
-            // 解析地址格式: DB10.DBX0.0 (数据块10，字节0，位0)
-            if (address.startsWith("DB")) {
-                return readDataBlock(address);
-            } else {
-                return readMemoryArea(address);
-            }
+            // DB区和I/Q/M存储区使用同一ReadVar请求，区域代码取自预解析的地址
+            return readAddress(address);
         } catch (PlcReadException e) {
             log.error("读取S7 PLC数据失败: {}", e.getMessage());
             throw e;
@@ -174,87 +293,170 @@ public class S7PlcServiceImpl implements PlcService {
         }
     }
 
+    @Override
+    public float readReal(String address) throws PlcReadException {
+        PlcAddress plcAddress = parseScalarAddress(address);
+        return S7ValueCodec.rawToReal(plcAddress, readRaw(plcAddress));
+    }
+
+    @Override
+    public int readDInt(String address) throws PlcReadException {
+        PlcAddress plcAddress = parseScalarAddress(address);
+        return S7ValueCodec.rawToDInt(plcAddress, readRaw(plcAddress));
+    }
+
+    @Override
+    public boolean readBool(String address) throws PlcReadException {
+        PlcAddress plcAddress = parseScalarAddress(address);
+        return S7ValueCodec.rawToBool(plcAddress, readRaw(plcAddress));
+    }
+
+    /**
+     * 解析类型化读取的地址，字符串和数组地址没有对应的标量值
+     *
+     * @param address PLC地址
+     * @return 标量地址描述符
+     * @throws PlcReadException 地址为空、格式不正确或不是标量地址时抛出异常
+     */
+    private PlcAddress parseScalarAddress(String address) throws PlcReadException {
+        if (address == null || address.trim().isEmpty()) {
+            throw new PlcReadException("地址不能为空");
+        }
+        PlcAddress plcAddress = parseAddress(address);
+        if (plcAddress.getCount() > 0) {
+            throw new PlcReadException("类型化读取只支持标量地址: " + address);
+        }
+        return plcAddress;
+    }
+
     /**
-     * 校验PLC地址格式
+     * 读取单个地址的原始值
+     *
+     * @param address 地址描述符
+     * @return 原始值，见{@link S7ValueCodec#decodeRaw(PlcAddress, byte[], int)}
+     * @throws PlcReadException 读取异常
+     */
+    private int readRaw(PlcAddress address) throws PlcReadException {
+        if (!isConnected()) {
+            throw new PlcReadException("PLC未连接");
+        }
+        S7Item item = toReadItem(address);
+        try {
+            client.read(Collections.singletonList(item));
+        } catch (IOException e) {
+            throw new PlcReadException("S7协议错误: " + e.getMessage() + " (地址: " + address + ")", e);
+        }
+        if (!item.isSuccess()) {
+            throw new PlcReadException("读取失败: " + S7Protocol.returnCodeText(item.getReturnCode())
+                    + " (地址: " + address + ")");
+        }
+        return S7ValueCodec.decodeRaw(address, item.getBuffer().array(), address.getByteOffset());
+    }
+
+    @Override
+    public void readBatch(TagBatch batch) throws PlcReadException {
+        if (!isConnected()) {
+            batch.invalidate();
+            throw new PlcReadException("PLC未连接");
+        }
+        List<S7Item> items = batch.prepare(config.getReadGapTolerance());
+        try {
+            if (!items.isEmpty()) {
+                client.read(items);
+            }
+        } catch (IOException e) {
+            batch.invalidate();
+            throw new PlcReadException("批量读取失败: " + e.getMessage(), e);
+        }
+        batch.decode();
+    }
+
+    /**
+     * 解析并缓存地址描述符
      *
      * @param address PLC地址
+     * @return 地址描述符
      * @throws PlcReadException 地址格式不正确时抛出异常
      */
-    private void validateAddressFormat(String address) throws PlcReadException {
-        if (address.startsWith("DB")) {
-            if (!DB_ADDRESS_PATTERN.matcher(address).matches()) {
-                throw new PlcReadException("DB区域地址格式不正确: " + address);
-            }
-        } else {
-            if (!MEMORY_ADDRESS_PATTERN.matcher(address).matches()) {
-                throw new PlcReadException("存储区地址格式不正确: " + address);
-            }
+    private PlcAddress parseAddress(String address) throws PlcReadException {
+        try {
+            return PlcAddressCache.get(address);
+        } catch (IllegalArgumentException e) {
+            throw new PlcReadException(e.getMessage(), e);
         }
     }
 
     /**
-     * 读取数据块(DB)区域数据
+     * 读取单个地址的数据
      *
-     * @param address DB区域地址
+     * @param address DB区或I/Q/M存储区地址
      * @return 读取的数据值
      * @throws Exception 读取异常
      */
-    private Object readDataBlock(String address) throws Exception {
+    private Object readAddress(PlcAddress address) throws Exception {
         try {
-            String[] parts = address.split("\\.");
-            int dbNumber = Integer.parseInt(parts[0].substring(2));
-            if (parts[1].startsWith("DBX")) {
-                // 读取位 DBX - Bit
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                int bitOffset = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
-                log.debug("读取DB{} DBX{}.{}, byteOffset={}, bitOffset={}", dbNumber, byteOffset, bitOffset, byteOffset, bitOffset);
-                return serializer.dispense(Boolean.class, dbNumber, byteOffset, bitOffset);
-            } else if (parts[1].startsWith("DBB")) {
-                // 读取字节 DBB - Byte
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                log.debug("读取DB{} DBB{}, byteOffset={}", dbNumber, byteOffset, byteOffset);
-                return serializer.dispense(Byte.class, dbNumber, byteOffset);
-            } else if (parts[1].startsWith("DBW")) {
-                // 读取字 DBW - Word (16位)
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                log.debug("读取DB{} DBW{}, byteOffset={}", dbNumber, byteOffset, byteOffset);
-                return serializer.dispense(Short.class, dbNumber, byteOffset);
-            } else if (parts[1].startsWith("DBD")) {
-                // 读取双字 DBD - Double Word (32位)
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                log.debug("读取DB{} DBD{}, byteOffset={}", dbNumber, byteOffset, byteOffset);
-                return serializer.dispense(Integer.class, dbNumber, byteOffset);
-            } else if (parts[1].startsWith("DBR")) {
-                // 读取浮点数 DBR - Real (32位浮点数)
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                log.debug("读取DB{} DBR{}, byteOffset={}", dbNumber, byteOffset, byteOffset);
-                return serializer.dispense(Float.class, dbNumber, byteOffset);
-            } else {
-                throw new PlcReadException("不支持的S7地址格式: " + address);
-            }
-        } catch (Exception e) {
+            log.debug("读取地址: {}", address);
+            S7Item item = toReadItem(address);
+            client.read(Collections.singletonList(item));
+            return decodeItem(address, item);
+        } catch (IOException e) {
             log.error("S7协议错误: {} (地址: {})", e.getMessage(), address);
             throw new PlcReadException("S7协议错误: " + e.getMessage() + " (地址: " + address + ")", e);
         }
     }
 
     /**
-     * 读取存储区(I/Q/M)数据
+     * 单个地址的ReadVar数据项，位地址读取所在字节后在本地取位
+     */
+    private S7Item toReadItem(PlcAddress address) {
+        return S7Item.ofBytes(address.getArea(), address.getDbNumber(), address.getByteOffset(), address.getLength(),
+                ByteBuffer.wrap(new byte[address.getLength()]), 0);
+    }
+
+    /**
+     * 检查数据项返回码并解码
      *
-     * @param address 存储区地址
+     * @param address 地址描述符
+     * @param item    已读取的数据项
      * @return 读取的数据值
-     * @throws Exception 读取异常
+     * @throws PlcReadException 数据项返回码不为成功时抛出异常
      */
-    private Object readMemoryArea(String address) throws Exception {
-        // 处理I(输入)、Q(输出)、M(位存储器)等存储区
-        log.warn("暂不支持非DB区地址读取: {}", address);
+    private Object decodeItem(PlcAddress address, S7Item item) throws PlcReadException {
+        if (!item.isSuccess()) {
+            throw new PlcReadException("读取失败: " + S7Protocol.returnCodeText(item.getReturnCode())
+                    + " (地址: " + address + ")");
+        }
+        return S7ValueCodec.decode(address, item.getBuffer().array(), address.getByteOffset());
+    }
 
-        // 根据地址类型返回默认值
-        if (address.contains(".")) {
-            return false; // 位地址返回false
-        } else {
-            return (byte) 0; // 字节地址返回0
+    @Override
+    public CompletableFuture<Object> readAsync(String address) {
+        PlcAddress plcAddress;
+        try {
+            if (!isConnected()) {
+                throw new PlcReadException("PLC未连接");
+            }
+            if (address == null || address.trim().isEmpty()) {
+                throw new PlcReadException("地址不能为空");
+            }
+            plcAddress = parseAddress(address);
+        } catch (PlcReadException e) {
+            return failedFuture(e);
         }
+
+        S7Item item = toReadItem(plcAddress);
+        return client.readAsync(Collections.singletonList(item)).handle((ignored, error) -> {
+            try {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    log.error("S7协议错误: {} (地址: {})", cause.getMessage(), plcAddress);
+                    throw new PlcReadException("S7协议错误: " + cause.getMessage() + " (地址: " + plcAddress + ")", cause);
+                }
+                return decodeItem(plcAddress, item);
+            } catch (PlcReadException e) {
+                throw new CompletionException(e);
+            }
+        });
     }
 
     @Override
@@ -262,37 +464,159 @@ public class S7PlcServiceImpl implements PlcService {
         if (!isConnected()) {
             throw new PlcReadException("PLC未连接");
         }
+        try {
+            return readMultipleAsync(addresses).join();
+        } catch (CompletionException e) {
+            // 连接在检查之后断开时异步结果以异常结束，还原为受检异常
+            Throwable cause = unwrap(e);
+            if (cause instanceof PlcReadException) {
+                throw (PlcReadException) cause;
+            }
+            throw new PlcReadException("批量读取失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> readMultipleAsync(String[] addresses) {
+        if (!isConnected()) {
+            return failedFuture(new PlcReadException("PLC未连接"));
+        }
 
         if (addresses == null || addresses.length == 0) {
-            return new HashMap<>();
+            return CompletableFuture.completedFuture(new HashMap<>());
         }
 
         Map<String, Object> results = new HashMap<>();
+        List<PlcAddress> parsed = new ArrayList<>(addresses.length);
         for (String address : addresses) {
-            try {
-                if (address != null && !address.trim().isEmpty()) {
-                    results.put(address, read(address));
+            if (address == null || address.trim().isEmpty()) {
+                continue;
+            }
+            PlcAddress plcAddress = PlcAddressCache.find(address);
+            if (plcAddress != null) {
+                parsed.add(plcAddress);
+            } else {
+                results.put(address, null);
+            }
+        }
+
+        ReadPlan plan = ReadPlanner.plan(parsed.toArray(new PlcAddress[0]), config.getReadGapTolerance());
+        return readPlanAsync(plan).thenApply(result -> {
+            PlcAddress[] planAddresses = plan.getAddresses();
+            for (int i = 0; i < planAddresses.length; i++) {
+                results.put(planAddresses[i].getAddress(), result.getValue(i));
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public CompletableFuture<ReadResult> readPlanAsync(ReadPlan plan, RequestPriority priority) {
+        S7Client current = client;
+        if (current == null || !isConnected()) {
+            return failedFuture(new PlcReadException("PLC未连接"));
+        }
+
+        // 所有读取块(DB和I/Q/M)打包进按PDU大小划分的多项ReadVar请求，再在本地逐个解码；
+        // 同一字节内的多个位地址已合并为一个读取块，只读取一次该字节
+        long traceStart = PlcTrace.begin();
+        Object traceEvent = PlcTrace.beginEvent(TraceStage.READ_PLAN);
+        ReadResult result = new ReadResult(plan);
+        List<ReadBlock> blocks = plan.getBlocks();
+        List<S7Item> items = new ArrayList<>(blocks.size());
+        for (ReadBlock block : blocks) {
+            items.add(S7Item.ofBytes(block.getArea(), block.getDbNumber(), block.getStartOffset(), block.getLength(),
+                    ByteBuffer.wrap(new byte[block.getLength()]), 0));
+        }
+        log.debug("批量读取: {}个地址合并为{}个读取块", plan.size(), plan.getBlocks().size());
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        BiFunction<Void, Throwable, ReadResult> decode = (ignored, error) -> {
+            if (error != null) {
+                // 通信失败时所有地址标记为通信失败，不再逐项解码
+                log.warn("批量读取失败: {}", unwrap(error).getMessage());
+                for (int i = 0; i < result.size(); i++) {
+                    result.setBad(i, TagQuality.BAD_COMM);
                 }
-            } catch (Exception e) {
-                log.warn("读取地址 {} 失败: {}", address, e.getMessage());
-                // 为失败的读取提供默认值
-                if (address.contains(".")) {
-                    results.put(address, false); // 位地址默认false
-                } else {
-                    results.put(address, (byte) 0); // 字节地址默认0
+            } else {
+                long decodeStart = PlcTrace.begin();
+                Object decodeEvent = PlcTrace.beginEvent(TraceStage.DECODE);
+                for (int i = 0; i < blocks.size(); i++) {
+                    decodeBlock(plan, i, items.get(i), result);
                 }
+                if (decodeStart != 0L || decodeEvent != null) {
+                    PlcTrace.end(TraceStage.DECODE, deviceId, PlcTrace.NO_DB, plan.totalBytes(), plan.size(),
+                            decodeStart, decodeEvent);
+                }
+            }
+            // 失败和超时的读取同样结束阶段，慢周期的跟踪不丢失
+            if (traceStart != 0L || traceEvent != null) {
+                PlcTrace.end(TraceStage.READ_PLAN, deviceId, PlcTrace.NO_DB, plan.totalBytes(), blocks.size(),
+                        traceStart, traceEvent);
             }
+            return result;
+        };
+        Executor executor = decodeExecutor;
+        CompletableFuture<Void> read = current.readAsync(items, priority);
+        return executor != null ? read.handleAsync(decode, executor) : read.handle(decode);
+    }
+
+    /**
+     * 从已读取的数据项中解码读取块内各地址的值，数据项返回码不成功时按返回码标记块内地址的质量。
+     * 全部为位地址的块只保存原始字节，由结果在取值时解码
+     *
+     * @param plan       读取计划
+     * @param blockIndex 读取块在计划中的下标
+     * @param item       读取块对应的数据项
+     * @param result     按计划地址顺序排列的读取结果
+     */
+    private void decodeBlock(ReadPlan plan, int blockIndex, S7Item item, ReadResult result) {
+        ReadBlock block = plan.getBlocks().get(blockIndex);
+        if (!item.isSuccess()) {
+            log.debug("读取块 {} 失败: {}", block, S7Protocol.returnCodeText(item.getReturnCode()));
+            TagQuality quality = TagQuality.fromReturnCode(item.getReturnCode());
+            for (int index : block.getItemIndexes()) {
+                result.setBad(index, quality);
+            }
+            return;
+        }
+
+        byte[] data = item.getBuffer().array();
+        result.setBlockData(blockIndex, data);
+        if (block.isBitOnly()) {
+            return;
+        }
+        PlcAddress[] planAddresses = plan.getAddresses();
+        Object[] values = result.peekValues();
+        for (int index : block.getItemIndexes()) {
+            values[index] = S7ValueCodec.decode(planAddresses[index], data, block.getStartOffset());
         }
-        return results;
     }
 
     @Override
     public void write(String address, Object value) throws PlcWriteException {
+        if (address == null || address.trim().isEmpty()) {
+            throw new PlcWriteException("地址不能为空");
+        }
+
+        PlcAddress plcAddress;
+        try {
+            plcAddress = PlcAddressCache.get(address);
+        } catch (IllegalArgumentException e) {
+            throw new PlcWriteException(e.getMessage(), e);
+        }
+        write(plcAddress, value);
+    }
+
+    @Override
+    public void write(PlcAddress address, Object value) throws PlcWriteException {
         if (!isConnected()) {
             throw new PlcWriteException("PLC未连接");
         }
 
-        if (address == null || address.trim().isEmpty()) {
+        if (address == null) {
             throw new PlcWriteException("地址不能为空");
         }
 
@@ -301,15 +625,7 @@ public class S7PlcServiceImpl implements PlcService {
         }
 
         try {
-            // 校验地址格式
-            validateAddressFormat(address);
-
-            // 解析地址格式并写入
-            if (address.startsWith("DB")) {
-                writeDataBlock(address, value);
-            } else {
-                writeMemoryArea(address, value);
-            }
+            writeAddress(address, value);
         } catch (PlcWriteException e) {
             log.error("写入S7 PLC数据失败: {}", e.getMessage());
             throw e;
@@ -320,100 +636,268 @@ public class S7PlcServiceImpl implements PlcService {
     }
 
     /**
-     * 写入数据块(DB)区域数据
+     * 写入单个地址的数据
      *
-     * @param address DB区域地址
+     * @param address DB区或I/Q/M存储区地址
      * @param value   要写入的值
      * @throws Exception 写入异常
      */
-    private void writeDataBlock(String address, Object value) throws Exception {
+    private void writeAddress(PlcAddress address, Object value) throws Exception {
         try {
-            String[] parts = address.split("\\.");
-            int dbNumber = Integer.parseInt(parts[0].substring(2));
-
-            if (parts[1].startsWith("DBX")) {
-                // 写入位
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                int bitOffset = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
-                log.debug("写入DB{} DBX{}.{}, byteOffset={}, bitOffset={}, value={}",
-                        dbNumber, byteOffset, bitOffset, byteOffset, bitOffset, value);
-                serializer.store(value, dbNumber, byteOffset);
-            } else if (parts[1].startsWith("DBB")) {
-                // 写入字节
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                log.debug("写入DB{} DBB{}, byteOffset={}, value={}", dbNumber, byteOffset, byteOffset, value);
-                serializer.store(value, dbNumber, byteOffset);
-            } else if (parts[1].startsWith("DBW")) {
-                // 写入字
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                log.debug("写入DB{} DBW{}, byteOffset={}, value={}", dbNumber, byteOffset, byteOffset, value);
-                serializer.store(value, dbNumber, byteOffset);
-            } else if (parts[1].startsWith("DBD")) {
-                // 写入双字
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                log.debug("写入DB{} DBD{}, byteOffset={}, value={}", dbNumber, byteOffset, byteOffset, value);
-                serializer.store(value, dbNumber, byteOffset);
-            } else if (parts[1].startsWith("DBR")) {
-                // 写入浮点数
-                int byteOffset = Integer.parseInt(parts[1].substring(3));
-                log.debug("写入DB{} DBR{}, byteOffset={}, value={}", dbNumber, byteOffset, byteOffset, value);
-                serializer.store(value, dbNumber, byteOffset);
-            } else {
-                throw new PlcWriteException("不支持的S7地址格式: " + address);
-            }
-        } catch (com.github.s7connector.exception.S7Exception e) {
+            log.debug("写入地址: {}, value={}", address, value);
+            S7Item item = toWriteItem(address, value);
+            client.write(Collections.singletonList(item));
+            checkWriteItem(address, item);
+        } catch (IOException e) {
             log.error("S7协议错误: {} (地址: {})", e.getMessage(), address);
             throw new PlcWriteException("S7协议错误: " + e.getMessage() + " (地址: " + address + ")", e);
-        } catch (NumberFormatException e) {
-            throw new PlcWriteException("地址格式解析错误: " + address, e);
         }
     }
 
     /**
-     * 写入存储区(I/Q/M)数据
+     * 检查写入数据项返回码
+     *
+     * @throws PlcWriteException 数据项返回码不为成功时抛出异常
+     */
+    private void checkWriteItem(PlcAddress address, S7Item item) throws PlcWriteException {
+        if (!item.isSuccess()) {
+            throw new PlcWriteException("写入失败: " + S7Protocol.returnCodeText(item.getReturnCode())
+                    + " (地址: " + address + ")");
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(String address, Object value) {
+        PlcAddress plcAddress;
+        S7Item item;
+        try {
+            if (!isConnected()) {
+                throw new PlcWriteException("PLC未连接");
+            }
+            if (address == null || address.trim().isEmpty()) {
+                throw new PlcWriteException("地址不能为空");
+            }
+            if (value == null) {
+                throw new PlcWriteException("写入值不能为空");
+            }
+            plcAddress = PlcAddressCache.get(address);
+            item = toWriteItem(plcAddress, value);
+        } catch (PlcWriteException e) {
+            return failedFuture(e);
+        } catch (Exception e) {
+            return failedFuture(new PlcWriteException("写入S7 PLC数据失败: " + e.getMessage(), e));
+        }
+
+        return client.writeAsync(Collections.singletonList(item)).handle((ignored, error) -> {
+            try {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    log.error("S7协议错误: {} (地址: {})", cause.getMessage(), plcAddress);
+                    throw new PlcWriteException("S7协议错误: " + cause.getMessage() + " (地址: " + plcAddress + ")", cause);
+                }
+                checkWriteItem(plcAddress, item);
+                return null;
+            } catch (PlcWriteException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * 将写入值编码为WriteVar数据项，位地址按位写入，不影响同一字节中的其他位
      *
-     * @param address 存储区地址
+     * @param address DB区或I/Q/M存储区地址
      * @param value   要写入的值
-     * @throws Exception 写入异常
+     * @return 数据项
      */
-    private void writeMemoryArea(String address, Object value) throws Exception {
-        // 处理I(输入)、Q(输出)、M(位存储器)等存储区
-        log.info("写入非DB区地址: {} = {}", address, value);
-        // 注意：实际应用中，输入区(I)通常不能写入，这里仅作记录
+    private S7Item toWriteItem(PlcAddress address, Object value) {
+        byte[] data = new byte[address.getLength()];
+        S7ValueCodec.encode(address, value, data, 0);
+        if (address.isBit()) {
+            return S7Item.ofBit(address.getArea(), address.getDbNumber(), address.getByteOffset(), address.getBitOffset(),
+                    ByteBuffer.wrap(data), 0);
+        }
+        return S7Item.ofBytes(address.getArea(), address.getDbNumber(), address.getByteOffset(), address.getLength(),
+                ByteBuffer.wrap(data), 0);
     }
 
     @Override
-    public void writeMultiple(Map<String, Object> values) throws PlcWriteException {
+    public void readBytes(int db, int offset, int length, ByteBuffer dst) throws PlcReadException {
+        if (!isConnected()) {
+            throw new PlcReadException("PLC未连接");
+        }
+        if (db < 0 || offset < 0 || length <= 0) {
+            throw new PlcReadException("读取范围不正确: DB" + db + ", offset=" + offset + ", length=" + length);
+        }
+        if (dst.isReadOnly() || dst.remaining() < length) {
+            throw new PlcReadException("目标缓冲区不可写或空间不足: remaining=" + dst.remaining() + ", length=" + length);
+        }
+
+        // 数据项直接引用调用方缓冲区，超过PDU容量的部分由客户端拆分为共享同一缓冲区的子数据项
+        S7Item item = S7Item.ofBytes(PlcArea.DB, db, offset, length, dst, dst.position());
+        try {
+            client.read(Collections.singletonList(item), RequestPriority.BULK);
+        } catch (IOException e) {
+            throw new PlcReadException("S7协议错误: " + e.getMessage() + " (DB" + db + "." + offset + "+" + length + ")", e);
+        }
+        if (!item.isSuccess()) {
+            throw new PlcReadException("读取失败: " + S7Protocol.returnCodeText(item.getReturnCode())
+                    + " (DB" + db + "." + offset + "+" + length + ")");
+        }
+        dst.position(dst.position() + length);
+    }
+
+    @Override
+    public <T> T readStruct(int db, int offset, Class<T> type) throws PlcReadException {
+        S7StructCodec<T> codec;
+        try {
+            codec = S7StructCodec.of(type);
+        } catch (IllegalArgumentException e) {
+            throw new PlcReadException(e.getMessage(), e);
+        }
+        byte[] data = new byte[codec.getLength()];
+        readBytes(db, offset, data.length, ByteBuffer.wrap(data));
+        try {
+            return codec.decode(data, 0);
+        } catch (IllegalStateException e) {
+            throw new PlcReadException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> void writeStruct(int db, int offset, T value) throws PlcWriteException {
+        if (value == null) {
+            throw new PlcWriteException("写入值不能为空");
+        }
+        S7StructCodec<T> codec;
+        try {
+            codec = S7StructCodec.of((Class<T>) value.getClass());
+        } catch (IllegalArgumentException e) {
+            throw new PlcWriteException(e.getMessage(), e);
+        }
+        byte[] data = new byte[codec.getLength()];
+        if (!codec.isFullyCovered()) {
+            // 字段之间有未映射的字节或位，先读取原有数据，避免写入时覆盖
+            try {
+                readBytes(db, offset, data.length, ByteBuffer.wrap(data));
+            } catch (PlcReadException e) {
+                throw new PlcWriteException("读取结构体原有数据失败: " + e.getMessage(), e);
+            }
+        }
+        try {
+            codec.encode(value, data, 0);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new PlcWriteException(e.getMessage(), e);
+        }
+        writeBytes(db, offset, ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public void writeBytes(int db, int offset, ByteBuffer src) throws PlcWriteException {
+        if (!isConnected()) {
+            throw new PlcWriteException("PLC未连接");
+        }
+        int length = src.remaining();
+        if (db < 0 || offset < 0 || length == 0) {
+            throw new PlcWriteException("写入范围不正确: DB" + db + ", offset=" + offset + ", length=" + length);
+        }
+
+        S7Item item = S7Item.ofBytes(PlcArea.DB, db, offset, length, src, src.position());
+        try {
+            client.write(Collections.singletonList(item));
+        } catch (IOException e) {
+            throw new PlcWriteException("S7协议错误: " + e.getMessage() + " (DB" + db + "." + offset + "+" + length + ")", e);
+        }
+        if (!item.isSuccess()) {
+            throw new PlcWriteException("写入失败: " + S7Protocol.returnCodeText(item.getReturnCode())
+                    + " (DB" + db + "." + offset + "+" + length + ")");
+        }
+        src.position(src.limit());
+    }
+
+    @Override
+    public Map<String, PlcWriteResult> writeMultiple(Map<String, Object> values) throws PlcWriteException {
         if (!isConnected()) {
             throw new PlcWriteException("PLC未连接");
         }
 
+        Map<String, PlcWriteResult> results = new LinkedHashMap<>();
         if (values == null || values.isEmpty()) {
-            return;
+            return results;
         }
 
+        // 先按映射顺序校验和编码，所有区域的地址进入同一写入计划
+        List<String> keys = new ArrayList<>(values.size());
+        List<PlcAddress> addresses = new ArrayList<>(values.size());
+        List<byte[]> encoded = new ArrayList<>(values.size());
         for (Map.Entry<String, Object> entry : values.entrySet()) {
-            if (entry.getKey() != null && entry.getValue() != null) {
-                write(entry.getKey(), entry.getValue());
+            String key = entry.getKey();
+            if (key == null) {
+                continue;
+            }
+            results.put(key, null);
+            if (entry.getValue() == null) {
+                results.put(key, PlcWriteResult.failure(key, "写入值不能为空"));
+                continue;
+            }
+            try {
+                PlcAddress address = PlcAddressCache.get(key);
+                byte[] data = new byte[address.getLength()];
+                S7ValueCodec.encode(address, entry.getValue(), data, 0);
+                keys.add(key);
+                addresses.add(address);
+                encoded.add(data);
+            } catch (IllegalArgumentException e) {
+                log.warn("写入地址 {} 失败: {}", key, e.getMessage());
+                results.put(key, PlcWriteResult.failure(key, e.getMessage()));
             }
         }
-    }
+        if (addresses.isEmpty()) {
+            return results;
+        }
 
-    /**
-     * 检查主机网络连通性
-     *
-     * @param host    主机地址
-     * @param port    端口号
-     * @param timeout 超时时间(毫秒)
-     * @return 是否可连接
-     */
-    private boolean isHostReachable(String host, int port, int timeout) {
-        try (java.net.Socket socket = new java.net.Socket()) {
-            socket.connect(new java.net.InetSocketAddress(host, port), timeout);
-            return true;
-        } catch (Exception e) {
-            log.warn("无法连接到 {}:{} - {}", host, port, e.getMessage());
-            return false;
+        // 合并相邻和重叠的写入区间，所有写入块打包进多项WriteVar请求
+        WritePlan plan = WritePlanner.plan(addresses.toArray(new PlcAddress[0]), encoded.toArray(new byte[0][]));
+        List<S7Item> items = new ArrayList<>(plan.getBlocks().size());
+        for (WriteBlock block : plan.getBlocks()) {
+            ByteBuffer buffer = ByteBuffer.wrap(block.getData());
+            items.add(block.isBitAccess()
+                    ? S7Item.ofBit(block.getArea(), block.getDbNumber(), block.getStartOffset(), block.getBitOffset(), buffer, 0)
+                    : S7Item.ofBytes(block.getArea(), block.getDbNumber(), block.getStartOffset(), block.getLength(), buffer, 0));
+        }
+        log.debug("批量写入: {}个地址合并为{}个写入块", plan.size(), items.size());
+
+        String communicationError = null;
+        try {
+            client.write(items);
+        } catch (IOException e) {
+            log.error("批量写入失败: {}", e.getMessage());
+            communicationError = "S7协议错误: " + e.getMessage();
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            S7Item item = items.get(i);
+            String error = communicationError;
+            if (error == null && !item.isSuccess()) {
+                error = "写入失败: " + S7Protocol.returnCodeText(item.getReturnCode());
+                log.warn("写入块 {} 失败: {}", plan.getBlocks().get(i), error);
+            }
+            for (int index : plan.getBlocks().get(i).getItemIndexes()) {
+                String address = keys.get(index);
+                results.put(address, error == null ? PlcWriteResult.success(address) : PlcWriteResult.failure(address, error));
+            }
         }
+        return results;
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 }
@@ -0,0 +1,85 @@
+package com.yuzj.autolink.plc.session;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁耗时直方图
+ * 以微秒为单位按对数线性分桶: 64微秒以内每微秒一个桶，之后每个2的幂区间分为32个桶，相对误差不超过1/32。
+ * 记录只做一次数组元素自增和一次累加，不加锁、不分配对象；统计时复制各桶计数生成快照
+ *
+ * @author yuzj002
+ */
+public final class LatencyHistogram {
+
+    /**
+     * 每个2的幂区间的子桶数(2^5)
+     */
+    static final int SUB_BITS = 5;
+    static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /**
+     * 按微秒线性分桶的上限
+     */
+    static final int LINEAR = SUB_COUNT << 1;
+
+    /**
+     * 最大可区分的指数，约19小时，更大的值计入最后一个桶
+     */
+    private static final int MAX_EXPONENT = 36;
+
+    static final int BUCKETS = LINEAR + (MAX_EXPONENT - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param latencyNanos 耗时(纳秒)
+     */
+    public void record(long latencyNanos) {
+        long micros = Math.max(latencyNanos, 0) / 1000;
+        counts.incrementAndGet(bucketOf(micros));
+        totalMicros.add(micros);
+        long max;
+        while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+            // 并发更新最大值时重试
+        }
+    }
+
+    /**
+     * 当前累计统计的快照
+     */
+    public LatencySnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new LatencySnapshot(copy, totalMicros.sum(), maxMicros.get());
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return Math.min(LINEAR + (exponent - SUB_BITS - 1) * SUB_COUNT + sub, BUCKETS - 1);
+    }
+
+    /**
+     * 桶内最大值(微秒)
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int index = bucket - LINEAR;
+        int shift = index / SUB_COUNT + 1;
+        long lower = (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,123 @@
+package com.yuzj.autolink.plc.session;
+
+/**
+ * 耗时直方图快照
+ * 累计快照相减得到一段时间内的统计，多个快照相加得到汇总统计
+ *
+ * @author yuzj002
+ */
+public final class LatencySnapshot {
+
+    /**
+     * 没有任何记录的快照
+     */
+    public static final LatencySnapshot EMPTY = new LatencySnapshot(new long[LatencyHistogram.BUCKETS], 0, 0);
+
+    private final long[] counts;
+    private final long count;
+    private final long totalMicros;
+
+    /**
+     * 最大值(微秒)，区间快照为最高非空桶的上界
+     */
+    private final long maxMicros;
+
+    LatencySnapshot(long[] counts, long totalMicros, long maxMicros) {
+        long sum = 0;
+        for (long c : counts) {
+            sum += c;
+        }
+        this.counts = counts;
+        this.count = sum;
+        this.totalMicros = totalMicros;
+        this.maxMicros = maxMicros;
+    }
+
+    /**
+     * 记录次数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 平均耗时(毫秒)
+     */
+    public double getMeanMillis() {
+        return count == 0 ? 0 : totalMicros / (double) count / 1000;
+    }
+
+    /**
+     * 最大耗时(毫秒)
+     */
+    public double getMaxMillis() {
+        return maxMicros / 1000.0;
+    }
+
+    public double getP50Millis() {
+        return getPercentileMillis(50);
+    }
+
+    public double getP95Millis() {
+        return getPercentileMillis(95);
+    }
+
+    public double getP99Millis() {
+        return getPercentileMillis(99);
+    }
+
+    /**
+     * 百分位耗时(毫秒)，取所在桶的上界且不超过最大值
+     *
+     * @param percentile 百分位(0-100)
+     */
+    public double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(LatencyHistogram.upperBoundOf(i), maxMicros) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * 与之前的累计快照相减，得到两次快照之间的统计
+     *
+     * @param previous 同一直方图较早的快照
+     */
+    public LatencySnapshot minus(LatencySnapshot previous) {
+        long[] diff = new long[counts.length];
+        int highest = -1;
+        for (int i = 0; i < counts.length; i++) {
+            diff[i] = counts[i] - previous.counts[i];
+            if (diff[i] > 0) {
+                highest = i;
+            }
+        }
+        long max = highest < 0 ? 0 : Math.min(LatencyHistogram.upperBoundOf(highest), maxMicros);
+        return new LatencySnapshot(diff, totalMicros - previous.totalMicros, max);
+    }
+
+    /**
+     * 与另一个快照合并
+     */
+    public LatencySnapshot plus(LatencySnapshot other) {
+        long[] sum = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            sum[i] = counts[i] + other.counts[i];
+        }
+        return new LatencySnapshot(sum, totalMicros + other.totalMicros, Math.max(maxMicros, other.maxMicros));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d, p50=%.3fms, p95=%.3fms, p99=%.3fms, max=%.3fms",
+                count, getP50Millis(), getP95Millis(), getP99Millis(), getMaxMillis());
+    }
+}
@@ -0,0 +1,242 @@
+package com.yuzj.autolink.plc.session;
+
+import com.yuzj.autolink.config.PlcProperties;
+import com.yuzj.autolink.dao.model.PlcConnectConfig;
+import com.yuzj.autolink.dao.repository.PlcConnectConfigRepository;
+import com.yuzj.autolink.exception.PlcConnectionException;
+import com.yuzj.autolink.plc.service.PlcService;
+import com.yuzj.autolink.plc.trace.PlcTrace;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多PLC连接管理器
+ * 为plc_connect_config中每台激活的设备维护独立的会话，按设备ID查找通信服务；
+ * 设备ID为0的默认会话使用配置文件中的连接参数，供界面手动连接使用
+ *
+ * @author yuzj002
+ */
+@Slf4j
+@Component
+public class PlcConnectionManager {
+
+    /**
+     * 默认会话的设备ID
+     */
+    public static final long DEFAULT_DEVICE_ID = 0L;
+
+    @Resource
+    private PlcProperties plcProperties;
+
+    @Resource
+    private PlcConnectConfigRepository plcConnectConfigRepository;
+
+    private final Map<Long, PlcSession> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        sessions.put(DEFAULT_DEVICE_ID, new PlcSession(DEFAULT_DEVICE_ID, plcProperties));
+        loadConfigs();
+        if (plcProperties.isTraceEnabled()) {
+            PlcTrace.setEnabled(true);
+        }
+    }
+
+    /**
+     * 加载所有激活的设备连接配置，已存在的会话保持不变
+     */
+    public void loadConfigs() {
+        List<PlcConnectConfig> configs = plcConnectConfigRepository.listActive();
+        for (PlcConnectConfig config : configs) {
+            sessions.computeIfAbsent(config.getId(), id -> new PlcSession(id, toProperties(config)));
+        }
+        log.info("已加载PLC设备连接配置: {}台", configs.size());
+    }
+
+    /**
+     * 获取设备会话
+     *
+     * @param deviceId 设备ID
+     * @return 设备会话，不存在时返回null
+     */
+    public PlcSession getSession(long deviceId) {
+        return sessions.get(deviceId);
+    }
+
+    /**
+     * 获取设备通信服务
+     *
+     * @param deviceId 设备ID
+     * @return 通信服务，不存在时返回null
+     */
+    public PlcService getService(long deviceId) {
+        return sessions.get(deviceId);
+    }
+
+    /**
+     * 获取默认会话
+     */
+    public PlcSession getDefaultSession() {
+        return sessions.get(DEFAULT_DEVICE_ID);
+    }
+
+    /**
+     * 获取所有会话
+     */
+    public Collection<PlcSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    /**
+     * 在各会话执行器中并行连接所有配置的设备，单台设备连接失败不影响其他设备，失败的设备由后台继续重连。
+     * 每台设备的连接耗时记入日志和会话统计，全部完成后输出汇总
+     *
+     * @return 所有连接尝试完成后完成
+     */
+    public CompletableFuture<Void> connectAll() {
+        long start = System.nanoTime();
+        AtomicInteger succeeded = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (PlcSession session : sessions.values()) {
+            if (session.getDeviceId() == DEFAULT_DEVICE_ID || session.isConnected()) {
+                continue;
+            }
+            futures.add(CompletableFuture.runAsync(() -> {
+                long connectStart = System.nanoTime();
+                try {
+                    session.connect();
+                    succeeded.incrementAndGet();
+                    log.info("PLC设备已连接: {}, 耗时{}ms", session, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart));
+                } catch (PlcConnectionException e) {
+                    log.warn("PLC设备连接失败: {}, 耗时{}ms - {}", session,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart), e.getMessage());
+                    session.setAutoReconnect(true);
+                }
+            }, session.getExecutor()));
+        }
+        int total = futures.size();
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            if (total > 0) {
+                log.info("PLC设备连接完成: 成功{}/{}台, 总耗时{}ms", succeeded.get(), total,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        connectAll();
+    }
+
+    /**
+     * 导出各设备各操作的耗时统计，CSV格式，每行一个设备的一种操作，用于跨版本对比通信耗时
+     *
+     * @param writer 输出目标
+     * @throws IOException 写入异常
+     */
+    public void exportLatency(Writer writer) throws IOException {
+        writer.write("export_time,device_id,host,operation,count,mean_ms,p50_ms,p95_ms,p99_ms,max_ms\n");
+        String time = LocalDateTime.now().toString();
+        for (PlcSession session : sessions.values()) {
+            for (PlcOperation operation : PlcOperation.values()) {
+                LatencySnapshot snapshot = session.getMetrics().getLatency(operation).snapshot();
+                if (snapshot.getCount() == 0) {
+                    continue;
+                }
+                writer.write(String.format(Locale.ROOT, "%s,%d,%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f\n", time, session.getDeviceId(),
+                        session.getProperties().getHost(), operation, snapshot.getCount(), snapshot.getMeanMillis(),
+                        snapshot.getP50Millis(), snapshot.getP95Millis(), snapshot.getP99Millis(), snapshot.getMaxMillis()));
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * 导出耗时统计到文件
+     *
+     * @param file 目标文件，已存在时覆盖
+     * @throws IOException 写入异常
+     */
+    public void exportLatency(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            exportLatency(writer);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        String exportFile = plcProperties.getLatencyExportFile();
+        if (exportFile != null && !exportFile.trim().isEmpty()) {
+            try {
+                exportLatency(Paths.get(exportFile.trim()));
+                log.info("通信耗时统计已导出: {}", exportFile);
+            } catch (IOException e) {
+                log.warn("通信耗时统计导出失败: {}", e.getMessage());
+            }
+        }
+        String traceFile = plcProperties.getTraceExportFile();
+        if (PlcTrace.isEnabled() && traceFile != null && !traceFile.trim().isEmpty()) {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(traceFile.trim()), StandardCharsets.UTF_8)) {
+                PlcTrace.export(writer, PlcTrace.snapshot());
+                log.info("采集链路跟踪已导出: {}", traceFile);
+            } catch (IOException e) {
+                log.warn("采集链路跟踪导出失败: {}", e.getMessage());
+            }
+        }
+        for (PlcSession session : sessions.values()) {
+            session.close();
+        }
+        sessions.clear();
+    }
+
+    /**
+     * 数据库配置转换为连接参数，未配置的字段使用默认值
+     */
+    private PlcProperties toProperties(PlcConnectConfig config) {
+        PlcProperties properties = new PlcProperties();
+        properties.setHost(config.getHost());
+        properties.setPort(config.getPort());
+        if (config.getRack() != null) {
+            properties.setRack(config.getRack());
+        }
+        if (config.getSlot() != null) {
+            properties.setSlot(config.getSlot());
+        }
+        if (config.getTimeout() != null) {
+            properties.setTimeout(config.getTimeout());
+        }
+        if (config.getProtocol() != null) {
+            properties.setProtocol(config.getProtocol());
+        }
+        properties.setPoolSize(config.getPoolSize() != null ? config.getPoolSize() : plcProperties.getPoolSize());
+        properties.setConnectTimeout(plcProperties.getConnectTimeout());
+        properties.setRetryCount(plcProperties.getRetryCount());
+        properties.setRetryInterval(plcProperties.getRetryInterval());
+        properties.setReadGapTolerance(plcProperties.getReadGapTolerance());
+        properties.setBatchWindowMicros(plcProperties.getBatchWindowMicros());
+        return properties;
+    }
+}
@@ -0,0 +1,46 @@
+package com.yuzj.autolink.plc.session;
+
+import lombok.Getter;
+
+/**
+ * 通信操作类型，按类型分别统计耗时
+ *
+ * @author yuzj002
+ */
+@Getter
+public enum PlcOperation {
+
+    /**
+     * 建立连接
+     */
+    CONNECT("连接"),
+
+    /**
+     * 单个地址或连续字节读取
+     */
+    READ("读取"),
+
+    /**
+     * 多地址批量读取，包括读取计划和TagBatch
+     */
+    READ_MULTIPLE("批量读取"),
+
+    /**
+     * 单个地址或连续字节写入
+     */
+    WRITE("写入"),
+
+    /**
+     * 多地址批量写入
+     */
+    WRITE_MULTIPLE("批量写入");
+
+    /**
+     * 显示名称
+     */
+    private final String displayName;
+
+    PlcOperation(String displayName) {
+        this.displayName = displayName;
+    }
+}
@@ -0,0 +1,178 @@
+package com.yuzj.autolink.plc.session;
+
+import com.yuzj.autolink.config.PlcProperties;
+import com.yuzj.autolink.exception.PlcConnectionException;
+import com.yuzj.autolink.plc.event.PlcConnectStatusEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接断开自动重连
+ * 定时检查所有需要保持连接的会话(连接成功过且未手动断开，或启动时配置的设备)，发现断开后在会话执行器中重新连接，
+ * 重新建立连接时重新协商PDU。重连间隔按指数退避: 第n次失败后等待retryInterval×2^min(n, retryCount)毫秒，
+ * 再在[一半, 全部]之间随机取值，避免多台设备在网络恢复时同时重连。
+ * 断开和恢复时发布{@link PlcConnectStatusEvent}，周期采集引擎收到恢复事件后立即重新执行该设备的读取计划
+ *
+ * @author yuzj002
+ */
+@Slf4j
+@Component
+public class PlcReconnectSupervisor {
+
+    /**
+     * 检查间隔(毫秒)
+     */
+    private static final long CHECK_INTERVAL_MILLIS = 500;
+
+    /**
+     * 重连间隔上限(毫秒)
+     */
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    @Resource
+    private PlcConnectionManager plcConnectionManager;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 正在重连的设备，只由检查线程增删
+     */
+    private final Map<Long, Backoff> backoffs = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PLC-Reconnect-Supervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 检查各会话状态，到期的设备提交一次重连
+     */
+    void check() {
+        try {
+            long now = System.nanoTime();
+            for (PlcSession session : plcConnectionManager.getSessions()) {
+                long deviceId = session.getDeviceId();
+                Backoff backoff = backoffs.get(deviceId);
+                if (backoff != null && backoff.running) {
+                    continue;
+                }
+                if (backoff != null && (backoff.done || backoff.session != session || !session.isAutoReconnect())) {
+                    // 已恢复、已手动断开或会话已被替换
+                    backoffs.remove(deviceId);
+                    backoff = null;
+                }
+                if (session.isConnected() || !session.isAutoReconnect()) {
+                    continue;
+                }
+                if (backoff == null) {
+                    backoff = new Backoff(session, now);
+                    backoff.schedule(now);
+                    backoffs.put(deviceId, backoff);
+                    log.warn("PLC连接已断开，{}ms后开始重连: {}", TimeUnit.NANOSECONDS.toMillis(backoff.nextAttempt - now), session);
+                    eventPublisher.publishEvent(new PlcConnectStatusEvent(deviceId, false, true));
+                } else if (now - backoff.nextAttempt >= 0) {
+                    backoff.running = true;
+                    submit(backoff);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("PLC连接检查失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private void submit(Backoff backoff) {
+        try {
+            backoff.session.getExecutor().execute(() -> attempt(backoff));
+        } catch (RejectedExecutionException e) {
+            // 会话已关闭
+            backoff.done = true;
+            backoff.running = false;
+        }
+    }
+
+    /**
+     * 在会话执行器中执行一次重连
+     */
+    private void attempt(Backoff backoff) {
+        PlcSession session = backoff.session;
+        backoff.attempts++;
+        try {
+            if (session.reconnect()) {
+                long downMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - backoff.since);
+                log.info("PLC重连成功: {}, 第{}次尝试, 中断{}ms", session, backoff.attempts, downMillis);
+                eventPublisher.publishEvent(new PlcConnectStatusEvent(session.getDeviceId(), true, false));
+            }
+            backoff.done = true;
+        } catch (PlcConnectionException e) {
+            long now = System.nanoTime();
+            backoff.schedule(now);
+            log.warn("PLC重连失败: {}, 第{}次尝试, {}ms后重试 - {}", session, backoff.attempts,
+                    TimeUnit.NANOSECONDS.toMillis(backoff.nextAttempt - now), e.getMessage());
+        } catch (Exception e) {
+            backoff.schedule(System.nanoTime());
+            log.error("PLC重连异常: {}", session, e);
+        } finally {
+            backoff.running = false;
+        }
+    }
+
+    /**
+     * 单台设备的重连状态
+     */
+    private static final class Backoff {
+
+        private final PlcSession session;
+
+        /**
+         * 发现断开的时间(纳秒)
+         */
+        private final long since;
+
+        private volatile int attempts;
+        private volatile long nextAttempt;
+        private volatile boolean running;
+        private volatile boolean done;
+
+        Backoff(PlcSession session, long since) {
+            this.session = session;
+            this.since = since;
+        }
+
+        /**
+         * 按已失败次数计算下一次重连时间
+         */
+        void schedule(long now) {
+            PlcProperties properties = session.getProperties();
+            long base = Math.max(properties.getRetryInterval(), 1);
+            int exponent = Math.min(Math.min(attempts, Math.max(properties.getRetryCount(), 0)), 16);
+            long delay = Math.min(base << exponent, MAX_BACKOFF_MILLIS);
+            long jittered = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+            nextAttempt = now + TimeUnit.MILLISECONDS.toNanos(jittered);
+        }
+    }
+}
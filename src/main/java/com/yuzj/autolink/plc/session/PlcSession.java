@@ -0,0 +1,370 @@
+package com.yuzj.autolink.plc.session;
+
+import com.yuzj.autolink.config.PlcProperties;
+import com.yuzj.autolink.exception.PlcConnectionException;
+import com.yuzj.autolink.exception.PlcReadException;
+import com.yuzj.autolink.exception.PlcWriteException;
+import com.yuzj.autolink.plc.address.PlcAddress;
+import com.yuzj.autolink.plc.plan.ReadPlan;
+import com.yuzj.autolink.plc.plan.ReadResult;
+import com.yuzj.autolink.plc.s7.RequestPriority;
+import com.yuzj.autolink.plc.s7.S7TrafficCounter;
+import com.yuzj.autolink.plc.service.PlcService;
+import com.yuzj.autolink.plc.service.PlcWriteResult;
+import com.yuzj.autolink.plc.service.TagBatch;
+import com.yuzj.autolink.plc.service.impl.S7PlcServiceImpl;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.ToIntFunction;
+
+/**
+ * 单台PLC设备的通信会话
+ * 每个会话拥有独立的S7连接、执行器和通信统计，异步请求的回调和读取计划的解码在会话执行器中执行，
+ * 一台设备的慢回调不会阻塞其他设备。同步批量读取等待会话执行器完成解码，不能在会话执行器中调用
+ *
+ * @author yuzj002
+ */
+@Slf4j
+public class PlcSession implements PlcService {
+
+    /**
+     * 设备ID
+     */
+    @Getter
+    private final long deviceId;
+
+    /**
+     * 当前连接配置
+     */
+    @Getter
+    private volatile PlcProperties properties;
+
+    /**
+     * 通信统计
+     */
+    @Getter
+    private final PlcSessionMetrics metrics = new PlcSessionMetrics();
+
+    /**
+     * 会话执行器，用于异步回调和周期任务
+     */
+    @Getter
+    private final ScheduledExecutorService executor;
+
+    /**
+     * 单个地址的操作，地址数量为1
+     */
+    private static final ToIntFunction<Object> SINGLE = ignored -> 1;
+
+    private final S7PlcServiceImpl delegate;
+
+    /**
+     * 连接断开后是否由后台自动重连，连接成功时置位，手动断开时清除
+     */
+    private volatile boolean autoReconnect;
+
+    public PlcSession(long deviceId, PlcProperties properties) {
+        this.deviceId = deviceId;
+        this.properties = properties;
+        this.delegate = new S7PlcServiceImpl(deviceId);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PLC-Session-" + deviceId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 解码在会话执行器中进行，不占用NIO选择器线程
+        this.delegate.setDecodeExecutor(executor);
+    }
+
+    /**
+     * 按会话配置建立连接
+     *
+     * @throws PlcConnectionException 连接异常
+     */
+    public void connect() throws PlcConnectionException {
+        connect(properties);
+    }
+
+    @Override
+    public synchronized void connect(PlcProperties config) throws PlcConnectionException {
+        long start = System.nanoTime();
+        try {
+            delegate.connect(config);
+            metrics.recordConnect(System.nanoTime() - start);
+        } catch (PlcConnectionException e) {
+            metrics.recordError();
+            throw e;
+        }
+        this.properties = config;
+        this.autoReconnect = true;
+    }
+
+    /**
+     * 后台重连: 仍需要保持连接且当前未连接时按会话配置重新建立连接并协商PDU。
+     * 不置位自动重连标识，连接期间被手动断开时关闭刚建立的连接
+     *
+     * @return 是否执行了连接，手动断开或已连接时返回false
+     * @throws PlcConnectionException 连接异常
+     */
+    public synchronized boolean reconnect() throws PlcConnectionException {
+        if (!autoReconnect || isConnected()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            delegate.connect(properties);
+            metrics.recordConnect(System.nanoTime() - start);
+        } catch (PlcConnectionException e) {
+            metrics.recordError();
+            throw e;
+        }
+        if (!autoReconnect) {
+            delegate.disconnect();
+            return false;
+        }
+        metrics.recordReconnect();
+        return true;
+    }
+
+    /**
+     * 手动断开连接，之后不再自动重连。
+     * 不获取连接锁，后台重连正在进行时直接关闭其正在建立的连接，调用线程不等待连接超时
+     */
+    @Override
+    public void disconnect() {
+        autoReconnect = false;
+        delegate.disconnect();
+    }
+
+    /**
+     * 连接断开后是否由后台自动重连
+     */
+    public boolean isAutoReconnect() {
+        return autoReconnect;
+    }
+
+    /**
+     * 设置是否自动重连，首次连接前置位可使启动时连接失败的设备也由后台重试
+     */
+    public void setAutoReconnect(boolean autoReconnect) {
+        this.autoReconnect = autoReconnect;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return delegate.isConnected();
+    }
+
+    /**
+     * 报文流量统计
+     */
+    public S7TrafficCounter getTraffic() {
+        return delegate.getTraffic();
+    }
+
+    /**
+     * 当前等待发送和执行中的作业数
+     */
+    public int getPendingJobs() {
+        return delegate.getPendingJobs();
+    }
+
+    /**
+     * 断开连接并停止会话执行器
+     */
+    public void close() {
+        disconnect();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Object read(String address) throws PlcReadException {
+        return timedRead(PlcOperation.READ, SINGLE, () -> delegate.read(address));
+    }
+
+    @Override
+    public Object read(PlcAddress address) throws PlcReadException {
+        return timedRead(PlcOperation.READ, SINGLE, () -> delegate.read(address));
+    }
+
+    @Override
+    public float readReal(String address) throws PlcReadException {
+        return timedRead(PlcOperation.READ, SINGLE, () -> delegate.readReal(address));
+    }
+
+    @Override
+    public int readDInt(String address) throws PlcReadException {
+        return timedRead(PlcOperation.READ, SINGLE, () -> delegate.readDInt(address));
+    }
+
+    @Override
+    public boolean readBool(String address) throws PlcReadException {
+        return timedRead(PlcOperation.READ, SINGLE, () -> delegate.readBool(address));
+    }
+
+    @Override
+    public void readBatch(TagBatch batch) throws PlcReadException {
+        timedRead(PlcOperation.READ_MULTIPLE, ignored -> batch.size(), () -> {
+            delegate.readBatch(batch);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Object> readAsync(String address) {
+        return timedAsync(PlcOperation.READ, SINGLE, delegate.readAsync(address));
+    }
+
+    @Override
+    public Map<String, Object> readMultiple(String[] addresses) throws PlcReadException {
+        return timedRead(PlcOperation.READ_MULTIPLE, Map::size, () -> delegate.readMultiple(addresses));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> readMultipleAsync(String[] addresses) {
+        return timedAsync(PlcOperation.READ_MULTIPLE, Map::size, delegate.readMultipleAsync(addresses));
+    }
+
+    @Override
+    public CompletableFuture<ReadResult> readPlanAsync(ReadPlan plan, RequestPriority priority) {
+        long start = System.nanoTime();
+        // 部分地址通信失败的结果正常完成，按失败统计
+        return delegate.readPlanAsync(plan, priority).whenCompleteAsync((result, error) -> {
+            if (error == null && !result.hasCommError()) {
+                metrics.recordRead(PlcOperation.READ_MULTIPLE, result.size(), System.nanoTime() - start);
+            } else {
+                metrics.recordError();
+            }
+        }, executor);
+    }
+
+    @Override
+    public void write(String address, Object value) throws PlcWriteException {
+        timedWrite(PlcOperation.WRITE, SINGLE, () -> {
+            delegate.write(address, value);
+            return null;
+        });
+    }
+
+    @Override
+    public void write(PlcAddress address, Object value) throws PlcWriteException {
+        timedWrite(PlcOperation.WRITE, SINGLE, () -> {
+            delegate.write(address, value);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(String address, Object value) {
+        return timedAsync(PlcOperation.WRITE, SINGLE, delegate.writeAsync(address, value));
+    }
+
+    @Override
+    public void readBytes(int db, int offset, int length, ByteBuffer dst) throws PlcReadException {
+        timedRead(PlcOperation.READ, SINGLE, () -> {
+            delegate.readBytes(db, offset, length, dst);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T readStruct(int db, int offset, Class<T> type) throws PlcReadException {
+        return timedRead(PlcOperation.READ, SINGLE, () -> delegate.readStruct(db, offset, type));
+    }
+
+    @Override
+    public void writeBytes(int db, int offset, ByteBuffer src) throws PlcWriteException {
+        timedWrite(PlcOperation.WRITE, SINGLE, () -> {
+            delegate.writeBytes(db, offset, src);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> void writeStruct(int db, int offset, T value) throws PlcWriteException {
+        timedWrite(PlcOperation.WRITE, SINGLE, () -> {
+            delegate.writeStruct(db, offset, value);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, PlcWriteResult> writeMultiple(Map<String, Object> values) throws PlcWriteException {
+        return timedWrite(PlcOperation.WRITE_MULTIPLE, Map::size, () -> delegate.writeMultiple(values));
+    }
+
+    /**
+     * 执行同步读取并记录耗时，失败时计入错误数
+     *
+     * @param items 由结果得出的地址数量
+     */
+    private <T> T timedRead(PlcOperation operation, ToIntFunction<? super T> items,
+                            PlcCall<T, PlcReadException> call) throws PlcReadException {
+        long start = System.nanoTime();
+        try {
+            T value = call.call();
+            metrics.recordRead(operation, items.applyAsInt(value), System.nanoTime() - start);
+            return value;
+        } catch (PlcReadException e) {
+            metrics.recordError();
+            throw e;
+        }
+    }
+
+    /**
+     * 执行同步写入并记录耗时，失败时计入错误数
+     *
+     * @param items 由结果得出的地址数量
+     */
+    private <T> T timedWrite(PlcOperation operation, ToIntFunction<? super T> items,
+                             PlcCall<T, PlcWriteException> call) throws PlcWriteException {
+        long start = System.nanoTime();
+        try {
+            T value = call.call();
+            metrics.recordWrite(operation, items.applyAsInt(value), System.nanoTime() - start);
+            return value;
+        } catch (PlcWriteException e) {
+            metrics.recordError();
+            throw e;
+        }
+    }
+
+    /**
+     * 异步请求完成后在会话执行器中记录耗时，回调也在会话执行器中执行
+     *
+     * @param items 由结果得出的地址数量
+     */
+    private <T> CompletableFuture<T> timedAsync(PlcOperation operation, ToIntFunction<? super T> items,
+                                                CompletableFuture<T> future) {
+        long start = System.nanoTime();
+        return future.whenCompleteAsync((value, error) -> {
+            if (error != null) {
+                metrics.recordError();
+            } else if (operation == PlcOperation.WRITE || operation == PlcOperation.WRITE_MULTIPLE) {
+                metrics.recordWrite(operation, items.applyAsInt(value), System.nanoTime() - start);
+            } else {
+                metrics.recordRead(operation, items.applyAsInt(value), System.nanoTime() - start);
+            }
+        }, executor);
+    }
+
+    @Override
+    public String toString() {
+        PlcProperties config = properties;
+        return "PlcSession[" + deviceId + ", " + config.getHost() + ":" + config.getPort() + "]";
+    }
+
+    /**
+     * 委托给连接服务的同步调用
+     */
+    @FunctionalInterface
+    private interface PlcCall<T, E extends Exception> {
+        T call() throws E;
+    }
+}
@@ -0,0 +1,151 @@
+package com.yuzj.autolink.plc.session;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 会话通信统计
+ * 计数器使用LongAdder，多个线程同时记录时不互相竞争；成功请求的耗时按操作类型记入无锁直方图
+ *
+ * @author yuzj002
+ */
+public class PlcSessionMetrics {
+
+    private final LongAdder readRequests = new LongAdder();
+    private final LongAdder readItems = new LongAdder();
+    private final LongAdder writeRequests = new LongAdder();
+    private final LongAdder writeItems = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong lastLatencyNanos = new AtomicLong();
+    private volatile long lastConnectNanos;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[PlcOperation.values().length];
+
+    public PlcSessionMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 记录一次成功的连接
+     *
+     * @param latencyNanos 耗时(纳秒)
+     */
+    public void recordConnect(long latencyNanos) {
+        lastConnectNanos = latencyNanos;
+        latencies[PlcOperation.CONNECT.ordinal()].record(latencyNanos);
+    }
+
+    /**
+     * 记录一次成功的自动重连
+     */
+    public void recordReconnect() {
+        reconnects.increment();
+    }
+
+    /**
+     * 记录一次读取请求
+     *
+     * @param operation    操作类型
+     * @param items        地址数量
+     * @param latencyNanos 耗时(纳秒)
+     */
+    public void recordRead(PlcOperation operation, int items, long latencyNanos) {
+        readRequests.increment();
+        readItems.add(items);
+        recordLatency(operation, latencyNanos);
+    }
+
+    /**
+     * 记录一次写入请求
+     *
+     * @param operation    操作类型
+     * @param items        地址数量
+     * @param latencyNanos 耗时(纳秒)
+     */
+    public void recordWrite(PlcOperation operation, int items, long latencyNanos) {
+        writeRequests.increment();
+        writeItems.add(items);
+        recordLatency(operation, latencyNanos);
+    }
+
+    /**
+     * 记录一次失败的请求
+     */
+    public void recordError() {
+        errors.increment();
+    }
+
+    private void recordLatency(PlcOperation operation, long latencyNanos) {
+        totalLatencyNanos.add(latencyNanos);
+        lastLatencyNanos.set(latencyNanos);
+        latencies[operation.ordinal()].record(latencyNanos);
+    }
+
+    /**
+     * 操作耗时直方图
+     *
+     * @param operation 操作类型
+     */
+    public LatencyHistogram getLatency(PlcOperation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    public long getReadRequests() {
+        return readRequests.sum();
+    }
+
+    public long getReadItems() {
+        return readItems.sum();
+    }
+
+    public long getWriteRequests() {
+        return writeRequests.sum();
+    }
+
+    public long getWriteItems() {
+        return writeItems.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * 自动重连成功的次数
+     */
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    /**
+     * 最近一次成功连接的耗时(毫秒)，包括TCP连接和S7通信参数协商
+     */
+    public double getLastConnectMillis() {
+        return lastConnectNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 最近一次请求耗时(毫秒)
+     */
+    public double getLastLatencyMillis() {
+        return lastLatencyNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 成功请求的平均耗时(毫秒)
+     */
+    public double getAverageLatencyMillis() {
+        long requests = readRequests.sum() + writeRequests.sum();
+        return requests == 0 ? 0 : totalLatencyNanos.sum() / (double) requests / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("读取=%d(%d项), 写入=%d(%d项), 失败=%d, 平均耗时=%.2fms",
+                getReadRequests(), getReadItems(), getWriteRequests(), getWriteItems(), getErrors(), getAverageLatencyMillis());
+    }
+}
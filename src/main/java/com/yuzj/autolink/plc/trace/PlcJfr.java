@@ -0,0 +1,171 @@
+package com.yuzj.autolink.plc.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/**
+ * 采集链路各阶段的JFR事件
+ * 每个阶段一个事件类型，默认关闭，需要在JFR配置中按名称开启，例如
+ * {@code jcmd <pid> JFR.start settings=profile +com.yuzj.autolink.ScanCycle#enabled=true}。
+ * GC停顿由JFR自带的jdk.GarbageCollection事件记录，不另设事件。
+ * 只有PlcTrace在确认运行时存在jdk.jfr模块后才会加载本类，裁剪掉jdk.jfr的运行时镜像不受影响
+ *
+ * @author yuzj002
+ */
+final class PlcJfr {
+
+    private PlcJfr() {
+    }
+
+    /**
+     * 订阅录制状态变化，有录制运行时才创建事件。
+     * 监听器不会回放已在运行的录制，-XX:StartFlightRecording启动的录制或本类加载前开始的录制在注册后立即补查
+     */
+    static void install() {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                refresh();
+            }
+
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                refresh();
+            }
+        });
+        if (FlightRecorder.isInitialized()) {
+            refresh();
+        }
+    }
+
+    private static void refresh() {
+        boolean running = false;
+        for (Recording r : FlightRecorder.getFlightRecorder().getRecordings()) {
+            running |= r.getState() == RecordingState.RUNNING;
+        }
+        PlcTrace.setJfrRecording(running);
+    }
+
+    /**
+     * 开始一个阶段事件
+     *
+     * @return 已开始的事件，该阶段事件未开启时返回null
+     */
+    static StageEvent begin(TraceStage stage) {
+        StageEvent event = create(stage);
+        if (event == null || !event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 结束事件，超过录制配置的阈值时提交
+     */
+    static void commit(Object started, long deviceId, int dbNumber, int bytes, int items) {
+        StageEvent event = (StageEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.deviceId = deviceId;
+            event.dbNumber = dbNumber;
+            event.bytes = bytes;
+            event.items = items;
+            event.commit();
+        }
+    }
+
+    private static StageEvent create(TraceStage stage) {
+        switch (stage) {
+            case SCAN_CYCLE:
+                return new ScanCycleEvent();
+            case READ_PLAN:
+                return new ReadPlanEvent();
+            case DECODE:
+                return new DecodeEvent();
+            case S7_READ:
+                return new S7ReadEvent();
+            case S7_WRITE:
+                return new S7WriteEvent();
+            case PERSIST_FLUSH:
+                return new PersistFlushEvent();
+            case UI_REFRESH:
+                return new UiRefreshEvent();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 阶段事件的公共字段
+     */
+    @Enabled(false)
+    @StackTrace(false)
+    @Category({"PLC", "采集链路"})
+    abstract static class StageEvent extends Event {
+
+        @Label("设备ID")
+        long deviceId;
+
+        @Label("DB块号")
+        @Description("涉及多个DB或非DB区时为-1")
+        int dbNumber;
+
+        @Label("字节数")
+        @DataAmount
+        int bytes;
+
+        @Label("数据项数")
+        @Description("地址、读取块或记录数")
+        int items;
+    }
+
+    @Name("com.yuzj.autolink.ScanCycle")
+    @Label("扫描周期")
+    @Description("从发起读取到变化值通知完所有监听器")
+    static final class ScanCycleEvent extends StageEvent {
+    }
+
+    @Name("com.yuzj.autolink.ReadPlan")
+    @Label("读取计划")
+    @Description("从发起请求到解码完成")
+    static final class ReadPlanEvent extends StageEvent {
+    }
+
+    @Name("com.yuzj.autolink.Decode")
+    @Label("解码")
+    static final class DecodeEvent extends StageEvent {
+    }
+
+    @Name("com.yuzj.autolink.S7Read")
+    @Label("S7读取请求")
+    @Description("一个ReadVar作业，从发送请求到收到响应")
+    static final class S7ReadEvent extends StageEvent {
+    }
+
+    @Name("com.yuzj.autolink.S7Write")
+    @Label("S7写入请求")
+    @Description("一个WriteVar作业，从发送请求到收到响应")
+    static final class S7WriteEvent extends StageEvent {
+    }
+
+    @Name("com.yuzj.autolink.PersistFlush")
+    @Label("持久化批量写入")
+    static final class PersistFlushEvent extends StageEvent {
+    }
+
+    @Name("com.yuzj.autolink.UiRefresh")
+    @Label("界面刷新")
+    static final class UiRefreshEvent extends StageEvent {
+    }
+}
@@ -0,0 +1,276 @@
+package com.yuzj.autolink.plc.trace;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 采集链路跟踪
+ * 记录扫描周期、读取计划、解码、S7请求、持久化和界面刷新各阶段的耗时，以及同一时间线上的GC停顿，
+ * 用于定位慢周期的耗时分布。默认关闭，关闭时每个埋点只读取一次volatile开关；
+ * 开启后事件写入固定容量的环形缓冲区，新事件覆盖最旧的事件。
+ * 各阶段另外作为JFR事件输出，事件默认关闭，JFR录制中开启对应事件后与本开关无关地记录。
+ * <p>
+ * 用法: {@code long start = PlcTrace.begin(); Object event = PlcTrace.beginEvent(stage); ...;
+ * PlcTrace.end(stage, deviceId, db, bytes, items, start, event);}
+ *
+ * @author yuzj002
+ */
+@Slf4j
+public final class PlcTrace {
+
+    /**
+     * 与设备无关的事件
+     */
+    public static final long NO_DEVICE = -1L;
+
+    /**
+     * 涉及多个DB或非DB区的事件
+     */
+    public static final int NO_DB = -1;
+
+    /**
+     * 环形缓冲区容量
+     */
+    public static final int CAPACITY = 1 << 16;
+
+    /**
+     * System.nanoTime到纪元纳秒的偏移
+     */
+    private static final long EPOCH_OFFSET_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    private static final AtomicReferenceArray<TraceEvent> EVENTS = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final NotificationListener GC_LISTENER = PlcTrace::onGcNotification;
+
+    private static volatile boolean enabled;
+
+    /**
+     * 是否有JFR录制正在运行，运行时不支持JFR时始终为false
+     */
+    private static volatile boolean jfrRecording;
+
+    static {
+        try {
+            Class.forName("jdk.jfr.Event", false, PlcTrace.class.getClassLoader());
+            PlcJfr.install();
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.debug("运行时不支持JFR，只使用环形缓冲区跟踪");
+        }
+    }
+
+    private PlcTrace() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开启或关闭跟踪，开启时同时订阅GC通知
+     */
+    public static synchronized void setEnabled(boolean on) {
+        if (on == enabled) {
+            return;
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(gc instanceof NotificationEmitter)) {
+                continue;
+            }
+            NotificationEmitter emitter = (NotificationEmitter) gc;
+            if (on) {
+                emitter.addNotificationListener(GC_LISTENER, null, null);
+            } else {
+                try {
+                    emitter.removeNotificationListener(GC_LISTENER);
+                } catch (ListenerNotFoundException e) {
+                    // 未注册过
+                }
+            }
+        }
+        enabled = on;
+        log.info("采集链路跟踪已{}", on ? "开启" : "关闭");
+    }
+
+    /**
+     * 开始一个阶段
+     *
+     * @return 开始时间，跟踪关闭时返回0
+     */
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 开始一个阶段的JFR事件
+     *
+     * @param stage 处理阶段
+     * @return 已开始的JFR事件，没有录制或该阶段事件未开启时返回null；
+     * 类型为Object，调用方在没有jdk.jfr的运行时也能加载
+     */
+    public static Object beginEvent(TraceStage stage) {
+        return jfrRecording ? PlcJfr.begin(stage) : null;
+    }
+
+    static void setJfrRecording(boolean recording) {
+        jfrRecording = recording;
+    }
+
+    /**
+     * 结束一个阶段并记录事件，开始时跟踪关闭的阶段不记录
+     *
+     * @param stage      处理阶段
+     * @param deviceId   设备ID
+     * @param dbNumber   DB块号
+     * @param bytes      数据字节数
+     * @param items      数据项数
+     * @param startNanos {@link #begin()}的返回值
+     */
+    public static void end(TraceStage stage, long deviceId, int dbNumber, int bytes, int items, long startNanos) {
+        end(stage, deviceId, dbNumber, bytes, items, startNanos, null);
+    }
+
+    /**
+     * 结束一个阶段，记录环形缓冲区事件并提交JFR事件
+     *
+     * @param stage      处理阶段
+     * @param deviceId   设备ID
+     * @param dbNumber   DB块号
+     * @param bytes      数据字节数
+     * @param items      数据项数
+     * @param startNanos {@link #begin()}的返回值
+     * @param jfrEvent   {@link #beginEvent(TraceStage)}的返回值
+     */
+    public static void end(TraceStage stage, long deviceId, int dbNumber, int bytes, int items, long startNanos,
+                           Object jfrEvent) {
+        if (jfrEvent != null) {
+            PlcJfr.commit(jfrEvent, deviceId, dbNumber, bytes, items);
+        }
+        if (startNanos == 0L) {
+            return;
+        }
+        record(new TraceEvent(stage, deviceId, dbNumber, bytes, items, startNanos,
+                System.nanoTime() - startNanos, Thread.currentThread().getName()));
+    }
+
+    static void record(TraceEvent event) {
+        long sequence = SEQUENCE.getAndIncrement();
+        EVENTS.set((int) (sequence & (CAPACITY - 1)), event);
+    }
+
+    /**
+     * 累计记录的事件数，包括已被覆盖的事件
+     */
+    public static long getRecordedCount() {
+        return SEQUENCE.get();
+    }
+
+    /**
+     * 清空缓冲区
+     */
+    public static void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            EVENTS.set(i, null);
+        }
+    }
+
+    /**
+     * 缓冲区中的事件，按开始时间排序
+     */
+    public static List<TraceEvent> snapshot() {
+        List<TraceEvent> events = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            TraceEvent event = EVENTS.get(i);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        events.sort(Comparator.comparingLong(TraceEvent::getStartNanos));
+        return events;
+    }
+
+    /**
+     * 缓冲区中耗时最长的扫描周期及与其时间重叠的所有事件
+     *
+     * @return 按开始时间排序的事件，第一个为该扫描周期；没有扫描周期事件时返回空列表
+     */
+    public static List<TraceEvent> slowestCycle() {
+        List<TraceEvent> events = snapshot();
+        TraceEvent slowest = null;
+        for (TraceEvent event : events) {
+            if (event.getStage() == TraceStage.SCAN_CYCLE
+                    && (slowest == null || event.getDurationNanos() > slowest.getDurationNanos())) {
+                slowest = event;
+            }
+        }
+        List<TraceEvent> result = new ArrayList<>();
+        if (slowest == null) {
+            return result;
+        }
+        result.add(slowest);
+        for (TraceEvent event : events) {
+            if (event != slowest && event.overlaps(slowest)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 导出事件，CSV格式
+     *
+     * @param writer 输出目标
+     * @param events 事件
+     * @throws IOException 写入异常
+     */
+    public static void export(Writer writer, List<TraceEvent> events) throws IOException {
+        writer.write("start_time,stage,device_id,db,bytes,items,duration_ms,source\n");
+        for (TraceEvent event : events) {
+            writer.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%.3f,%s\n", toInstant(event.getStartNanos()),
+                    event.getStage(), event.getDeviceId(), event.getDbNumber(), event.getBytes(), event.getItems(),
+                    event.getDurationNanos() / 1e6, event.getSource()));
+        }
+        writer.flush();
+    }
+
+    /**
+     * System.nanoTime时间点对应的时刻
+     */
+    public static Instant toInstant(long nanos) {
+        long epochNanos = nanos + EPOCH_OFFSET_NANOS;
+        return Instant.ofEpochSecond(0, epochNanos);
+    }
+
+    /**
+     * GC通知转换为跟踪事件，GC时间为相对JVM启动的毫秒数
+     */
+    private static void onGcNotification(Notification notification, Object handback) {
+        if (!enabled || !GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        GcInfo gcInfo = info.getGcInfo();
+        long startMillis = ManagementFactory.getRuntimeMXBean().getStartTime() + gcInfo.getStartTime();
+        long startNanos = TimeUnit.MILLISECONDS.toNanos(startMillis) - EPOCH_OFFSET_NANOS;
+        record(new TraceEvent(TraceStage.GC, NO_DEVICE, NO_DB, 0, 0, startNanos,
+                TimeUnit.MILLISECONDS.toNanos(gcInfo.getDuration()), info.getGcName() + " " + info.getGcCause()));
+    }
+}
@@ -0,0 +1,64 @@
+package com.yuzj.autolink.plc.trace;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 跟踪事件
+ *
+ * @author yuzj002
+ */
+@Getter
+@AllArgsConstructor
+public class TraceEvent {
+    /**
+     * 处理阶段
+     */
+    private final TraceStage stage;
+
+    /**
+     * 设备ID，与设备无关时为{@link PlcTrace#NO_DEVICE}
+     */
+    private final long deviceId;
+
+    /**
+     * DB块号，涉及多个DB或非DB区时为{@link PlcTrace#NO_DB}
+     */
+    private final int dbNumber;
+
+    /**
+     * 数据字节数
+     */
+    private final int bytes;
+
+    /**
+     * 数据项数: 地址、读取块或记录数
+     */
+    private final int items;
+
+    /**
+     * 开始时间(System.nanoTime)
+     */
+    private final long startNanos;
+
+    /**
+     * 耗时(纳秒)
+     */
+    private final long durationNanos;
+
+    /**
+     * 执行线程，GC事件为收集器名称
+     */
+    private final String source;
+
+    public long getEndNanos() {
+        return startNanos + durationNanos;
+    }
+
+    /**
+     * 与另一事件的时间区间是否重叠
+     */
+    public boolean overlaps(TraceEvent other) {
+        return startNanos <= other.getEndNanos() && other.startNanos <= getEndNanos();
+    }
+}
@@ -0,0 +1,61 @@
+package com.yuzj.autolink.plc.trace;
+
+import lombok.Getter;
+
+/**
+ * 跟踪事件的处理阶段
+ *
+ * @author yuzj002
+ */
+@Getter
+public enum TraceStage {
+
+    /**
+     * 一个扫描周期，从发起读取到变化值通知完所有监听器
+     */
+    SCAN_CYCLE("扫描周期"),
+
+    /**
+     * 读取计划执行，从发起请求到解码完成
+     */
+    READ_PLAN("读取计划"),
+
+    /**
+     * 读取块解码
+     */
+    DECODE("解码"),
+
+    /**
+     * 一个ReadVar作业，从发送请求到收到响应
+     */
+    S7_READ("S7读取请求"),
+
+    /**
+     * 一个WriteVar作业，从发送请求到收到响应
+     */
+    S7_WRITE("S7写入请求"),
+
+    /**
+     * 采集数据批量写入数据库
+     */
+    PERSIST_FLUSH("持久化批量写入"),
+
+    /**
+     * 监控界面批量刷新
+     */
+    UI_REFRESH("界面刷新"),
+
+    /**
+     * 垃圾回收，来自GC通知
+     */
+    GC("垃圾回收");
+
+    /**
+     * 显示名称
+     */
+    private final String displayName;
+
+    TraceStage(String displayName) {
+        this.displayName = displayName;
+    }
+}
@@ -5,21 +5,48 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.Socket;
 
+import static com.yuzj.autolink.plc.s7.S7Protocol.*;
+
 /**
+ * 模拟器客户端会话
+ * 按TPKT报文收发，支持COTP连接、通信设置(PDU协商)以及多数据项ReadVar/WriteVar
+ *
  * @author yuzj002
  */
 @Slf4j
 public class S7ClientHandler implements Runnable {
 
+    /**
+     * 模拟器支持的最大并行作业数
+     */
+    private static final int MAX_AMQ = 8;
+
     private final Socket clientSocket;
+    private final S7Memory memory;
     private final DataInputStream input;
     private final DataOutputStream output;
 
-    public S7ClientHandler(Socket clientSocket) throws IOException {
+    private final byte[] request = new byte[ISO_HEADER_LENGTH + MAX_PDU_SIZE + 64];
+
+    /**
+     * 通信设置时接受的最大PDU大小
+     */
+    private final int maxPduSize;
+
+    private int pduSize = MIN_PDU_SIZE;
+
+    public S7ClientHandler(Socket clientSocket, S7Memory memory) throws IOException {
+        this(clientSocket, memory, MAX_PDU_SIZE);
+    }
+
+    public S7ClientHandler(Socket clientSocket, S7Memory memory, int maxPduSize) throws IOException {
         this.clientSocket = clientSocket;
+        this.memory = memory;
+        this.maxPduSize = Math.max(MIN_PDU_SIZE, Math.min(MAX_PDU_SIZE, maxPduSize));
         this.input = new DataInputStream(clientSocket.getInputStream());
         this.output = new DataOutputStream(clientSocket.getOutputStream());
     }
@@ -29,21 +56,19 @@ public class S7ClientHandler implements Runnable {
         try {
             log.info("开始处理客户端连接: {}", clientSocket.getRemoteSocketAddress());
 
-            byte[] buffer = new byte[1024];
             while (!clientSocket.isClosed() && clientSocket.isConnected()) {
                 try {
-                    // 读取S7协议数据
-                    int bytesRead = input.read(buffer);
-                    if (bytesRead == -1) {
-                        break;
-                    }
+                    // 读取完整的TPKT报文
+                    int length = readFrame();
 
                     // 解析S7协议并响应
-                    byte[] response = handleS7Request(buffer, bytesRead);
+                    byte[] response = handleS7Request(length);
                     if (response != null) {
                         output.write(response);
                         output.flush();
                     }
+                } catch (EOFException e) {
+                    break;
                 } catch (IOException e) {
                     if (!clientSocket.isClosed()) {
                         log.error("处理客户端请求时出错", e);
@@ -56,89 +81,273 @@ public class S7ClientHandler implements Runnable {
         }
     }
 
-    private byte[] handleS7Request(byte[] request, int length) {
+    private int readFrame() throws IOException {
+        input.readFully(request, 0, TPKT_HEADER_LENGTH);
+        if ((request[0] & 0xFF) != TPKT_VERSION) {
+            throw new IOException("无效的TPKT报文头");
+        }
+        int length = u16(2);
+        if (length <= TPKT_HEADER_LENGTH || length > request.length) {
+            throw new IOException("TPKT报文长度异常: " + length);
+        }
+        input.readFully(request, TPKT_HEADER_LENGTH, length - TPKT_HEADER_LENGTH);
+        return length;
+    }
+
+    private byte[] handleS7Request(int length) {
         try {
-            // 简单的S7协议解析和响应
-            if (length >= 4) {
-                // 检查TPKT头
-                if (request[0] == 0x03 && request[1] == 0x00) {
-                    // COTP协议数据单元
-                    return handleCOTPRequest(request, length);
-                }
+            if (length < 6) {
+                return null;
             }
-
-            // 默认响应
-            return createSimpleResponse();
+            int pduType = request[5] & 0xFF;
+            if (pduType == COTP_CONNECTION_REQUEST) {
+                return createConnectionConfirm();
+            }
+            if (pduType == COTP_DATA && length >= ISO_HEADER_LENGTH + JOB_HEADER_LENGTH + 1
+                    && (request[ISO_HEADER_LENGTH] & 0xFF) == PROTOCOL_ID
+                    && (request[ISO_HEADER_LENGTH + 1] & 0xFF) == ROSCTR_JOB) {
+                return handleJob();
+            }
+            log.warn("忽略不支持的报文: pduType=0x{}", Integer.toHexString(pduType));
+            return null;
         } catch (Exception e) {
             log.error("处理S7请求时出错", e);
             return null;
         }
     }
 
-    private byte[] handleCOTPRequest(byte[] request, int length) {
-        // 简化的COTP处理
-        try {
-            // 发送连接确认响应
-            return createConnectionConfirm();
-        } catch (Exception e) {
-            log.error("处理COTP请求时出错", e);
-            return null;
+    private byte[] handleJob() {
+        int reference = u16(ISO_HEADER_LENGTH + 4);
+        int param = ISO_HEADER_LENGTH + JOB_HEADER_LENGTH;
+        int dataStart = param + u16(ISO_HEADER_LENGTH + 6);
+        int function = request[param] & 0xFF;
+        switch (function) {
+            case FUNC_SETUP_COMMUNICATION:
+                return handleSetupCommunication(reference, param);
+            case FUNC_READ_VAR:
+                return handleReadVar(reference, param);
+            case FUNC_WRITE_VAR:
+                return handleWriteVar(reference, param, dataStart);
+            default:
+                log.warn("不支持的S7功能码: 0x{}", Integer.toHexString(function));
+                // 错误类别0x81: 应用关系错误
+                return createAck(reference, new byte[]{(byte) function, 0x00}, new byte[0], 0x81, 0x04);
         }
     }
 
-    private byte[] createConnectionConfirm() {
-        // 创建连接确认响应 - 更清晰和可维护的实现
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            // TPKT Header (4 bytes)
-            baos.write(0x03);  // 版本
-            baos.write(0x00);  // 保留
-            // 长度字段将在后面设置
-
-            // COTP Connection Confirm (CC) PDU
-            baos.write(0x11);  // Length indicator
-            baos.write(0xD0);  // CC PDU type
-            baos.write(0x00);  // DST-REF (2 bytes)
-            baos.write(0x00);
-            baos.write(0x00);  // SRC-REF (2 bytes)
-            baos.write(0x01);
-            baos.write(0x00);  // CLASS + OPTIONS
-
-            // 参数部分
-            // TPDU Size (0xC0)
-            baos.write(0xC0);
-            baos.write(0x01);
-            baos.write(0x0A);  // TPDU Size = 1024 bytes (2^10)
-
-            // 最大连接数 (0xC1)
-            baos.write(0xC1);
-            baos.write(0x02);
-            baos.write(0x01);  // 高字节
-            baos.write(0x00);  // 低字节 = 256
-
-            // 最大TPDU大小 (0xC2)
-            baos.write(0xC2);
-            baos.write(0x02);
-            baos.write(0x01);  // 高字节
-            baos.write(0x01);  // 低字节 = 257
-
-            // 更新TPKT长度字段
-            byte[] response = baos.toByteArray();
-            int length = response.length;
-            response[2] = (byte) ((length >> 8) & 0xFF);
-            response[3] = (byte) (length & 0xFF);
-
-            return response;
-        } catch (Exception e) {
-            log.error("创建连接确认响应时出错", e);
+    private byte[] handleSetupCommunication(int reference, int param) {
+        int amqCalling = Math.min(MAX_AMQ, Math.max(1, u16(param + 2)));
+        int amqCalled = Math.min(MAX_AMQ, Math.max(1, u16(param + 4)));
+        pduSize = Math.max(MIN_PDU_SIZE, Math.min(maxPduSize, u16(param + 6)));
+        log.debug("通信设置: pduSize={}, maxAmqCalling={}, maxAmqCalled={}", pduSize, amqCalling, amqCalled);
+
+        byte[] parameter = new byte[SETUP_PARAM_LENGTH];
+        parameter[0] = (byte) FUNC_SETUP_COMMUNICATION;
+        putU16(parameter, 2, amqCalling);
+        putU16(parameter, 4, amqCalled);
+        putU16(parameter, 6, pduSize);
+        return createAck(reference, parameter, new byte[0], 0, 0);
+    }
+
+    private byte[] handleReadVar(int reference, int param) {
+        int count = request[param + 1] & 0xFF;
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            int spec = param + VAR_PARAM_HEADER_LENGTH + i * VAR_ITEM_SPEC_LENGTH;
+            int transportSize = request[spec + 3] & 0xFF;
+            int length = u16(spec + 4) * elementSize(transportSize);
+            int dbNumber = u16(spec + 6);
+            int area = request[spec + 8] & 0xFF;
+            int address = ((request[spec + 9] & 0xFF) << 16) | ((request[spec + 10] & 0xFF) << 8) | (request[spec + 11] & 0xFF);
+
+            byte[] value = readArea(area, dbNumber, address >> 3, length);
+            if (value == null || value.length < length) {
+                data.write(value == null ? RETURN_CODE_OBJECT_NOT_EXIST : RETURN_CODE_ADDRESS_OUT_OF_RANGE);
+                data.write(0x00);
+                data.write(0x00);
+                data.write(0x00);
+                continue;
+            }
+
+            data.write(RETURN_CODE_SUCCESS);
+            if (transportSize == TRANSPORT_SIZE_BIT) {
+                data.write(DATA_TRANSPORT_BIT);
+                data.write(0x00);
+                data.write(0x01);
+                data.write((value[0] >> (address & 0x07)) & 0x01);
+            } else {
+                data.write(DATA_TRANSPORT_BYTE);
+                data.write((length << 3) >> 8);
+                data.write(length << 3);
+                data.write(value, 0, length);
+            }
+            int written = transportSize == TRANSPORT_SIZE_BIT ? 1 : length;
+            if ((written & 1) != 0 && i < count - 1) {
+                data.write(0x00);
+            }
+        }
+        return createAck(reference, new byte[]{(byte) FUNC_READ_VAR, (byte) count}, data.toByteArray(), 0, 0);
+    }
+
+    private byte[] handleWriteVar(int reference, int param, int dataStart) {
+        int count = request[param + 1] & 0xFF;
+        byte[] returnCodes = new byte[count];
+        int pos = dataStart;
+        for (int i = 0; i < count; i++) {
+            int spec = param + VAR_PARAM_HEADER_LENGTH + i * VAR_ITEM_SPEC_LENGTH;
+            int transportSize = request[spec + 3] & 0xFF;
+            int dbNumber = u16(spec + 6);
+            int area = request[spec + 8] & 0xFF;
+            int address = ((request[spec + 9] & 0xFF) << 16) | ((request[spec + 10] & 0xFF) << 8) | (request[spec + 11] & 0xFF);
+
+            int length = dataLength(request[pos + 1] & 0xFF, u16(pos + 2));
+            int valuePos = pos + ITEM_DATA_HEADER_LENGTH;
+            pos = valuePos + length + ((length & 1) != 0 && i < count - 1 ? 1 : 0);
+
+            int code;
+            if (transportSize == TRANSPORT_SIZE_BIT) {
+                code = writeBit(area, dbNumber, address >> 3, address & 0x07, request[valuePos] != 0);
+            } else {
+                byte[] value = new byte[length];
+                System.arraycopy(request, valuePos, value, 0, length);
+                code = writeArea(area, dbNumber, address >> 3, value);
+            }
+            returnCodes[i] = (byte) code;
+        }
+        return createAck(reference, new byte[]{(byte) FUNC_WRITE_VAR, (byte) count}, returnCodes, 0, 0);
+    }
+
+    private byte[] readArea(int area, int dbNumber, int offset, int length) {
+        switch (area) {
+            case 0x84:
+                // S7 CPU中不存在DB0
+                return dbNumber == 0 ? null : memory.readDB(dbNumber, offset, length);
+            case 0x81:
+                return memory.readInput(offset, length);
+            case 0x82:
+                return memory.readOutput(offset, length);
+            case 0x83:
+                return memory.readMarker(offset, length);
+            default:
+                return null;
+        }
+    }
+
+    private int writeArea(int area, int dbNumber, int offset, byte[] value) {
+        byte[] current = readArea(area, dbNumber, offset, value.length);
+        if (current == null) {
+            return RETURN_CODE_OBJECT_NOT_EXIST;
+        }
+        if (current.length < value.length) {
+            return RETURN_CODE_ADDRESS_OUT_OF_RANGE;
+        }
+        switch (area) {
+            case 0x84:
+                memory.writeDB(dbNumber, offset, value);
+                break;
+            case 0x81:
+                memory.writeInput(offset, value);
+                break;
+            case 0x82:
+                memory.writeOutput(offset, value);
+                break;
+            default:
+                memory.writeMarker(offset, value);
+                break;
         }
-        return null;
+        return RETURN_CODE_SUCCESS;
     }
 
+    private int writeBit(int area, int dbNumber, int offset, int bit, boolean value) {
+        byte[] current = readArea(area, dbNumber, offset, 1);
+        if (current == null) {
+            return RETURN_CODE_OBJECT_NOT_EXIST;
+        }
+        if (current.length < 1) {
+            return RETURN_CODE_ADDRESS_OUT_OF_RANGE;
+        }
+        if (value) {
+            current[0] |= (1 << bit);
+        } else {
+            current[0] &= ~(1 << bit);
+        }
+        return writeArea(area, dbNumber, offset, current);
+    }
+
+    /**
+     * 请求项传输尺寸对应的单元字节数
+     */
+    private static int elementSize(int transportSize) {
+        switch (transportSize) {
+            case 0x04:
+            case 0x05:
+                return 2;
+            case 0x06:
+            case 0x07:
+            case 0x08:
+                return 4;
+            default:
+                return 1;
+        }
+    }
+
+    private byte[] createConnectionConfirm() {
+        // 连接确认沿用请求中的参数，交换源/目的引用
+        byte[] response = new byte[22];
+        response[0] = (byte) TPKT_VERSION;
+        response[3] = (byte) response.length;
+        response[4] = 0x11;
+        response[5] = (byte) COTP_CONNECTION_CONFIRM;
+        response[6] = request[8];
+        response[7] = request[9];
+        response[8] = 0x00;
+        response[9] = 0x01;
+        response[10] = 0x00;
+        // TPDU Size = 1024 bytes (2^10)
+        response[11] = (byte) 0xC0;
+        response[12] = 0x01;
+        response[13] = 0x0A;
+        // 本地/远端TSAP
+        response[14] = (byte) 0xC1;
+        response[15] = 0x02;
+        response[16] = 0x01;
+        response[17] = 0x00;
+        response[18] = (byte) 0xC2;
+        response[19] = 0x02;
+        response[20] = request[20];
+        response[21] = request[21];
+        return response;
+    }
+
+    private byte[] createAck(int reference, byte[] parameter, byte[] data, int errorClass, int errorCode) {
+        int length = ISO_HEADER_LENGTH + ACK_HEADER_LENGTH + parameter.length + data.length;
+        byte[] response = new byte[length];
+        response[0] = (byte) TPKT_VERSION;
+        putU16(response, 2, length);
+        response[4] = 0x02;
+        response[5] = (byte) COTP_DATA;
+        response[6] = (byte) COTP_EOT;
+
+        int header = ISO_HEADER_LENGTH;
+        response[header] = (byte) PROTOCOL_ID;
+        response[header + 1] = (byte) ROSCTR_ACK_DATA;
+        putU16(response, header + 4, reference);
+        putU16(response, header + 6, parameter.length);
+        putU16(response, header + 8, data.length);
+        response[header + 10] = (byte) errorClass;
+        response[header + 11] = (byte) errorCode;
+        System.arraycopy(parameter, 0, response, header + ACK_HEADER_LENGTH, parameter.length);
+        System.arraycopy(data, 0, response, header + ACK_HEADER_LENGTH + parameter.length, data.length);
+        return response;
+    }
+
+    private int u16(int pos) {
+        return ((request[pos] & 0xFF) << 8) | (request[pos + 1] & 0xFF);
+    }
 
-    private byte[] createSimpleResponse() {
-        // 创建简单的响应
-        return new byte[]{0x03, 0x00, 0x00, 0x07, 0x02, (byte) 0xF0, 0x00};
+    private static void putU16(byte[] data, int pos, int value) {
+        data[pos] = (byte) (value >> 8);
+        data[pos + 1] = (byte) value;
     }
 
     private void close() {
@@ -287,6 +287,36 @@ public class S7Memory {
         }
     }
 
+    // 写入输入区域(模拟外部输入信号)
+    public void writeInput(int offset, byte[] data) {
+        if (data == null) {
+            log.warn("写入输入区域数据为空");
+            return;
+        }
+
+        inputLock.writeLock().lock();
+        try {
+            // 边界检查
+            if (offset < 0 || data.length == 0) {
+                log.warn("输入区域写入参数无效: offset={}, dataLength={}", offset, data.length);
+                return;
+            }
+
+            int start = offset;
+            int end = Math.min(start + data.length, inputMemory.length);
+            int length = end - start;
+
+            if (length > 0) {
+                System.arraycopy(data, 0, inputMemory, start, length);
+                log.debug("写入输入区域: offset={}, length={}", offset, length);
+            } else {
+                log.warn("输入区域写入超出内存范围: offset={}, dataLength={}", offset, data.length);
+            }
+        } finally {
+            inputLock.writeLock().unlock();
+        }
+    }
+
     // 写入输出区域
     public void writeOutput(int offset, byte[] data) {
         if (data == null) {
@@ -534,7 +564,7 @@ public class S7Memory {
     }
 
     // 读取输出区域
-    private byte[] readOutput(int offset, int length) {
+    public byte[] readOutput(int offset, int length) {
         outputLock.readLock().lock();
         try {
             // 边界检查
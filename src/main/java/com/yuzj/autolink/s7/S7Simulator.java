@@ -13,6 +13,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.yuzj.autolink.plc.s7.S7Protocol.MAX_PDU_SIZE;
+
 /**
  * @author yuzj002
  */
@@ -25,6 +27,11 @@ public class S7Simulator {
     private AtomicBoolean running = new AtomicBoolean(false);
     private S7Memory memory;
 
+    /**
+     * 通信设置时接受的最大PDU大小，可调小以模拟PDU较小的CPU
+     */
+    private volatile int maxPduSize = MAX_PDU_SIZE;
+
     @PostConstruct
     public void init() {
         memory = new S7Memory();
@@ -53,7 +60,7 @@ public class S7Simulator {
                 log.info("新客户端连接: {}", clientSocket.getRemoteSocketAddress());
 
                 // 为每个客户端创建处理线程
-                executorService.submit(new S7ClientHandler(clientSocket));
+                executorService.submit(new S7ClientHandler(clientSocket, memory, maxPduSize));
             } catch (IOException e) {
                 if (running.get()) {
                     log.error("接受客户端连接时出错", e);
@@ -62,6 +69,22 @@ public class S7Simulator {
         }
     }
 
+    /**
+     * 设置通信设置时接受的最大PDU大小，只影响之后建立的连接
+     *
+     * @param maxPduSize 最大PDU大小，范围240~960
+     */
+    public void setMaxPduSize(int maxPduSize) {
+        this.maxPduSize = maxPduSize;
+    }
+
+    /**
+     * 实际监听的端口，启动时端口为0则由系统分配
+     */
+    public int getLocalPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
     public void stop() {
         if (!running.get()) {
             log.warn("S7模拟器未运行");
@@ -9,6 +9,12 @@ CREATE TABLE IF NOT EXISTS plc_tag_config
     address     VARCHAR(50)  NOT NULL COMMENT 'PLC地址',
     data_type   VARCHAR(20)  NOT NULL COMMENT '数据类型',
     description VARCHAR(255) COMMENT '标签描述',
+    device_id   BIGINT       DEFAULT 0 COMMENT '所属设备ID，0为默认连接',
+    scan_rate   INTEGER      DEFAULT 1000 COMMENT '扫描周期(毫秒)',
+    deadband_type VARCHAR(20) DEFAULT 'CHANGE' COMMENT '死区类型: NONE/CHANGE/ABSOLUTE/PERCENT',
+    deadband    DOUBLE       DEFAULT 0 COMMENT '死区值，绝对值或量程百分比',
+    span_min    DOUBLE COMMENT '量程下限',
+    span_max    DOUBLE COMMENT '量程上限',
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     -- 添加约束
@@ -27,7 +33,7 @@ CREATE TABLE IF NOT EXISTS plc_data_record
 (
     id        BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
     tag_name  VARCHAR(100) NOT NULL COMMENT '标签名称',
-    tag_value VARCHAR(255) COMMENT '数据值',
+    tag_value VARCHAR(4000) COMMENT '数据值',
     data_type VARCHAR(20) COMMENT '数据类型',
     quality   VARCHAR(20) COMMENT '数据质量',
     timestamp TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '时间戳',
@@ -55,6 +61,7 @@ CREATE TABLE IF NOT EXISTS plc_connect_config
     slot        INTEGER COMMENT 'PLC插槽号',
     timeout     INTEGER     DEFAULT 5000 COMMENT '连接超时时间(毫秒)',
     protocol    VARCHAR(20) DEFAULT 'S7' COMMENT '通信协议',
+    pool_size   INTEGER     DEFAULT 1 COMMENT '并行连接数',
     is_active   BOOLEAN     DEFAULT TRUE COMMENT '是否激活',
     create_time TIMESTAMP   DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time TIMESTAMP   DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
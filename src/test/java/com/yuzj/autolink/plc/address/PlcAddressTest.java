@@ -0,0 +1,103 @@
+package com.yuzj.autolink.plc.address;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 地址解析与相等性测试
+ *
+ * @author yuzj002
+ */
+class PlcAddressTest {
+
+    @Test
+    void parsesDataBlockAddresses() {
+        assertAddress("DB1.DBX2.3", PlcArea.DB, 1, 2, 3, S7DataType.BOOL, 0, 1);
+        assertTrue(PlcAddress.parse("DB1.DBX2.3").isBit());
+        assertAddress("DB2.DBB7", PlcArea.DB, 2, 7, 0, S7DataType.BYTE, 0, 1);
+        assertAddress("DB3.DBW10", PlcArea.DB, 3, 10, 0, S7DataType.WORD, 0, 2);
+        assertAddress("DB4.DBD12", PlcArea.DB, 4, 12, 0, S7DataType.DWORD, 0, 4);
+        assertAddress("DB5.DBR16", PlcArea.DB, 5, 16, 0, S7DataType.REAL, 0, 4);
+        assertAddress("DB6.DBS20", PlcArea.DB, 6, 20, 0, S7DataType.STRING, PlcAddress.DEFAULT_STRING_LENGTH, 256);
+        assertAddress("DB6.DBS20[10]", PlcArea.DB, 6, 20, 0, S7DataType.STRING, 10, 12);
+        assertAddress("DB7.DBWS30[8]", PlcArea.DB, 7, 30, 0, S7DataType.WSTRING, 8, 20);
+        assertAddress("DB7.DBWS30", PlcArea.DB, 7, 30, 0, S7DataType.WSTRING, PlcAddress.DEFAULT_STRING_LENGTH, 512);
+    }
+
+    @Test
+    void parsesMemoryAreaAddresses() {
+        assertAddress("I0.1", PlcArea.INPUT, 0, 0, 1, S7DataType.BOOL, 0, 1);
+        assertAddress("Q3.7", PlcArea.OUTPUT, 0, 3, 7, S7DataType.BOOL, 0, 1);
+        assertAddress("M5", PlcArea.MARKER, 0, 5, 0, S7DataType.BYTE, 0, 1);
+        assertAddress("QB1", PlcArea.OUTPUT, 0, 1, 0, S7DataType.BYTE, 0, 1);
+        assertAddress("MW2", PlcArea.MARKER, 0, 2, 0, S7DataType.WORD, 0, 2);
+        assertAddress("ID4", PlcArea.INPUT, 0, 4, 0, S7DataType.DWORD, 0, 4);
+    }
+
+    @Test
+    void parsesArraySuffixes() {
+        PlcAddress reals = PlcAddress.parse("DB5.DBR0[100]");
+        assertTrue(reals.isArray());
+        assertEquals(100, reals.getCount());
+        assertEquals(400, reals.getLength());
+
+        // 位数组按起始位向上取整到字节
+        PlcAddress bits = PlcAddress.parse("DB1.DBX2.6[4]");
+        assertTrue(bits.isArray());
+        assertFalse(bits.isBit());
+        assertEquals(2, bits.getLength());
+
+        assertAddress("MW10[4]", PlcArea.MARKER, 0, 10, 0, S7DataType.WORD, 4, 8);
+        assertFalse(PlcAddress.parse("DB6.DBS20[10]").isArray());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "  ", "DB", "DB1", "DB1.DBX", "DB1.DBX0.8", "DB1.DBQ0", "DBA.DBW0", "DB1.DBW0.",
+            "DB1.DBW0[0]", "DB1.DBW0[", "DB1.DBW0[2", "DB1.DBS0[255]", "DB1.DBR0[65536]", "DB1.DBW0x",
+            "X0.0", "MX0.0", "MR0", "IS0", "M", "MW", "M0.9", "DB99999999999.DBW0"})
+    void rejectsInvalidAddresses(String text) {
+        assertThrows(IllegalArgumentException.class, () -> PlcAddress.parse(text));
+    }
+
+    @Test
+    void rejectsNull() {
+        assertThrows(IllegalArgumentException.class, () -> PlcAddress.parse(null));
+    }
+
+    @Test
+    void equalityIncludesDataType() {
+        PlcAddress dword = PlcAddress.parse("DB1.DBD4");
+        PlcAddress real = dword.withDataType(S7DataType.REAL);
+        assertNotEquals(dword, real);
+        assertEquals(real, dword.withDataType(S7DataType.REAL));
+        assertEquals(real.hashCode(), dword.withDataType(S7DataType.REAL).hashCode());
+        assertEquals(dword, PlcAddress.parse("DB1.DBD4"));
+        assertSame(dword, dword.withDataType(S7DataType.DWORD));
+
+        assertNotEquals(PlcAddress.parse("DB1.DBW0"), PlcAddress.parse("DB1.DBW0[2]"));
+        assertThrows(IllegalArgumentException.class, () -> dword.withDataType(S7DataType.WORD));
+        assertThrows(IllegalArgumentException.class,
+                () -> PlcAddress.parse("DB1.DBB0").withDataType(S7DataType.BOOL));
+    }
+
+    private static void assertAddress(String text, PlcArea area, int dbNumber, int byteOffset, int bitOffset,
+                                      S7DataType dataType, int count, int length) {
+        PlcAddress address = PlcAddress.parse(text);
+        assertEquals(text, address.getAddress());
+        assertEquals(area, address.getArea(), text);
+        assertEquals(dbNumber, address.getDbNumber(), text);
+        assertEquals(byteOffset, address.getByteOffset(), text);
+        assertEquals(bitOffset, address.getBitOffset(), text);
+        assertEquals(dataType, address.getDataType(), text);
+        assertEquals(count, address.getCount(), text);
+        assertEquals(length, address.getLength(), text);
+    }
+}
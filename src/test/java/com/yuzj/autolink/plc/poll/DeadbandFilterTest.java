@@ -0,0 +1,231 @@
+package com.yuzj.autolink.plc.poll;
+
+import com.yuzj.autolink.dao.model.PlcTagConfig;
+import com.yuzj.autolink.plc.address.PlcAddress;
+import com.yuzj.autolink.plc.plan.ReadPlan;
+import com.yuzj.autolink.plc.plan.ReadPlanner;
+import com.yuzj.autolink.plc.plan.ReadResult;
+import com.yuzj.autolink.plc.plan.TagQuality;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 死区过滤器测试: 位读取块按字比较、按块处理质量，标量按死区类型逐个比较
+ *
+ * @author yuzj002
+ */
+class DeadbandFilterTest {
+
+    /**
+     * 0-2在同一位读取块中按位比较，3为字地址，4与1同位重复，逐个比较
+     */
+    private static final String[] ADDRESSES = {"DB1.DBX0.0", "DB1.DBX0.1", "DB1.DBX9.7", "DB1.DBW100", "DB1.DBX0.1"};
+
+    /**
+     * 标量测试用的单个REAL地址
+     */
+    private static final ReadPlan SCALAR_PLAN = ReadPlanner.plan(new PlcAddress[]{PlcAddress.parse("DB2.DBR0")}, 16);
+
+    private ReadPlan plan;
+    private DeadbandFilter filter;
+    private final boolean[] changed = new boolean[ADDRESSES.length];
+
+    @BeforeEach
+    void setUp() {
+        PlcAddress[] addresses = new PlcAddress[ADDRESSES.length];
+        List<PlcTagConfig> tags = new ArrayList<>();
+        for (int i = 0; i < ADDRESSES.length; i++) {
+            addresses[i] = PlcAddress.parse(ADDRESSES[i]);
+            PlcTagConfig tag = new PlcTagConfig();
+            tag.setTagName("T" + i);
+            tag.setAddress(ADDRESSES[i]);
+            tags.add(tag);
+        }
+        plan = ReadPlanner.plan(addresses, 16);
+        filter = new DeadbandFilter(tags, plan);
+    }
+
+    @Test
+    void reportsOnlyChangedBits() {
+        assertEquals(5, filter.apply(good(0b01, 0, 7), changed));
+        assertArrayEquals(new boolean[]{true, true, true, true, true}, changed);
+
+        assertEquals(0, filter.apply(good(0b01, 0, 7), changed));
+        assertArrayEquals(new boolean[5], changed);
+        assertEquals(1, filter.getSuppressedCount(0));
+        assertEquals(1, filter.getSuppressedCount(4));
+
+        ReadResult result = good(0b01, 0x80, 7);
+        assertEquals(1, filter.apply(result, changed));
+        assertArrayEquals(new boolean[]{false, false, true, false, false}, changed);
+        assertEquals(Boolean.TRUE, result.peekValues()[2]);
+        assertNull(result.peekValues()[0]);
+
+        result = good(0b10, 0x80, 7);
+        assertEquals(3, filter.apply(result, changed));
+        assertArrayEquals(new boolean[]{true, true, false, false, true}, changed);
+        assertEquals(Boolean.FALSE, result.peekValues()[0]);
+        assertEquals(Boolean.TRUE, result.peekValues()[1]);
+        assertEquals(Boolean.TRUE, result.getValues()[4]);
+
+        assertEquals(2, filter.getForwardedCount(0));
+        assertEquals(2, filter.getSuppressedCount(2));
+    }
+
+    @Test
+    void handlesQualityPerBlock() {
+        filter.apply(good(0b11, 0x80, 7), changed);
+
+        ReadResult failed = bad();
+        assertEquals(5, filter.apply(failed, changed));
+        for (int i = 0; i < ADDRESSES.length; i++) {
+            assertTrue(changed[i]);
+            assertEquals(TagQuality.UNCERTAIN_STALE, failed.getQuality(i));
+        }
+        assertEquals(Boolean.TRUE, failed.peekValues()[1]);
+        assertEquals(Boolean.TRUE, failed.peekValues()[2]);
+
+        assertEquals(0, filter.apply(bad(), changed));
+
+        // 恢复后质量变化，块内全部重新上报，即使值未变
+        assertEquals(5, filter.apply(good(0b11, 0x80, 7), changed));
+
+        filter.reset();
+        assertEquals(5, filter.apply(good(0b11, 0x80, 7), changed));
+        assertFalse(filter.apply(good(0b11, 0x80, 7), changed) > 0);
+    }
+
+    private ReadResult good(int byte0, int byte9, int word) {
+        ReadResult result = new ReadResult(plan);
+        int bitBlock = plan.getBlockIndexes()[0];
+        byte[] bits = new byte[plan.getBlocks().get(bitBlock).getLength()];
+        bits[0] = (byte) byte0;
+        bits[9] = (byte) byte9;
+        result.setBlockData(bitBlock, bits);
+        result.setBlockData(plan.getBlockIndexes()[3], new byte[]{0, (byte) word});
+        result.peekValues()[3] = word;
+        return result;
+    }
+
+    private ReadResult bad() {
+        ReadResult result = new ReadResult(plan);
+        for (int i = 0; i < result.size(); i++) {
+            result.setBad(i, TagQuality.BAD_COMM);
+        }
+        return result;
+    }
+
+    @Test
+    void absoluteDeadbandComparesWithLastReportedValue() {
+        DeadbandFilter scalar = scalar("ABSOLUTE", -0.5, null, null);
+        assertTrue(report(scalar, 10.0));
+        assertFalse(report(scalar, 10.25));
+        // 等于死区不上报
+        assertFalse(report(scalar, 10.5));
+        assertTrue(report(scalar, 10.75));
+        // 与上次上报值而不是上次读取值比较，缓慢漂移最终会上报
+        assertFalse(report(scalar, 10.5));
+        assertFalse(report(scalar, 10.375));
+        assertTrue(report(scalar, 10.125));
+        assertEquals(3, scalar.getForwardedCount(0));
+        assertEquals(4, scalar.getSuppressedCount(0));
+    }
+
+    @Test
+    void percentDeadbandUsesSpan() {
+        // 量程200的1%为2
+        DeadbandFilter scalar = scalar("PERCENT", 1.0, -50.0, 150.0);
+        assertTrue(report(scalar, 50.0));
+        assertFalse(report(scalar, 51.5));
+        assertFalse(report(scalar, 48.0));
+        assertTrue(report(scalar, 52.5));
+        assertTrue(report(scalar, 50.25));
+    }
+
+    @Test
+    void percentWithoutSpanFallsBackToChange() {
+        DeadbandFilter scalar = scalar("PERCENT", 50.0, 0.0, null);
+        assertTrue(report(scalar, 50.0));
+        assertFalse(report(scalar, 50.0));
+        assertTrue(report(scalar, 50.001));
+        assertFalse(report(scalar, 50.001));
+    }
+
+    @Test
+    void nanIsReportedOnlyWhenEnteringOrLeaving() {
+        DeadbandFilter scalar = scalar("ABSOLUTE", 5.0, null, null);
+        assertTrue(report(scalar, 1.0));
+        assertTrue(report(scalar, Double.NaN));
+        assertFalse(report(scalar, Double.NaN));
+        assertTrue(report(scalar, 1.0));
+        assertFalse(report(scalar, 2.0));
+    }
+
+    @Test
+    void substitutesLastReportedValueOnCommFailure() {
+        DeadbandFilter scalar = scalar("ABSOLUTE", 1.0, null, null);
+        boolean[] flags = new boolean[1];
+
+        // 从未上报过的标签保持通信失败，不沿用值
+        ReadResult failed = scalarBad();
+        assertEquals(1, scalar.apply(failed, flags));
+        assertEquals(TagQuality.BAD_COMM, failed.getQuality(0));
+        assertNull(failed.getValue(0));
+
+        assertTrue(report(scalar, 20.0));
+        assertFalse(report(scalar, 20.5));
+
+        failed = scalarBad();
+        assertEquals(1, scalar.apply(failed, flags));
+        assertEquals(TagQuality.UNCERTAIN_STALE, failed.getQuality(0));
+        assertEquals(20.0, failed.getValue(0));
+
+        failed = scalarBad();
+        assertEquals(0, scalar.apply(failed, flags));
+        assertEquals(TagQuality.UNCERTAIN_STALE, failed.getQuality(0));
+        assertEquals(20.0, failed.getValue(0));
+
+        // 恢复后质量变化，值在死区内也上报
+        assertTrue(report(scalar, 20.5));
+        assertFalse(report(scalar, 20.0));
+    }
+
+    private static DeadbandFilter scalar(String type, Double deadband, Double spanMin, Double spanMax) {
+        PlcTagConfig tag = new PlcTagConfig();
+        tag.setTagName("S0");
+        tag.setAddress("DB2.DBR0");
+        tag.setDeadbandType(type);
+        tag.setDeadband(deadband);
+        tag.setSpanMin(spanMin);
+        tag.setSpanMax(spanMax);
+        return new DeadbandFilter(Collections.singletonList(tag), SCALAR_PLAN);
+    }
+
+    /**
+     * 以给定值过滤一个GOOD周期
+     *
+     * @return 是否上报
+     */
+    private static boolean report(DeadbandFilter scalar, double value) {
+        ReadResult result = new ReadResult(SCALAR_PLAN);
+        result.peekValues()[0] = value;
+        boolean[] flags = new boolean[1];
+        return scalar.apply(result, flags) == 1 && flags[0];
+    }
+
+    private static ReadResult scalarBad() {
+        ReadResult result = new ReadResult(SCALAR_PLAN);
+        result.setBad(0, TagQuality.BAD_COMM);
+        return result;
+    }
+}
@@ -0,0 +1,163 @@
+package com.yuzj.autolink.plc.s7;
+
+import com.yuzj.autolink.s7.S7Simulator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.yuzj.autolink.plc.address.PlcArea;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * S7连接池在本地模拟器上的重建测试
+ *
+ * @author yuzj002
+ */
+class PooledS7ClientTest {
+
+    private S7Simulator simulator;
+    private PooledS7Client pool;
+    private final List<S7Client> created = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        simulator = new S7Simulator();
+        simulator.init();
+        simulator.start(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+        simulator.destroy();
+    }
+
+    @Test
+    void backsOffWhenMemberCannotBeRebuilt() throws Exception {
+        int deadPort = unusedPort();
+        AtomicInteger calls = new AtomicInteger();
+        pool = new PooledS7Client(() -> track(new S7TcpClient("127.0.0.1",
+                calls.getAndIncrement() == 0 ? simulator.getLocalPort() : deadPort, 0, 1, 1000)), 2, 100, 3, "test");
+        pool.connect();
+        assertEquals(1, pool.getActiveConnections());
+
+        Thread.sleep(1500);
+        // 不退避时每100ms重试一次; 退避后间隔依次不短于50、100、200、400ms
+        int attempts = calls.get() - 2;
+        assertTrue(attempts >= 2 && attempts <= 6, "重建次数: " + attempts);
+        assertEquals(1, pool.getActiveConnections());
+    }
+
+    @Test
+    void reconnectClosesEveryPreviousMember() throws Exception {
+        pool = new PooledS7Client(() -> track(new S7TcpClient("127.0.0.1", simulator.getLocalPort(), 0, 1, 1000)),
+                3, 100, 3, "test");
+        pool.connect();
+        for (int i = 0; i < 5; i++) {
+            created.get(created.size() - 1).close();
+            Thread.sleep(120);
+            pool.connect();
+        }
+        Thread.sleep(500);
+
+        assertEquals(3, pool.getActiveConnections());
+        assertEquals(3, created.stream().filter(S7Client::isConnected).count());
+    }
+
+    /**
+     * 其他连接池的重建卡在连接时限上时，本连接池仍按自己的间隔重建
+     */
+    @Test
+    void blockedRebuildsDoNotDelayOtherPools() throws Exception {
+        List<PooledS7Client> stuck = new ArrayList<>();
+        try (ServerSocket silent = new ServerSocket(0)) {
+            for (int p = 0; p < 3; p++) {
+                AtomicInteger calls = new AtomicInteger();
+                PooledS7Client blocked = new PooledS7Client(() -> {
+                    boolean first = calls.getAndIncrement() == 0;
+                    S7TcpClient member = new S7TcpClient("127.0.0.1",
+                            first ? simulator.getLocalPort() : silent.getLocalPort(), 0, 1, 3000);
+                    member.setConnectTimeout(3000);
+                    return track(member);
+                }, 1, 100, 3, "stuck" + p);
+                blocked.connect();
+                stuck.add(blocked);
+                created.get(created.size() - 1).close();
+            }
+            // 等待各连接池的重建开始并阻塞在无响应的对端上
+            Thread.sleep(400);
+
+            pool = new PooledS7Client(() -> track(new S7TcpClient("127.0.0.1", simulator.getLocalPort(), 0, 1, 1000)),
+                    1, 100, 3, "test");
+            pool.connect();
+            created.get(created.size() - 1).close();
+            long start = System.nanoTime();
+            while (pool.getActiveConnections() == 0 && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)) {
+                Thread.sleep(20);
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(1, pool.getActiveConnections());
+            assertTrue(elapsed < 1500, "重建耗时: " + elapsed + "ms");
+        } finally {
+            for (PooledS7Client blocked : stuck) {
+                blocked.close();
+            }
+        }
+    }
+
+    @Test
+    void writesGoThroughOneMember() throws Exception {
+        List<S7TrafficCounter> counters = new CopyOnWriteArrayList<>();
+        pool = new PooledS7Client(() -> {
+            S7TcpClient member = new S7TcpClient("127.0.0.1", simulator.getLocalPort(), 0, 1, 1000);
+            S7TrafficCounter counter = new S7TrafficCounter();
+            member.setTrafficCounter(counter);
+            counters.add(counter);
+            return member;
+        }, 3, 100, 3, "test");
+        pool.connect();
+        long[] before = new long[counters.size()];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = counters.get(i).getRequestsSent();
+        }
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            S7Item item = S7Item.ofBytes(PlcArea.DB, 1, 10, 2, ByteBuffer.wrap(new byte[]{0, (byte) i}), 0);
+            writes.add(pool.writeAsync(Collections.singletonList(item), RequestPriority.WRITE));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // 同一连接上的写入可能合并为多项请求，只检查其余连接没有写入
+        assertTrue(counters.get(0).getRequestsSent() > before[0]);
+        for (int i = 1; i < counters.size(); i++) {
+            assertEquals(0, counters.get(i).getRequestsSent() - before[i]);
+        }
+    }
+
+    private S7Client track(S7Client client) {
+        created.add(client);
+        return client;
+    }
+
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
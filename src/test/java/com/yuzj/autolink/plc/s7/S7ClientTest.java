@@ -0,0 +1,190 @@
+package com.yuzj.autolink.plc.s7;
+
+import com.yuzj.autolink.config.PlcProperties;
+import com.yuzj.autolink.plc.address.PlcArea;
+import com.yuzj.autolink.s7.S7Simulator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.yuzj.autolink.plc.s7.S7Protocol.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * S7客户端在本地模拟器上的打包、拆分和返回码测试，阻塞和NIO两种传输层分别执行
+ *
+ * @author yuzj002
+ */
+class S7ClientTest {
+
+    private S7Simulator simulator;
+    private AbstractS7Client client;
+    private final S7TrafficCounter traffic = new S7TrafficCounter();
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        if (simulator != null) {
+            simulator.destroy();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void negotiatesPduSizeAndParallelJobs(String protocol) throws IOException {
+        connect(protocol, MAX_PDU_SIZE);
+        assertEquals(MAX_PDU_SIZE, client.getPduSize());
+        assertEquals(AbstractS7Client.REQUESTED_MAX_AMQ, client.getMaxAmqCalling());
+
+        client.close();
+        simulator.destroy();
+        connect(protocol, MIN_PDU_SIZE);
+        assertEquals(MIN_PDU_SIZE, client.getPduSize());
+        assertTrue(client.isConnected());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void packsAtMostTwentyItemsPerRequest(String protocol) throws IOException {
+        connect(protocol, MAX_PDU_SIZE);
+        byte[] expected = pattern(90, 1);
+        client.write(items(45, 2, ByteBuffer.wrap(expected)));
+
+        byte[] actual = new byte[expected.length];
+        long before = traffic.getRequestsSent();
+        List<S7Item> items = items(45, 2, ByteBuffer.wrap(actual));
+        client.read(items);
+
+        assertEquals(3, traffic.getRequestsSent() - before);
+        assertAllSuccess(items);
+        assertArrayEquals(expected, actual);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void packsItemsUpToNegotiatedPduSize(String protocol) throws IOException {
+        connect(protocol, MIN_PDU_SIZE);
+        byte[] actual = new byte[600];
+        long before = traffic.getRequestsSent();
+        List<S7Item> items = items(30, 20, ByteBuffer.wrap(actual));
+        client.read(items);
+
+        // 每项响应占24字节: (240 - 12 - 2) / 24 = 9项/请求
+        assertEquals(4, traffic.getRequestsSent() - before);
+        assertAllSuccess(items);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void splitsOversizedItemAndMergesResult(String protocol) throws IOException {
+        connect(protocol, MIN_PDU_SIZE);
+        int length = 1000;
+        int bufferOffset = 7;
+        byte[] expected = pattern(length, 3);
+        ByteBuffer src = ByteBuffer.allocate(bufferOffset + length);
+        src.position(bufferOffset);
+        src.put(expected);
+        S7Item write = S7Item.ofBytes(PlcArea.DB, 1, 2000, length, src, bufferOffset);
+        long before = traffic.getRequestsSent();
+        client.write(Arrays.asList(write));
+        assertTrue(write.isSuccess());
+        assertEquals(ceilDiv(length, maxWriteItemLength(MIN_PDU_SIZE)), traffic.getRequestsSent() - before);
+
+        ByteBuffer dst = ByteBuffer.allocate(bufferOffset + length);
+        S7Item read = S7Item.ofBytes(PlcArea.DB, 1, 2000, length, dst, bufferOffset);
+        before = traffic.getRequestsSent();
+        client.read(Arrays.asList(read));
+        assertTrue(read.isSuccess());
+        assertEquals(ceilDiv(length, maxReadItemLength(MIN_PDU_SIZE)), traffic.getRequestsSent() - before);
+        assertArrayEquals(expected, Arrays.copyOfRange(dst.array(), bufferOffset, bufferOffset + length));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void mergesFailedSliceReturnCodeIntoOriginalItem(String protocol) throws IOException {
+        connect(protocol, MIN_PDU_SIZE);
+        // 模拟器DB区为64KB，后半部分子数据项超出范围
+        S7Item read = S7Item.ofBytes(PlcArea.DB, 1, 65536 - 300, 1000, ByteBuffer.allocate(1000), 0);
+        client.read(Arrays.asList(read));
+        assertEquals(RETURN_CODE_ADDRESS_OUT_OF_RANGE, read.getReturnCode());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void reportsReturnCodePerItem(String protocol) throws IOException {
+        connect(protocol, MAX_PDU_SIZE);
+        client.write(Arrays.asList(S7Item.ofBytes(PlcArea.DB, 1, 100, 4,
+                ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), 0)));
+
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        S7Item good = S7Item.ofBytes(PlcArea.DB, 1, 100, 4, buffer, 0);
+        S7Item missing = S7Item.ofBytes(PlcArea.DB, 0, 0, 4, buffer, 4);
+        S7Item outOfRange = S7Item.ofBytes(PlcArea.DB, 1, 65534, 4, buffer, 8);
+        S7Item marker = S7Item.ofBytes(PlcArea.MARKER, 0, 0, 4, buffer, 12);
+        client.read(Arrays.asList(good, missing, outOfRange, marker));
+
+        assertEquals(RETURN_CODE_SUCCESS, good.getReturnCode());
+        assertEquals(RETURN_CODE_OBJECT_NOT_EXIST, missing.getReturnCode());
+        assertEquals(RETURN_CODE_ADDRESS_OUT_OF_RANGE, outOfRange.getReturnCode());
+        assertEquals(RETURN_CODE_SUCCESS, marker.getReturnCode());
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, Arrays.copyOfRange(buffer.array(), 0, 4));
+
+        S7Item writeMissing = S7Item.ofBytes(PlcArea.DB, 0, 0, 2, ByteBuffer.allocate(2), 0);
+        S7Item writeGood = S7Item.ofBytes(PlcArea.DB, 1, 104, 2, ByteBuffer.allocate(2), 0);
+        client.write(Arrays.asList(writeMissing, writeGood));
+        assertEquals(RETURN_CODE_OBJECT_NOT_EXIST, writeMissing.getReturnCode());
+        assertEquals(RETURN_CODE_SUCCESS, writeGood.getReturnCode());
+    }
+
+    private void connect(String protocol, int maxPduSize) throws IOException {
+        simulator = new S7Simulator();
+        simulator.init();
+        simulator.setMaxPduSize(maxPduSize);
+        simulator.start(0);
+        int port = simulator.getLocalPort();
+        client = PlcProperties.PROTOCOL_S7_NIO.equals(protocol)
+                ? new NioS7Client("127.0.0.1", port, 0, 1, 3000)
+                : new S7TcpClient("127.0.0.1", port, 0, 1, 3000);
+        client.setTrafficCounter(traffic);
+        client.connect();
+    }
+
+    /**
+     * DB1中从偏移1000开始等间隔排列的数据项，依次映射到缓冲区中的连续区间
+     */
+    private static List<S7Item> items(int count, int length, ByteBuffer buffer) {
+        List<S7Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(S7Item.ofBytes(PlcArea.DB, 1, 1000 + i * (length + 2), length, buffer, i * length));
+        }
+        return items;
+    }
+
+    private static void assertAllSuccess(List<S7Item> items) {
+        for (S7Item item : items) {
+            assertTrue(item.isSuccess(), item + ": " + returnCodeText(item.getReturnCode()));
+        }
+    }
+
+    private static byte[] pattern(int length, int seed) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,33 @@
+package com.yuzj.autolink.plc.service;
+
+import com.yuzj.autolink.plc.plan.TagQuality;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 批量读取结果容器测试
+ *
+ * @author yuzj002
+ */
+class TagBatchTest {
+
+    @Test
+    void reportsUnreadTagsAsNotGood() {
+        TagBatch batch = new TagBatch();
+        int first = batch.add("DB1.DBD4");
+        assertFalse(batch.isGood(first));
+        assertEquals(TagQuality.BAD_COMM, batch.getQuality(first));
+
+        batch.prepare(16);
+        int last = first;
+        for (int i = 0; i < 40; i++) {
+            last = batch.add("DB1.DBW" + (100 + i * 2));
+        }
+        assertEquals(41, batch.size());
+        assertFalse(batch.isGood(last));
+        assertEquals(TagQuality.BAD_COMM, batch.getQuality(last));
+        assertEquals(0, batch.getDInt(last));
+    }
+}
@@ -0,0 +1,104 @@
+package com.yuzj.autolink.plc.service.impl;
+
+import com.yuzj.autolink.config.PlcProperties;
+import com.yuzj.autolink.exception.PlcReadException;
+import com.yuzj.autolink.plc.s7.S7Protocol;
+import com.yuzj.autolink.s7.S7Simulator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * S7 PLC服务在本地模拟器上的读写测试，阻塞和NIO两种传输层分别执行
+ *
+ * @author yuzj002
+ */
+class S7PlcServiceImplTest {
+
+    private S7Simulator simulator;
+    private final S7PlcServiceImpl service = new S7PlcServiceImpl();
+
+    @AfterEach
+    void tearDown() {
+        service.disconnect();
+        if (simulator != null) {
+            simulator.destroy();
+        }
+    }
+
+    /**
+     * 大块读写在最小PDU下拆分出的作业数超过通道容量，仍应按一次调用入队
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void readsAndWritesRangesLargerThanLaneCapacity(String protocol) throws Exception {
+        connect(protocol, S7Protocol.MIN_PDU_SIZE);
+        int length = 60000;
+        byte[] expected = new byte[length];
+        for (int i = 0; i < length; i++) {
+            expected[i] = (byte) (i * 7 + 1);
+        }
+
+        ByteBuffer src = ByteBuffer.wrap(expected);
+        service.writeBytes(1, 100, src);
+        assertEquals(length, src.position());
+
+        ByteBuffer dst = ByteBuffer.allocate(length + 8);
+        dst.position(8);
+        service.readBytes(1, 100, length, dst);
+        assertEquals(length + 8, dst.position());
+        byte[] actual = new byte[length];
+        System.arraycopy(dst.array(), 8, actual, 0, length);
+        assertArrayEquals(expected, actual);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void typedReadsRejectStringAndArrayAddresses(String protocol) throws Exception {
+        connect(protocol, S7Protocol.MAX_PDU_SIZE);
+        service.write("DB1.DBD200", 12.5f);
+        assertEquals(12.5f, service.readReal("DB1.DBD200"));
+
+        assertThrows(PlcReadException.class, () -> service.readReal("DB1.DBS10[20]"));
+        assertThrows(PlcReadException.class, () -> service.readDInt("DB1.DBD4[4]"));
+        assertThrows(PlcReadException.class, () -> service.readBool("DB1.DBX0.0[8]"));
+        assertThrows(PlcReadException.class, () -> service.readBool(""));
+    }
+
+    /**
+     * 全部为位地址的读取块不在读取时解码，批量读取结果仍应带有各位的值
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void readMultipleDecodesBitOnlyBlocks(String protocol) throws Exception {
+        connect(protocol, S7Protocol.MAX_PDU_SIZE);
+        service.write("DB1.DBX300.1", true);
+        service.write("DB1.DBX301.7", true);
+
+        Map<String, Object> values = service.readMultiple(new String[]{"DB1.DBX300.0", "DB1.DBX300.1", "DB1.DBX301.7"});
+        assertEquals(Boolean.FALSE, values.get("DB1.DBX300.0"));
+        assertEquals(Boolean.TRUE, values.get("DB1.DBX300.1"));
+        assertEquals(Boolean.TRUE, values.get("DB1.DBX301.7"));
+    }
+
+    private void connect(String protocol, int maxPduSize) throws Exception {
+        simulator = new S7Simulator();
+        simulator.init();
+        simulator.setMaxPduSize(maxPduSize);
+        simulator.start(0);
+
+        PlcProperties config = new PlcProperties();
+        config.setProtocol(protocol);
+        config.setHost("127.0.0.1");
+        config.setPort(simulator.getLocalPort());
+        config.setTimeout(3000);
+        service.connect(config);
+    }
+}
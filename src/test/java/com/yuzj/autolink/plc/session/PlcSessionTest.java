@@ -0,0 +1,70 @@
+package com.yuzj.autolink.plc.session;
+
+import com.yuzj.autolink.config.PlcProperties;
+import com.yuzj.autolink.exception.PlcConnectionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 会话手动断开与后台重连的并发测试
+ *
+ * @author yuzj002
+ */
+class PlcSessionTest {
+
+    private ServerSocket silentServer;
+    private PlcSession session;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (session != null) {
+            session.close();
+        }
+        if (silentServer != null) {
+            silentServer.close();
+        }
+    }
+
+    /**
+     * 对端接受TCP连接但不响应COTP握手，重连会一直等到连接时限，手动断开不应等待
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {PlcProperties.PROTOCOL_S7, PlcProperties.PROTOCOL_S7_NIO})
+    void disconnectAbortsReconnectInProgress(String protocol) throws Exception {
+        silentServer = new ServerSocket(0);
+        PlcProperties config = new PlcProperties();
+        config.setProtocol(protocol);
+        config.setHost("127.0.0.1");
+        config.setPort(silentServer.getLocalPort());
+        config.setTimeout(10000);
+        config.setConnectTimeout(10000);
+        session = new PlcSession(1, config);
+        session.setAutoReconnect(true);
+
+        CompletableFuture<Boolean> reconnect = CompletableFuture.supplyAsync(() -> {
+            try {
+                return session.reconnect();
+            } catch (PlcConnectionException e) {
+                return false;
+            }
+        });
+        Thread.sleep(300);
+
+        long start = System.nanoTime();
+        session.disconnect();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed < 1000, "断开耗时: " + elapsed + "ms");
+
+        assertFalse(reconnect.get(2, TimeUnit.SECONDS));
+        assertFalse(session.isAutoReconnect());
+        assertFalse(session.isConnected());
+    }
+}
@@ -0,0 +1,114 @@
+package com.yuzj.autolink.plc.trace;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 采集链路JFR事件测试
+ *
+ * @author yuzj002
+ */
+class PlcTraceTest {
+
+    /**
+     * 先开始录制再加载PlcTrace，相当于-XX:StartFlightRecording启动的录制
+     */
+    @Test
+    void picksUpRecordingStartedBeforeClassInitialization() throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable("com.yuzj.autolink.ScanCycle");
+            recording.start();
+
+            ClassLoader loader = new TraceClassLoader();
+            Class<?> trace = Class.forName(PlcTrace.class.getName(), true, loader);
+            Class<?> stageType = loader.loadClass(TraceStage.class.getName());
+            Method beginEvent = trace.getMethod("beginEvent", stageType);
+            Object stage = stageType.getField(TraceStage.SCAN_CYCLE.name()).get(null);
+            assertNotNull(beginEvent.invoke(null, stage));
+            recording.stop();
+        }
+    }
+
+    @Test
+    void recordsEnabledStageEventsOnly() throws Exception {
+        assertNull(PlcTrace.beginEvent(TraceStage.SCAN_CYCLE));
+        assertFalse(PlcTrace.isEnabled());
+
+        Path file = Files.createTempFile("plc-trace", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("com.yuzj.autolink.ScanCycle");
+                recording.start();
+
+                Object event = PlcTrace.beginEvent(TraceStage.SCAN_CYCLE);
+                assertNotNull(event);
+                PlcTrace.end(TraceStage.SCAN_CYCLE, 7, PlcTrace.NO_DB, 128, 16, PlcTrace.begin(), event);
+                // 未开启的阶段不创建事件
+                assertNull(PlcTrace.beginEvent(TraceStage.DECODE));
+
+                recording.stop();
+                recording.dump(file);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().startsWith("com.yuzj.autolink."))
+                    .collect(Collectors.toList());
+            assertEquals(1, events.size());
+            RecordedEvent event = events.get(0);
+            assertEquals("com.yuzj.autolink.ScanCycle", event.getEventType().getName());
+            assertEquals(7L, event.getLong("deviceId"));
+            assertEquals(128, event.getInt("bytes"));
+            assertEquals(16, event.getInt("items"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        assertNull(PlcTrace.beginEvent(TraceStage.SCAN_CYCLE));
+    }
+
+    /**
+     * 重新加载跟踪包内的类，使PlcTrace的静态初始化在录制开始后执行
+     */
+    private static final class TraceClassLoader extends ClassLoader {
+
+        TraceClassLoader() {
+            super(PlcTraceTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(PlcTrace.class.getPackage().getName() + ".") || name.endsWith("Test")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        if (in == null) {
+                            throw new ClassNotFoundException(name);
+                        }
+                        byte[] bytes = in.readAllBytes();
+                        loaded = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return loaded;
+            }
+        }
+    }
+}